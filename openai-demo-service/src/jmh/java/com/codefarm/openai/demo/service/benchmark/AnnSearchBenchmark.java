@@ -0,0 +1,95 @@
+package com.codefarm.openai.demo.service.benchmark;
+
+import com.codefarm.openai.demo.service.vectorstore.ExactVectorIndex;
+import com.codefarm.openai.demo.service.vectorstore.HnswVectorIndex;
+import com.codefarm.openai.demo.service.vectorstore.ProductQuantizer;
+import com.codefarm.openai.demo.service.vectorstore.QuantizedVectorIndex;
+import com.codefarm.openai.demo.service.vectorstore.ScalarQuantizer;
+import com.codefarm.openai.demo.service.vectorstore.ScoredNode;
+import com.codefarm.openai.demo.service.vectorstore.VectorIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 search latency of the vector indexes against the exact scan on a clustered corpus. The
+ * recall@10 of each configuration is computed once per trial and printed before the iterations,
+ * so the latency column can be read against it.
+ * <ul>
+ *     <li>{@code exact} - single-threaded exact scan</li>
+ *     <li>{@code hnsw:<ef>} - HNSW graph with m=16, efConstruction=200 and the given efSearch</li>
+ *     <li>{@code int8:<rerank>} - int8 codes, re-ranking {@code rerank * k} candidates at full precision</li>
+ *     <li>{@code pq<m>:<rerank>} - product quantization with {@code m} subspaces of 256 centroids</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AnnSearchBenchmark {
+
+    private static final int TOP_K = 10;
+    private static final int TRAINING_SIZE = 5_000;
+
+    @Param({"20000"})
+    int corpusSize;
+
+    @Param({"128"})
+    int dimensions;
+
+    @Param({"exact", "hnsw:10", "hnsw:16", "hnsw:32", "hnsw:64", "hnsw:128", "hnsw:256",
+            "int8:1", "int8:4", "pq16:1", "pq16:4", "pq16:10", "pq64:1", "pq64:4", "pq64:10"})
+    String index;
+
+    private ClusteredVectors corpus;
+    private VectorIndex vectorIndex;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        corpus = new ClusteredVectors(corpusSize, dimensions, 200, 7);
+        ExactVectorIndex exact = new ExactVectorIndex(corpus.vectors);
+        vectorIndex = index.equals("exact") ? exact : create(index);
+        for (int n = 0; n < corpus.vectors.size(); n++) {
+            exact.add(n);
+            if (vectorIndex != exact) {
+                vectorIndex.add(n);
+            }
+        }
+        System.out.printf(Locale.ROOT, "%n%s recall@%d = %.3f%n", index, TOP_K,
+                corpus.recall(exact, vectorIndex, TOP_K));
+    }
+
+    private VectorIndex create(String name) {
+        String[] parts = name.split(":");
+        return switch (parts[0]) {
+            case "hnsw" -> new HnswVectorIndex(corpus.vectors, 16, 200, Integer.parseInt(parts[1]));
+            case "int8" -> new QuantizedVectorIndex(corpus.vectors, new ScalarQuantizer(), TRAINING_SIZE,
+                    Integer.parseInt(parts[1]));
+            case "pq16", "pq64" -> new QuantizedVectorIndex(corpus.vectors,
+                    new ProductQuantizer(Integer.parseInt(parts[0].substring(2)), 10, 1), TRAINING_SIZE,
+                    Integer.parseInt(parts[1]));
+            default -> throw new IllegalArgumentException("unknown index " + name);
+        };
+    }
+
+    @Benchmark
+    public List<ScoredNode> search() {
+        return vectorIndex.search(corpus.queries[next++ % corpus.queries.length], TOP_K, n -> true);
+    }
+}
@@ -0,0 +1,69 @@
+package com.codefarm.openai.demo.service.benchmark;
+
+import com.codefarm.openai.demo.service.vectorstore.ScoredNode;
+import com.codefarm.openai.demo.service.vectorstore.VectorBlock;
+import com.codefarm.openai.demo.service.vectorstore.VectorIndex;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeded synthetic corpus of Gaussian clusters around 64 centroids, with held-out queries drawn
+ * from the same clusters; closer to real embeddings than uniform noise, where every neighbour is
+ * about as far as any other.
+ */
+final class ClusteredVectors {
+
+    final VectorBlock vectors = new VectorBlock();
+    final float[][] queries;
+
+    ClusteredVectors(int size, int dimensions, int queryCount, long seed) {
+        Random random = new Random(seed);
+        float[][] centroids = new float[64][dimensions];
+        for (float[] centroid : centroids) {
+            for (int i = 0; i < dimensions; i++) {
+                centroid[i] = (float) random.nextGaussian();
+            }
+        }
+        for (int n = 0; n < size; n++) {
+            vectors.append(sample(random, centroids));
+        }
+        queries = new float[queryCount][];
+        for (int q = 0; q < queryCount; q++) {
+            queries[q] = VectorBlock.normalize(sample(random, centroids));
+        }
+    }
+
+    /**
+     * Fraction of the exact top-k neighbours that {@code index} returns, over all queries.
+     */
+    double recall(VectorIndex exact, VectorIndex index, int topK) {
+        int found = 0;
+        for (float[] query : queries) {
+            Set<Integer> expected = nodes(exact.search(query, topK, n -> true));
+            for (ScoredNode hit : index.search(query, topK, n -> true)) {
+                if (expected.contains(hit.node())) {
+                    found++;
+                }
+            }
+        }
+        return found / (double) (queries.length * topK);
+    }
+
+    private static Set<Integer> nodes(List<ScoredNode> hits) {
+        Set<Integer> nodes = new HashSet<>();
+        hits.forEach(hit -> nodes.add(hit.node()));
+        return nodes;
+    }
+
+    private static float[] sample(Random random, float[][] centroids) {
+        float[] centroid = centroids[random.nextInt(centroids.length)];
+        float[] vector = new float[centroid.length];
+        for (int i = 0; i < centroid.length; i++) {
+            vector[i] = centroid[i] + (float) random.nextGaussian() * 1.2f;
+        }
+        return vector;
+    }
+}
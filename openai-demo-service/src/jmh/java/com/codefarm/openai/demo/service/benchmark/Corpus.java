@@ -0,0 +1,38 @@
+package com.codefarm.openai.demo.service.benchmark;
+
+import com.codefarm.openai.demo.service.ingestion.MovieCsvDocumentReader;
+import org.springframework.ai.document.Document;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark inputs built from {@code movies.csv}, repeated with distinct ids up to the size asked for.
+ */
+final class Corpus {
+
+    private Corpus() {
+    }
+
+    static List<Document> movies() {
+        try (Stream<Document> rows = new MovieCsvDocumentReader(new ClassPathResource("movies.csv")).stream()) {
+            return rows.toList();
+        }
+    }
+
+    static List<Document> movies(int size) {
+        List<Document> movies = movies();
+        List<Document> corpus = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Document movie = movies.get(i % movies.size());
+            corpus.add(Document.builder()
+                    .id(Integer.toString(i))
+                    .text(i < movies.size() ? movie.getText() : movie.getText() + " #" + i)
+                    .metadata(movie.getMetadata())
+                    .build());
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,116 @@
+package com.codefarm.openai.demo.service.benchmark;
+
+import com.codefarm.openai.demo.service.vectorstore.ExactVectorIndex;
+import com.codefarm.openai.demo.service.vectorstore.ScoredNode;
+import com.codefarm.openai.demo.service.vectorstore.VectorBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-5 exact scan latency percentiles over 100k random 384-dimensional rows, single-threaded
+ * against partitioned over one partition per core, with one and with four concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ExactScanBenchmark {
+
+    private static final int TOP_K = 5;
+
+    @Param({"100000"})
+    int corpusSize;
+
+    @Param({"384"})
+    int dimensions;
+
+    @Param({"single-threaded", "partitioned"})
+    String scan;
+
+    private ExecutorService executor;
+    private ExactVectorIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(13);
+        VectorBlock vectors = new VectorBlock();
+        for (int n = 0; n < corpusSize; n++) {
+            vectors.append(randomVector(random, dimensions));
+        }
+        int partitions = Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(partitions);
+        index = scan.equals("partitioned")
+                ? new ExactVectorIndex(vectors, executor, partitions, 16_384)
+                : new ExactVectorIndex(vectors);
+        for (int n = 0; n < vectors.size(); n++) {
+            index.add(n);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queries of one caller thread.
+     */
+    @State(Scope.Thread)
+    public static class Queries {
+
+        private final float[][] queries = new float[64][];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ExactScanBenchmark benchmark) {
+            Random random = new Random(Thread.currentThread().threadId());
+            for (int q = 0; q < queries.length; q++) {
+                queries[q] = VectorBlock.normalize(randomVector(random, benchmark.dimensions));
+            }
+        }
+
+        float[] next() {
+            return queries[next++ & 63];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<ScoredNode> oneCaller(Queries queries) {
+        return index.search(queries.next(), TOP_K, n -> true);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<ScoredNode> fourCallers(Queries queries) {
+        return index.search(queries.next(), TOP_K, n -> true);
+    }
+
+    private static float[] randomVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
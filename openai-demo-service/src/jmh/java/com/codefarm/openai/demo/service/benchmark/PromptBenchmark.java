@@ -0,0 +1,91 @@
+package com.codefarm.openai.demo.service.benchmark;
+
+import com.codefarm.openai.demo.service.model.CapitalResponseV2;
+import com.codefarm.openai.demo.service.prompt.PromptRegistry;
+import com.codefarm.openai.demo.service.prompt.StructuredOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt assembly per template: a {@link PromptTemplate} built and rendered from the template text
+ * on every call (what the service did before templates were precompiled) against the
+ * {@link PromptRegistry}, plus {@link CapitalResponseV2} output conversion with a new and with a
+ * shared {@link BeanOutputConverter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class PromptBenchmark {
+
+    private static final String CAPITAL_JSON = """
+            {"capital": "Paris", "population": "68 million", "region": "Western Europe", \
+            "language": "French", "currency": "Euro", "nationalAnimal": "Gallic rooster"}""";
+
+    @Param({"get-capital-prompt", "get-capital-with-info-prompt", "get-capital-with-json-prompt",
+            "get-capital-with-json-binding-prompt", "get-capitals-with-json-binding-prompt", "rag-prompt-template"})
+    String template;
+
+    private String text;
+    private PromptRegistry registry;
+    private StructuredOutput<CapitalResponseV2> capitalOutput;
+    private Map<String, Object> variables;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        text = new ClassPathResource("templates/" + template + ".st").getContentAsString(StandardCharsets.UTF_8);
+        registry = PromptRegistry.load(new PathMatchingResourcePatternResolver(), "classpath:templates/*.st");
+        capitalOutput = registry.register(CapitalResponseV2.class);
+        String documents = String.join("\n\n", Corpus.movies(5).stream().map(movie -> movie.getText()).toList());
+        variables = Map.of(
+                "country", "France",
+                "countries", "1. France\n2. Italy\n3. Japan\n",
+                "format", capitalOutput.format(),
+                "input", "Which movies are about astronauts?",
+                "documents", documents);
+    }
+
+    @Benchmark
+    public Prompt renderFromText() {
+        return PromptTemplate.builder().template(text).build().create(variables);
+    }
+
+    @Benchmark
+    public Prompt renderPrecompiled() {
+        return registry.create(template, variables);
+    }
+
+    @Benchmark
+    public CapitalResponseV2 convertWithNewConverter() {
+        BeanOutputConverter<CapitalResponseV2> converter = new BeanOutputConverter<>(CapitalResponseV2.class);
+        converter.getFormat();
+        return converter.convert(CAPITAL_JSON);
+    }
+
+    @Benchmark
+    public CapitalResponseV2 convertWithSharedConverter() {
+        return capitalOutput.convert(CAPITAL_JSON);
+    }
+}
@@ -0,0 +1,71 @@
+package com.codefarm.openai.demo.service.benchmark;
+
+import com.codefarm.openai.demo.service.vectorstore.SimilarityKernel;
+import com.codefarm.openai.demo.service.vectorstore.SimilarityKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dot product of a query against every row of a {@value #ROWS}-row block, per row, for the scalar
+ * loop and the preferred (SIMD) kernel, by embedding size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SimilarityKernelBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"128", "384", "768", "1024", "1536", "3072"})
+    int dimensions;
+
+    @Param({"scalar", "preferred"})
+    String kernel;
+
+    private SimilarityKernel similarityKernel;
+    private float[] rows;
+    private float[] query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        similarityKernel = kernel.equals("scalar") ? SimilarityKernels.scalar() : SimilarityKernels.preferred();
+        Random random = new Random(5);
+        rows = randomVector(random, ROWS * dimensions);
+        query = randomVector(random, dimensions);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public float scan() {
+        float sum = 0f;
+        for (int row = 0; row < ROWS; row++) {
+            sum += similarityKernel.dot(rows, row * dimensions, query, 0, dimensions);
+        }
+        return sum;
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
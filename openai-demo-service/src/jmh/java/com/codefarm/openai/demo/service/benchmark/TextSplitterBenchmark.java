@@ -0,0 +1,57 @@
+package com.codefarm.openai.demo.service.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TokenTextSplitter}, configured as in {@code VectorStoreConfig}, over {@code movies.csv}:
+ * either the whole file as one document or one document per row as the CSV reader produces them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TextSplitterBenchmark {
+
+    @Param({"file", "rows"})
+    String input;
+
+    private TokenTextSplitter splitter;
+    private List<Document> documents;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        splitter = TokenTextSplitter.builder()
+                .withChunkSize(300)
+                .withMaxNumChunks(400)
+                .build();
+        documents = input.equals("file")
+                ? List.of(new Document(new ClassPathResource("movies.csv").getContentAsString(StandardCharsets.UTF_8)))
+                : Corpus.movies();
+    }
+
+    @Benchmark
+    public List<Document> split() {
+        return splitter.apply(documents);
+    }
+}
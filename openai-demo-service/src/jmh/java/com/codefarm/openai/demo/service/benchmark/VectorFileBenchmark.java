@@ -0,0 +1,92 @@
+package com.codefarm.openai.demo.service.benchmark;
+
+import com.codefarm.openai.demo.service.vectorstore.IndexedVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persisting and restoring the vector store: Spring AI's JSON file against the binary snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VectorFileBenchmark {
+
+    @Param({"1000", "10000"})
+    int corpusSize;
+
+    @Param({"1536"})
+    int dimensions;
+
+    private FakeEmbeddingModel embeddingModel;
+    private SimpleVectorStore simpleStore;
+    private IndexedVectorStore indexedStore;
+    private Path directory;
+    private File json;
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        embeddingModel = new FakeEmbeddingModel(dimensions);
+        simpleStore = SimpleVectorStore.builder(embeddingModel).build();
+        simpleStore.add(Corpus.movies(corpusSize));
+        indexedStore = IndexedVectorStore.builder(embeddingModel).build();
+        indexedStore.add(Corpus.movies(corpusSize));
+        directory = Files.createTempDirectory("vector-file-benchmark");
+        json = directory.resolve("vectors.json").toFile();
+        snapshot = directory.resolve("vectors.snap");
+        simpleStore.save(json);
+        indexedStore.saveSnapshot(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void saveJson() {
+        simpleStore.save(json);
+    }
+
+    @Benchmark
+    public SimpleVectorStore loadJson() {
+        SimpleVectorStore store = SimpleVectorStore.builder(embeddingModel).build();
+        store.load(json);
+        return store;
+    }
+
+    @Benchmark
+    public void saveSnapshot() {
+        indexedStore.saveSnapshot(snapshot);
+    }
+
+    @Benchmark
+    public IndexedVectorStore loadSnapshot() {
+        IndexedVectorStore store = IndexedVectorStore.builder(embeddingModel).build();
+        store.loadSnapshot(snapshot);
+        return store;
+    }
+}
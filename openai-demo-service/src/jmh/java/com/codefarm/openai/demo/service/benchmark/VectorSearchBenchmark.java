@@ -0,0 +1,67 @@
+package com.codefarm.openai.demo.service.benchmark;
+
+import com.codefarm.openai.demo.service.vectorstore.IndexedVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-5 similarity search latency by corpus size and embedding dimensions, for Spring AI's
+ * {@link SimpleVectorStore} and the exact {@link IndexedVectorStore}. The query embedding (a
+ * seeded random vector) is part of every operation, as it is in the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class VectorSearchBenchmark {
+
+    @Param({"1000", "10000"})
+    int corpusSize;
+
+    @Param({"384", "1536"})
+    int dimensions;
+
+    @Param({"simple", "indexed"})
+    String store;
+
+    private VectorStore vectorStore;
+    private List<String> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FakeEmbeddingModel embeddingModel = new FakeEmbeddingModel(dimensions);
+        vectorStore = store.equals("simple")
+                ? SimpleVectorStore.builder(embeddingModel).build()
+                : IndexedVectorStore.builder(embeddingModel).build();
+        vectorStore.add(Corpus.movies(corpusSize));
+        queries = Corpus.movies(64).stream()
+                .map(movie -> movie.getMetadata().get("title") + " plot")
+                .toList();
+    }
+
+    @Benchmark
+    public List<Document> similaritySearch() {
+        String query = queries.get(next++ & 63);
+        return vectorStore.similaritySearch(SearchRequest.builder().query(query).topK(5).build());
+    }
+}
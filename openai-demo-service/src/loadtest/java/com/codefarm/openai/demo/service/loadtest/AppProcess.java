@@ -0,0 +1,102 @@
+package com.codefarm.openai.demo.service.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The app under test, started from its jar in a JVM of its own with the offline profile so the
+ * load generator and the server do not share heap or CPU accounting. Its output goes to
+ * {@code app.log} next to the report.
+ */
+class AppProcess implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AppProcess.class);
+
+    private final Process process;
+    private final URI baseUri;
+
+    private AppProcess(Process process, URI baseUri) {
+        this.process = process;
+        this.baseUri = baseUri;
+    }
+
+    static AppProcess start(Path jar, List<String> appArgs, Duration startupTimeout, Path logFile)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "--add-modules", "jdk.incubator.vector",
+                "-jar", jar.toString(),
+                "--spring.profiles.active=offline",
+                "--server.port=" + port));
+        command.addAll(appArgs);
+        Files.createDirectories(logFile.toAbsolutePath().getParent());
+        log.info("starting {} on port {}, output in {}", jar.getFileName(), port, logFile);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+        AppProcess app = new AppProcess(process, URI.create("http://localhost:" + port));
+        try {
+            app.awaitHealthy(startupTimeout);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            app.close();
+            throw e;
+        }
+        return app;
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private void awaitHealthy(Duration timeout) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(baseUri.resolve("/actuator/health"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("the app exited with " + process.exitValue() + " while starting");
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    log.info("app is up at {}", baseUri);
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IOException("the app did not become healthy within " + timeout);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.codefarm.openai.demo.service.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The controllers under load and the request bodies sent to them. Inputs are drawn from small fixed
+ * pools so that runs with the same seed send the same requests.
+ */
+enum Endpoint {
+
+    ASK("ask", "/ask", "text/plain") {
+        @Override
+        String body(int pick, long sequence, boolean unique) {
+            return suffix(QUESTIONS.get(pick % QUESTIONS.size()), sequence, unique);
+        }
+    },
+    CAPITAL("capital", "/capital", "application/json") {
+        @Override
+        String body(int pick, long sequence, boolean unique) {
+            return json(Map.of("country", suffix(COUNTRIES.get(pick % COUNTRIES.size()), sequence, unique)));
+        }
+    },
+    CAPITAL_JSON_BINDING("capital-json-binding", "/capital/json/binding", "application/json") {
+        @Override
+        String body(int pick, long sequence, boolean unique) {
+            return CAPITAL.body(pick, sequence, unique);
+        }
+    },
+    VECTOR_ANSWER("vector-answer", "/vector/answer", "application/json") {
+        @Override
+        String body(int pick, long sequence, boolean unique) {
+            return json(Map.of("question", suffix(MOVIE_QUESTIONS.get(pick % MOVIE_QUESTIONS.size()), sequence,
+                    unique)));
+        }
+    };
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final List<String> QUESTIONS = List.of(
+            "What is the speed of light?",
+            "How do vaccines work?",
+            "Why is the sky blue?",
+            "What causes the seasons on Earth?",
+            "How does a compiler differ from an interpreter?",
+            "What is the tallest mountain in Africa?",
+            "How do bees make honey?",
+            "What is photosynthesis?",
+            "Who wrote War and Peace?",
+            "How does garbage collection work in Java?",
+            "What is the difference between weather and climate?",
+            "How many bones are in the human body?");
+
+    private static final List<String> COUNTRIES = List.of(
+            "France", "Japan", "Peru", "Kenya", "Canada", "India", "Norway", "Brazil", "Egypt", "Australia",
+            "Mexico", "Germany", "Vietnam", "Chile", "Morocco", "Italy", "Finland", "Argentina", "Nepal", "Portugal");
+
+    private static final List<String> MOVIE_QUESTIONS = List.of(
+            "Which movies are about space exploration?",
+            "Recommend a heist movie with a clever twist.",
+            "What is Interstellar about?",
+            "Which animated movies are good for kids?",
+            "Suggest a crime drama about a mafia family.",
+            "Which movies feature time travel?",
+            "What are some movies about artificial intelligence?",
+            "Recommend a romantic comedy set in New York.",
+            "Which superhero movies have the best reviews?",
+            "What is a good movie about surviving alone in the wilderness?");
+
+    private final String id;
+    private final String path;
+    private final String contentType;
+
+    Endpoint(String id, String path, String contentType) {
+        this.id = id;
+        this.path = path;
+        this.contentType = contentType;
+    }
+
+    String id() {
+        return id;
+    }
+
+    String path() {
+        return path;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    /**
+     * The body of the {@code sequence}th request, built from input {@code pick} of the pool.
+     */
+    abstract String body(int pick, long sequence, boolean unique);
+
+    private static String suffix(String input, long sequence, boolean unique) {
+        return unique ? input + " #" + sequence : input;
+    }
+
+    private static String json(Map<String, String> body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
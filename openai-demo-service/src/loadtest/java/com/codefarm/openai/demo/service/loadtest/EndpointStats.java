@@ -0,0 +1,97 @@
+package com.codefarm.openai.demo.service.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of one endpoint. Successful responses are recorded in microseconds into an
+ * HdrHistogram {@link Recorder}; {@link #sample} is called once per interval by a single thread and
+ * moves what was recorded since into the timeline and the run total. Throughput counts successful
+ * responses only.
+ */
+class EndpointStats {
+
+    private final String name;
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder intervalErrors = new LongAdder();
+    private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+    private final Histogram total = new Histogram(3);
+    private final List<Interval> timeline = new ArrayList<>();
+    private Histogram interval;
+    private long errors;
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void success(long latencyNanos) {
+        recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    void error(String type) {
+        intervalErrors.increment();
+        errorsByType.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    /**
+     * Closes the current interval, {@code seconds} long and ending {@code second} into the measurement.
+     */
+    void sample(double second, double seconds) {
+        interval = recorder.getIntervalHistogram(interval);
+        long failed = intervalErrors.sumThenReset();
+        total.add(interval);
+        errors += failed;
+        timeline.add(new Interval(second, interval.getTotalCount() + failed, failed,
+                interval.getTotalCount() / seconds,
+                millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99))));
+    }
+
+    /**
+     * Adds what was recorded since the last interval to the total only.
+     */
+    void drain() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        errors += intervalErrors.sumThenReset();
+    }
+
+    Histogram total() {
+        return total;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    Map<String, Long> errorsByType() {
+        Map<String, Long> counts = new TreeMap<>();
+        errorsByType.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    List<Interval> timeline() {
+        return timeline;
+    }
+
+    static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * One sampling interval; {@code second} is where it ends, counted from the end of the warmup.
+     */
+    record Interval(double second, long requests, long errors, double throughput, double p50, double p99) {
+    }
+}
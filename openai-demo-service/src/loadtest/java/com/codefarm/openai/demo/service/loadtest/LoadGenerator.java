@@ -0,0 +1,148 @@
+package com.codefarm.openai.demo.service.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests to the endpoints, one virtual thread per request (open workload) or per client
+ * (closed workload), spreading them evenly over the endpoints in an order fixed by the seed.
+ * <p>
+ * In the open workload latency is measured from when the request was due rather than when it was
+ * sent, so a stalled server is charged for the requests that queued up behind it.
+ */
+class LoadGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final Duration SAMPLE_INTERVAL = Duration.ofSeconds(1);
+
+    private final URI baseUri;
+    private final LoadTestOptions options;
+    private final HttpClient client;
+    private final Map<Endpoint, EndpointStats> stats = new LinkedHashMap<>();
+    private final SplittableRandom random;
+    private final AtomicLong sequence = new AtomicLong();
+    private long measureFrom;
+
+    LoadGenerator(URI baseUri, LoadTestOptions options) {
+        this.baseUri = baseUri;
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.timeout())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.random = new SplittableRandom(options.seed());
+        options.endpoints().forEach(endpoint -> stats.put(endpoint, new EndpointStats(endpoint.id())));
+    }
+
+    /**
+     * Runs the warmup and the measured duration, and returns the stats of every endpoint.
+     */
+    List<EndpointStats> run() throws InterruptedException {
+        long start = System.nanoTime();
+        measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+
+        Thread sampler = Thread.ofPlatform().name("load-sampler").start(() -> sample(end));
+        // closing waits for the requests still in flight, each bounded by the request timeout
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (options.workload() == LoadTestOptions.Workload.OPEN) {
+                open(requests, start, end);
+            } else {
+                closed(requests, end);
+            }
+        }
+        sampler.join();
+        // responses to requests sent before the end count, they just do not get an interval of their own
+        stats.values().forEach(EndpointStats::drain);
+        return List.copyOf(stats.values());
+    }
+
+    private void open(ExecutorService requests, long start, long end) {
+        double interval = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * interval);
+            if (due >= end) {
+                return;
+            }
+            LockSupport.parkNanos(due - System.nanoTime());
+            Request request = next();
+            requests.execute(() -> send(request, due));
+        }
+    }
+
+    private void closed(ExecutorService requests, long end) {
+        for (int i = 0; i < options.concurrency(); i++) {
+            requests.execute(() -> {
+                while (System.nanoTime() < end) {
+                    send(next(), System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private synchronized Request next() {
+        Endpoint endpoint = options.endpoints().get(random.nextInt(options.endpoints().size()));
+        return new Request(endpoint, endpoint.body(random.nextInt(Integer.MAX_VALUE), sequence.incrementAndGet(),
+                options.unique()));
+    }
+
+    /**
+     * Sends {@code request}; only requests started after the warmup are counted.
+     */
+    private void send(Request request, long startedAt) {
+        EndpointStats endpointStats = startedAt >= measureFrom ? stats.get(request.endpoint()) : null;
+        HttpRequest httpRequest = HttpRequest.newBuilder(baseUri.resolve(request.endpoint().path()))
+                .timeout(options.timeout())
+                .header("Content-Type", request.endpoint().contentType())
+                .POST(HttpRequest.BodyPublishers.ofString(request.body()))
+                .build();
+        try {
+            HttpResponse<Void> response = client.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+            if (endpointStats == null) {
+                return;
+            }
+            if (response.statusCode() / 100 == 2) {
+                endpointStats.success(System.nanoTime() - startedAt);
+            } else {
+                endpointStats.error("HTTP " + response.statusCode());
+            }
+        } catch (IOException e) {
+            if (endpointStats != null) {
+                endpointStats.error(e.getClass().getSimpleName());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sample(long end) {
+        LockSupport.parkNanos(measureFrom - System.nanoTime());
+        log.info("warmup done, measuring for {}", options.duration());
+        long intervalNanos = SAMPLE_INTERVAL.toNanos();
+        for (long closes = measureFrom + intervalNanos; closes <= end; closes += intervalNanos) {
+            LockSupport.parkNanos(closes - System.nanoTime());
+            double second = (closes - measureFrom) / 1e9;
+            stats.values().forEach(endpointStats -> endpointStats.sample(second, intervalNanos / 1e9));
+        }
+    }
+
+    private record Request(Endpoint endpoint, String body) {
+    }
+}
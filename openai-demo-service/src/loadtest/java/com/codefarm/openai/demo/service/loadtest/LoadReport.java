@@ -0,0 +1,200 @@
+package com.codefarm.openai.demo.service.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Result of a load test run: latency percentiles, throughput and error rate per endpoint and over
+ * all of them, with a one-second timeline. Written as {@code report.json}, {@code report.html} and
+ * one HdrHistogram percentile distribution ({@code .hgrm}) per endpoint.
+ */
+record LoadReport(String startedAt, Map<String, Object> settings, double seconds, List<EndpointReport> endpoints,
+                  EndpointReport total) {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final String[] COLORS = {"#1f77b4", "#ff7f0e", "#2ca02c", "#d62728", "#9467bd", "#8c564b"};
+
+    static LoadReport of(String startedAt, LoadTestOptions options, List<EndpointStats> stats) {
+        double seconds = options.duration().toMillis() / 1000.0;
+        Histogram all = new Histogram(3);
+        long errors = 0;
+        Map<String, Long> errorsByType = new LinkedHashMap<>();
+        List<EndpointReport> endpoints = new ArrayList<>();
+        for (EndpointStats endpoint : stats) {
+            endpoints.add(EndpointReport.of(endpoint.name(), endpoint.total(), endpoint.errors(),
+                    endpoint.errorsByType(), seconds, endpoint.timeline()));
+            all.add(endpoint.total());
+            errors += endpoint.errors();
+            endpoint.errorsByType().forEach((type, count) -> errorsByType.merge(type, count, Long::sum));
+        }
+        return new LoadReport(startedAt, options.settings(), seconds, endpoints,
+                EndpointReport.of("total", all, errors, errorsByType, seconds, List.of()));
+    }
+
+    void write(Path dir, List<EndpointStats> stats) throws IOException {
+        Files.createDirectories(dir);
+        objectMapper.writeValue(dir.resolve("report.json").toFile(), this);
+        Files.writeString(dir.resolve("report.html"), html(), StandardCharsets.UTF_8);
+        for (EndpointStats endpoint : stats) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(endpoint.name() + ".hgrm")),
+                    false, StandardCharsets.UTF_8)) {
+                // recorded in microseconds, reported in milliseconds
+                endpoint.total().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    /**
+     * One line per endpoint, and the change against {@code baseline} (a previous report.json) when given.
+     */
+    String summary(Path baseline) throws IOException {
+        Map<String, JsonNode> before = new LinkedHashMap<>();
+        if (baseline != null) {
+            for (JsonNode endpoint : objectMapper.readTree(baseline.toFile()).get("endpoints")) {
+                before.put(endpoint.get("name").asText(), endpoint);
+            }
+            before.put("total", objectMapper.readTree(baseline.toFile()).get("total"));
+        }
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT, "%-22s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        List<EndpointReport> rows = new ArrayList<>(endpoints);
+        rows.add(total);
+        for (EndpointReport row : rows) {
+            summary.append(String.format(Locale.ROOT, "%-22s %10.1f %7.2f%% %10.1f %10.1f %10.1f %10.1f%n",
+                    row.name(), row.throughput(), row.errorRate() * 100, row.latency().p50(), row.latency().p99(),
+                    row.latency().p999(), row.latency().max()));
+            JsonNode previous = before.get(row.name());
+            if (previous != null) {
+                summary.append(String.format(Locale.ROOT, "%-22s %+9.1f%% %+7.2f%% %+9.1f%% %+9.1f%% %+9.1f%%%n",
+                        "  vs baseline", change(previous.get("throughput").asDouble(), row.throughput()),
+                        (row.errorRate() - previous.get("errorRate").asDouble()) * 100,
+                        change(previous.get("latency").get("p50").asDouble(), row.latency().p50()),
+                        change(previous.get("latency").get("p99").asDouble(), row.latency().p99()),
+                        change(previous.get("latency").get("p999").asDouble(), row.latency().p999())));
+            }
+        }
+        return summary.toString();
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100;
+    }
+
+    private String html() {
+        StringBuilder html = new StringBuilder("""
+                <!DOCTYPE html>
+                <html><head><meta charset="utf-8"><title>Load test</title>
+                <style>
+                body { font-family: sans-serif; margin: 2em; }
+                table { border-collapse: collapse; }
+                th, td { border: 1px solid #ccc; padding: 4px 10px; text-align: right; }
+                th:first-child, td:first-child { text-align: left; }
+                svg { border: 1px solid #ccc; margin: 1em 0; }
+                </style></head><body>
+                """);
+        html.append("<h1>Load test ").append(escape(startedAt)).append("</h1>\n<p>");
+        settings.forEach((name, value) -> html.append(escape(name)).append(": ")
+                .append(escape(String.valueOf(value))).append("<br>\n"));
+        html.append("</p>\n<table>\n<tr><th>endpoint</th><th>requests</th><th>req/s</th><th>errors</th>"
+                + "<th>p50 ms</th><th>p90 ms</th><th>p99 ms</th><th>p99.9 ms</th><th>max ms</th></tr>\n");
+        List<EndpointReport> rows = new ArrayList<>(endpoints);
+        rows.add(total);
+        for (EndpointReport row : rows) {
+            html.append(String.format(Locale.ROOT, "<tr><td>%s</td><td>%d</td><td>%.1f</td><td>%.2f%% %s</td>"
+                            + "<td>%.1f</td><td>%.1f</td><td>%.1f</td><td>%.1f</td><td>%.1f</td></tr>%n",
+                    escape(row.name()), row.requests(), row.throughput(), row.errorRate() * 100,
+                    escape(row.errorsByType().isEmpty() ? "" : row.errorsByType().toString()),
+                    row.latency().p50(), row.latency().p90(), row.latency().p99(), row.latency().p999(),
+                    row.latency().max()));
+        }
+        html.append("</table>\n<h2>Throughput (successful req/s)</h2>\n")
+                .append(chart(EndpointStats.Interval::throughput))
+                .append("<h2>p99 latency per second (ms)</h2>\n")
+                .append(chart(EndpointStats.Interval::p99))
+                .append("<h2>Errors per second</h2>\n")
+                .append(chart(EndpointStats.Interval::errors))
+                .append("</body></html>\n");
+        return html.toString();
+    }
+
+    private String chart(ToDoubleFunction<EndpointStats.Interval> value) {
+        int width = 900;
+        int height = 260;
+        int margin = 40;
+        double maxX = Math.max(1, seconds);
+        double maxY = endpoints.stream()
+                .flatMap(endpoint -> endpoint.timeline().stream())
+                .mapToDouble(value)
+                .max().orElse(0);
+        maxY = maxY <= 0 ? 1 : maxY * 1.1;
+        StringBuilder svg = new StringBuilder(String.format(Locale.ROOT,
+                "<svg width=\"%d\" height=\"%d\" xmlns=\"http://www.w3.org/2000/svg\">%n", width, height));
+        svg.append(String.format(Locale.ROOT, "<text x=\"2\" y=\"%d\" font-size=\"11\">%.1f</text>%n", margin - 25,
+                maxY));
+        svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" font-size=\"11\">%.0fs</text>%n",
+                width - margin, height - 5, maxX));
+        for (int i = 0; i < endpoints.size(); i++) {
+            EndpointReport endpoint = endpoints.get(i);
+            String color = COLORS[i % COLORS.length];
+            StringBuilder points = new StringBuilder();
+            for (EndpointStats.Interval interval : endpoint.timeline()) {
+                points.append(String.format(Locale.ROOT, "%.1f,%.1f ",
+                        margin + interval.second() / maxX * (width - 2 * margin),
+                        height - margin - value.applyAsDouble(interval) / maxY * (height - 2 * margin)));
+            }
+            svg.append(String.format(Locale.ROOT,
+                    "<polyline fill=\"none\" stroke=\"%s\" stroke-width=\"1.5\" points=\"%s\"/>%n", color, points));
+            svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" font-size=\"12\" fill=\"%s\">%s</text>%n",
+                    margin + i * 170, height - 10, color, escape(endpoint.name())));
+        }
+        return svg.append("</svg>\n").toString();
+    }
+
+    private static String escape(String text) {
+        return HtmlUtils.htmlEscape(text);
+    }
+
+    record EndpointReport(String name, long requests, long errors, double errorRate, double throughput,
+                          Latency latency, Map<String, Long> errorsByType, List<EndpointStats.Interval> timeline) {
+
+        static EndpointReport of(String name, Histogram histogram, long errors, Map<String, Long> errorsByType,
+                                 double seconds, List<EndpointStats.Interval> timeline) {
+            long requests = histogram.getTotalCount() + errors;
+            return new EndpointReport(name, requests, errors, requests == 0 ? 0 : (double) errors / requests,
+                    histogram.getTotalCount() / seconds, Latency.of(histogram), errorsByType, timeline);
+        }
+    }
+
+    /**
+     * Latency of successful responses, in milliseconds.
+     */
+    record Latency(double min, double mean, double p50, double p90, double p99, double p999, double max) {
+
+        static Latency of(Histogram histogram) {
+            if (histogram.getTotalCount() == 0) {
+                return new Latency(0, 0, 0, 0, 0, 0, 0);
+            }
+            return new Latency(EndpointStats.millis(histogram.getMinValue()), histogram.getMean() / 1000.0,
+                    EndpointStats.millis(histogram.getValueAtPercentile(50)),
+                    EndpointStats.millis(histogram.getValueAtPercentile(90)),
+                    EndpointStats.millis(histogram.getValueAtPercentile(99)),
+                    EndpointStats.millis(histogram.getValueAtPercentile(99.9)),
+                    EndpointStats.millis(histogram.getMaxValue()));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.codefarm.openai.demo.service.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * HTTP load test of the real controllers, run by {@code ./gradlew loadTest}: starts the app with the
+ * offline model stand-ins (or uses {@code --url}), applies an open or closed workload and writes the
+ * report. See {@link LoadTestOptions} for the options.
+ */
+public class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        String startedAt = Instant.now().toString();
+        List<EndpointStats> stats;
+        if (options.url() != null) {
+            stats = run(URI.create(options.url()), options);
+        } else {
+            try (AppProcess app = AppProcess.start(options.appJar(), options.appArgs(), options.startupTimeout(),
+                    options.reportDir().resolve("app.log"))) {
+                stats = run(app.baseUri(), options);
+            }
+        }
+        LoadReport report = LoadReport.of(startedAt, options, stats);
+        // the baseline may be the report about to be replaced
+        String summary = report.summary(options.baseline());
+        report.write(options.reportDir(), stats);
+        log.info("load test results, report in {}\n{}", options.reportDir().toAbsolutePath(), summary);
+    }
+
+    private static List<EndpointStats> run(URI baseUri, LoadTestOptions options) throws InterruptedException {
+        log.info("{} workload against {} for {} after {} warmup: {}", options.workload().name().toLowerCase(),
+                baseUri, options.duration(), options.warmup(), options.settings());
+        return new LoadGenerator(baseUri, options).run();
+    }
+}
@@ -0,0 +1,111 @@
+package com.codefarm.openai.demo.service.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line of the load test, {@code --name=value} pairs where a later pair wins.
+ * <ul>
+ *     <li>{@code workload} {@code open} (requests arrive at {@code rate} per second whatever the
+ *     response times) or {@code closed} ({@code concurrency} clients each waiting for their answer)</li>
+ *     <li>{@code endpoints} comma separated {@link Endpoint} names, requests are spread evenly</li>
+ *     <li>{@code duration} measured time, after {@code warmup}</li>
+ *     <li>{@code unique} makes every request distinct so the result caches never answer</li>
+ *     <li>{@code url} of a running app; without it the app jar is started with the offline profile
+ *     and {@code app-args}</li>
+ *     <li>{@code baseline} a previous {@code report.json} to compare against</li>
+ * </ul>
+ */
+record LoadTestOptions(Workload workload, double rate, int concurrency, Duration duration, Duration warmup,
+                       List<Endpoint> endpoints, long seed, boolean unique, Duration timeout, String url,
+                       Path appJar, List<String> appArgs, Duration startupTimeout, Path reportDir, Path baseline) {
+
+    enum Workload {
+        OPEN, CLOSED
+    }
+
+    static LoadTestOptions parse(String... args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        LoadTestOptions options = new LoadTestOptions(
+                Workload.valueOf(values.getOrDefault("workload", "open").toUpperCase()),
+                Double.parseDouble(values.getOrDefault("rate", "20")),
+                Integer.parseInt(values.getOrDefault("concurrency", "16")),
+                duration(values.getOrDefault("duration", "60s")),
+                duration(values.getOrDefault("warmup", "10s")),
+                endpoints(values.getOrDefault("endpoints", "ask,capital,capital-json-binding,vector-answer")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Boolean.parseBoolean(values.getOrDefault("unique", "false")),
+                duration(values.getOrDefault("timeout", "30s")),
+                values.get("url"),
+                path(values.get("app-jar")),
+                values.containsKey("app-args") ? List.of(values.get("app-args").split(" ")) : List.of(),
+                duration(values.getOrDefault("startup-timeout", "5m")),
+                Path.of(values.getOrDefault("report-dir", "build/reports/loadtest")),
+                path(values.get("baseline")));
+        values.keySet().removeAll(List.of("workload", "rate", "concurrency", "duration", "warmup", "endpoints",
+                "seed", "unique", "timeout", "url", "app-jar", "app-args", "startup-timeout", "report-dir",
+                "baseline"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("unknown options " + values.keySet());
+        }
+        if (options.url() == null && options.appJar() == null) {
+            throw new IllegalArgumentException("either --url or --app-jar is required");
+        }
+        return options;
+    }
+
+    /**
+     * The settings that shape the load, as written to the report.
+     */
+    Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("workload", workload.name().toLowerCase());
+        if (workload == Workload.OPEN) {
+            settings.put("rate", rate);
+        } else {
+            settings.put("concurrency", concurrency);
+        }
+        settings.put("duration", duration.toString());
+        settings.put("warmup", warmup.toString());
+        settings.put("endpoints", endpoints.stream().map(Endpoint::id).toList());
+        settings.put("seed", seed);
+        settings.put("unique", unique);
+        settings.put("appArgs", appArgs);
+        return settings;
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    private static Path path(String value) {
+        return value == null ? null : Path.of(value);
+    }
+
+    private static List<Endpoint> endpoints(String value) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String id : value.split(",")) {
+            endpoints.add(Arrays.stream(Endpoint.values())
+                    .filter(endpoint -> endpoint.id().equals(id.strip()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("unknown endpoint " + id)));
+        }
+        return endpoints;
+    }
+}
@@ -0,0 +1,139 @@
+package com.codefarm.openai.demo.service.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects single-key lookups arriving within a short window and loads them with one call. A
+ * batch is flushed when the window after its first key closes or when it reaches
+ * {@code maxBatchSize} keys, whichever comes first. Equal keys in the same window share one slot.
+ * Callers block until their batch has been loaded, which is cheap on virtual threads.
+ */
+public class MicroBatcher<K, V> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MicroBatcher.class);
+
+    private final String name;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Function<List<K>, Map<K, V>> loader;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private long generation;
+
+    public MicroBatcher(String name, Duration window, int maxBatchSize, Function<List<K>, Map<K, V>> loader) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.name = name;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.loader = loader;
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name(name + "-batcher").factory());
+    }
+
+    public V submit(K key) {
+        CompletableFuture<V> result;
+        Map<K, CompletableFuture<V>> full = null;
+        synchronized (this) {
+            result = pending.get(key);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                pending.put(key, result);
+                if (pending.size() >= maxBatchSize) {
+                    full = takePending();
+                } else if (pending.size() == 1) {
+                    long due = generation;
+                    timer.schedule(() -> flush(due), window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return await(result);
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        Map<K, CompletableFuture<V>> remaining;
+        synchronized (this) {
+            remaining = takePending();
+        }
+        if (!remaining.isEmpty()) {
+            dispatch(remaining);
+        }
+        loaders.close();
+    }
+
+    private void flush(long due) {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (this) {
+            // the batch this timer was started for has already been flushed because it filled up
+            if (generation != due || pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        generation++;
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        loaders.execute(() -> load(batch));
+    }
+
+    private void load(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> values = loader.apply(new ArrayList<>(batch.keySet()));
+            batch.forEach((key, result) -> {
+                V value = values.get(key);
+                if (value != null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(new IllegalStateException(name + " batch returned no result for " + key));
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            log.warn("{} batch of {} keys failed", name, batch.size(), e);
+            batch.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private V await(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
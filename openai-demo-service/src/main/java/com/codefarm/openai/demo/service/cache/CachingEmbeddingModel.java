@@ -0,0 +1,51 @@
+package com.codefarm.openai.demo.service.cache;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * {@link EmbeddingModel} that serves single query strings, which is what vector stores embed on
+ * every similarity search, from a {@link QueryEmbeddingCache}. Document and batch embedding pass
+ * straight through.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final QueryEmbeddingCache cache;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, QueryEmbeddingCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return cache.embed(text, delegate);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        return delegate.embed(documents, options, batchingStrategy);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
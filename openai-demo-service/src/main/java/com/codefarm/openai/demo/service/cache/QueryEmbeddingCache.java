@@ -0,0 +1,47 @@
+package com.codefarm.openai.demo.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Embeddings of query strings keyed by their normalized text (Unicode NFKC, lower case,
+ * collapsed whitespace), held as raw {@code float[]}. Concurrent misses for the same key share
+ * one embedding call. Shared by {@link CachingEmbeddingModel} and {@link SemanticCache}, so a
+ * question embedded for the answer cache is not embedded again for the similarity search.
+ */
+public class QueryEmbeddingCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Cache<String, float[]> cache;
+
+    public QueryEmbeddingCache(long maximumSize, Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns a copy of the cached embedding of {@code text}, embedding it with {@code model} on a miss.
+     */
+    public float[] embed(String text, EmbeddingModel model) {
+        return cache.get(normalize(text), key -> model.embed(text)).clone();
+    }
+
+    public Cache<String, float[]> cache() {
+        return cache;
+    }
+
+    public static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,206 @@
+package com.codefarm.openai.demo.service.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Exact-match cache of typed results, keyed by normalized text. Entries expire {@code timeToLive}
+ * after they were produced and the cache holds at most {@code maximumSize} of them.
+ * <p>
+ * With a {@code file}, every new entry is also appended to it as a JSON line
+ * ({@code {"key", "writtenAt", "value"}}); the file is read back on construction, skipping
+ * expired entries, and rewritten without duplicates so it does not grow across restarts.
+ * Failing to write the file is logged and never fails the request.
+ */
+public class ResultCache<V> implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultCache.class);
+
+    private final String name;
+    private final Class<V> type;
+    private final Duration timeToLive;
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Cache<String, Entry<V>> cache;
+    private BufferedWriter writer;
+
+    public ResultCache(String name, Class<V> type, long maximumSize, Duration timeToLive, Path file,
+                       ObjectMapper objectMapper) {
+        this(name, type, maximumSize, timeToLive, file, objectMapper, Clock.systemUTC());
+    }
+
+    ResultCache(String name, Class<V> type, long maximumSize, Duration timeToLive, Path file,
+                ObjectMapper objectMapper, Clock clock) {
+        this.name = name;
+        this.type = type;
+        this.timeToLive = timeToLive;
+        this.file = file;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Entry<V>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry<V> entry, long currentTime) {
+                        return remaining(entry).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry<V> entry, long currentTime, long currentDuration) {
+                        return remaining(entry).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry<V> entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        if (file != null) {
+            restore();
+        }
+    }
+
+    public V get(String key, Supplier<V> result) {
+        Optional<V> cached = find(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        V value = result.get();
+        put(key, value);
+        return value;
+    }
+
+    public Optional<V> find(String key) {
+        Entry<V> cached = cache.getIfPresent(QueryEmbeddingCache.normalize(key));
+        return cached == null ? Optional.empty() : Optional.of(cached.value());
+    }
+
+    /**
+     * Caches and writes through {@code value}; {@code null} values are not cached.
+     */
+    public void put(String key, V value) {
+        if (value == null) {
+            return;
+        }
+        String normalized = QueryEmbeddingCache.normalize(key);
+        Entry<V> entry = new Entry<>(value, clock.millis());
+        cache.put(normalized, entry);
+        append(normalized, entry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Cache<String, ?> cache() {
+        return cache;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private Duration remaining(Entry<V> entry) {
+        long left = entry.writtenAt() + timeToLive.toMillis() - clock.millis();
+        return Duration.ofMillis(Math.max(0, left));
+    }
+
+    private synchronized void append(String key, Entry<V> entry) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(line(key, entry));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("failed to write {} cache entry to {}", name, file, e);
+        }
+    }
+
+    private void restore() {
+        Map<String, Entry<V>> live = new LinkedHashMap<>();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            if (Files.exists(file)) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        readLine(line, live);
+                    }
+                }
+            }
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try (BufferedWriter compacted = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Entry<V>> entry : live.entrySet()) {
+                    compacted.write(line(entry.getKey(), entry.getValue()));
+                    compacted.newLine();
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + name + " cache file " + file, e);
+        }
+        cache.putAll(live);
+        log.info("restored {} {} cache entries from {}", live.size(), name, file);
+    }
+
+    private void readLine(String line, Map<String, Entry<V>> live) {
+        if (line.isBlank()) {
+            return;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            Entry<V> entry = new Entry<>(objectMapper.treeToValue(node.get("value"), type),
+                    node.get("writtenAt").asLong());
+            if (remaining(entry).isZero()) {
+                live.remove(node.get("key").asText());
+            } else {
+                live.put(node.get("key").asText(), entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("skipping unreadable {} cache line in {}", name, file);
+        }
+    }
+
+    private String line(String key, Entry<V> entry) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("key", key);
+        line.put("writtenAt", entry.writtenAt());
+        line.put("value", entry.value());
+        return objectMapper.writeValueAsString(line);
+    }
+
+    private record Entry<V>(V value, long writtenAt) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.codefarm.openai.demo.service.cache;
+
+import com.codefarm.openai.demo.service.vectorstore.SimilarityKernel;
+import com.codefarm.openai.demo.service.vectorstore.SimilarityKernels;
+import com.codefarm.openai.demo.service.vectorstore.VectorBlock;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Answers keyed by the meaning of a question rather than its exact text: a lookup embeds the
+ * question and returns the answer of the most similar cached question if their cosine
+ * similarity reaches {@code threshold}. Entries expire after {@code timeToLive} and the cache
+ * holds at most {@code maximumSize} of them; lookups scan all entries, so keep it to a few
+ * thousand.
+ */
+public class SemanticCache<V> {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticCache.class);
+    private static final SimilarityKernel KERNEL = SimilarityKernels.preferred();
+
+    private final String name;
+    private final QueryEmbeddingCache embeddings;
+    private final EmbeddingModel embeddingModel;
+    private final double threshold;
+    private final Cache<String, Entry<V>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SemanticCache(String name, QueryEmbeddingCache embeddings, EmbeddingModel embeddingModel,
+                         double threshold, long maximumSize, Duration timeToLive) {
+        this.name = name;
+        this.embeddings = embeddings;
+        this.embeddingModel = embeddingModel;
+        this.threshold = threshold;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+    }
+
+    /**
+     * A cache that never stores anything and does not embed questions.
+     */
+    public static <V> SemanticCache<V> disabled(String name) {
+        return new SemanticCache<>(name, null, null, Double.NaN, 0, Duration.ZERO);
+    }
+
+    /**
+     * Returns the cached answer of the closest question above the threshold, or computes, stores
+     * and returns a new one.
+     */
+    public V get(String question, Supplier<V> answer) {
+        Optional<V> cached = find(question);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        V value = answer.get();
+        put(question, value);
+        return value;
+    }
+
+    /**
+     * Looks up the answer of the closest cached question, counting a hit or a miss. For callers
+     * that produce the answer asynchronously and {@link #put} it later.
+     */
+    public Optional<V> find(String question) {
+        if (embeddings == null) {
+            return Optional.empty();
+        }
+        Optional<V> cached = lookup(embed(question));
+        if (cached.isPresent()) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return cached;
+    }
+
+    public void put(String question, V value) {
+        if (embeddings != null && value != null) {
+            entries.put(QueryEmbeddingCache.normalize(question), new Entry<>(embed(question), value));
+        }
+    }
+
+    public void invalidateAll() {
+        log.info("invalidating {} entries of semantic cache {}", entries.estimatedSize(), name);
+        entries.invalidateAll();
+    }
+
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    /**
+     * Publishes {@code cache.gets{result=hit|miss}} and {@code cache.size}, tagged with the cache
+     * name like the Caffeine cache metrics.
+     */
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", name, "result", "hit")
+                .description("semantic cache lookups answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", name, "result", "miss")
+                .description("semantic cache lookups that went to the model")
+                .register(registry);
+        Gauge.builder("cache.size", entries, Cache::estimatedSize)
+                .tags("cache", name)
+                .register(registry);
+    }
+
+    private float[] embed(String question) {
+        return VectorBlock.normalize(embeddings.embed(question, embeddingModel));
+    }
+
+    private Optional<V> lookup(float[] embedding) {
+        Entry<V> best = null;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (Entry<V> entry : entries.asMap().values()) {
+            float score = KERNEL.dot(entry.embedding(), 0, embedding, 0, embedding.length);
+            if (score > bestScore) {
+                bestScore = score;
+                best = entry;
+            }
+        }
+        if (best == null || bestScore < threshold) {
+            return Optional.empty();
+        }
+        log.debug("semantic cache {} hit with similarity {}", name, bestScore);
+        return Optional.of(best.value());
+    }
+
+    private record Entry<V>(float[] embedding, V value) {
+    }
+}
@@ -15,6 +15,10 @@ public class ApplicationProperties {
 
     private String moviesVector;
 
+    private String moviesSnapshot;
+
+    private String moviesManifest;
+
     private List<Resource> moviesToLoad;
 
     public String getMoviesVector() {
@@ -25,6 +29,22 @@ public class ApplicationProperties {
         this.moviesVector = moviesVector;
     }
 
+    public String getMoviesSnapshot() {
+        return moviesSnapshot;
+    }
+
+    public void setMoviesSnapshot(String moviesSnapshot) {
+        this.moviesSnapshot = moviesSnapshot;
+    }
+
+    public String getMoviesManifest() {
+        return moviesManifest;
+    }
+
+    public void setMoviesManifest(String moviesManifest) {
+        this.moviesManifest = moviesManifest;
+    }
+
     public List<Resource> getMoviesToLoad() {
         return moviesToLoad;
     }
@@ -0,0 +1,72 @@
+package com.codefarm.openai.demo.service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "bulkhead")
+public class BulkheadProperties {
+
+    /** Limits for bulkheads without an entry in {@link #endpoints}. */
+    private Limits defaults = new Limits();
+
+    /** Limits per bulkhead: ask, vector-answer, capital, embedding. */
+    private Map<String, Limits> endpoints = new HashMap<>();
+
+    public Limits getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Limits defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Limits> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Limits> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public Limits limits(String name) {
+        return endpoints.getOrDefault(name, defaults);
+    }
+
+    public static class Limits {
+
+        private int maxConcurrent = 256;
+
+        private int maxQueue = 1024;
+
+        private Duration maxWait = Duration.ofSeconds(5);
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+}
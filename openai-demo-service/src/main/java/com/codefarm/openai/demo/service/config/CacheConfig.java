@@ -0,0 +1,114 @@
+package com.codefarm.openai.demo.service.config;
+
+import com.codefarm.openai.demo.service.cache.QueryEmbeddingCache;
+import com.codefarm.openai.demo.service.cache.ResultCache;
+import com.codefarm.openai.demo.service.cache.SemanticCache;
+import com.codefarm.openai.demo.service.metrics.TimedEmbeddingModel;
+import com.codefarm.openai.demo.service.model.Answer;
+import com.codefarm.openai.demo.service.model.CapitalResponse;
+import com.codefarm.openai.demo.service.model.CapitalResponseV2;
+import com.codefarm.openai.demo.service.resilience.BulkheadEmbeddingModel;
+import com.codefarm.openai.demo.service.resilience.Bulkheads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Hit/miss counts are published as {@code cache.gets{cache=query-embedding}} when a meter
+     * registry is present.
+     */
+    @Bean
+    public QueryEmbeddingCache queryEmbeddingCache(CacheProperties cacheProperties,
+                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        CacheProperties.Spec spec = cacheProperties.getQueryEmbedding();
+        QueryEmbeddingCache cache = new QueryEmbeddingCache(spec.isEnabled() ? spec.getMaximumSize() : 0,
+                spec.getTtl());
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache.cache(), "query-embedding"));
+        return cache;
+    }
+
+    @Bean
+    public SemanticCache<Answer> vectorAnswerCache(CacheProperties cacheProperties, QueryEmbeddingCache embeddings,
+                                                   EmbeddingModel embeddingModel, Bulkheads bulkheads,
+                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return semanticCache("vector-answer", cacheProperties.getVectorAnswer(), embeddings,
+                new BulkheadEmbeddingModel(embeddingModel, bulkheads.get("embedding")), meterRegistry);
+    }
+
+    @Bean
+    public SemanticCache<String> askAnswerCache(CacheProperties cacheProperties, QueryEmbeddingCache embeddings,
+                                                EmbeddingModel embeddingModel, Bulkheads bulkheads,
+                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        return semanticCache("ask-answer", cacheProperties.getAskAnswer(), embeddings,
+                new BulkheadEmbeddingModel(embeddingModel, bulkheads.get("embedding")), meterRegistry);
+    }
+
+    @Bean
+    public ResultCache<CapitalResponse> capitalCache(CacheProperties cacheProperties, ObjectMapper objectMapper,
+                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return resultCache("capital", CapitalResponse.class, cacheProperties.getCapital(), objectMapper, meterRegistry);
+    }
+
+    @Bean
+    public ResultCache<CapitalResponse> capitalInfoCache(CacheProperties cacheProperties, ObjectMapper objectMapper,
+                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return resultCache("capital-info", CapitalResponse.class, cacheProperties.getCapital(), objectMapper,
+                meterRegistry);
+    }
+
+    @Bean
+    public ResultCache<CapitalResponse> capitalJsonCache(CacheProperties cacheProperties, ObjectMapper objectMapper,
+                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return resultCache("capital-json", CapitalResponse.class, cacheProperties.getCapital(), objectMapper,
+                meterRegistry);
+    }
+
+    @Bean
+    public ResultCache<CapitalResponseV2> capitalJsonBindingCache(CacheProperties cacheProperties,
+                                                                  ObjectMapper objectMapper,
+                                                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        return resultCache("capital-json-binding", CapitalResponseV2.class, cacheProperties.getCapital(), objectMapper,
+                meterRegistry);
+    }
+
+    /**
+     * One cache per endpoint, since each endpoint renders its own template; a disabled cache keeps
+     * no entries.
+     */
+    private <V> ResultCache<V> resultCache(String name, Class<V> type, CacheProperties.Persistent spec,
+                                           ObjectMapper objectMapper, ObjectProvider<MeterRegistry> meterRegistry) {
+        Path file = spec.isEnabled() && StringUtils.hasText(spec.getDirectory())
+                ? Path.of(spec.getDirectory(), name + ".jsonl")
+                : null;
+        ResultCache<V> cache = new ResultCache<>(name, type, spec.isEnabled() ? spec.getMaximumSize() : 0,
+                spec.getTtl(), file, objectMapper);
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache.cache(), name));
+        return cache;
+    }
+
+    private <V> SemanticCache<V> semanticCache(String name, CacheProperties.Semantic spec,
+                                               QueryEmbeddingCache embeddings, EmbeddingModel embeddingModel,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        if (!spec.isEnabled()) {
+            return SemanticCache.disabled(name);
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            embeddingModel = new TimedEmbeddingModel(embeddingModel, registry);
+        }
+        SemanticCache<V> cache = new SemanticCache<>(name, embeddings, embeddingModel, spec.getSimilarityThreshold(),
+                spec.getMaximumSize(), spec.getTtl());
+        meterRegistry.ifAvailable(cache::bindTo);
+        return cache;
+    }
+}
@@ -0,0 +1,113 @@
+package com.codefarm.openai.demo.service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    private final Spec queryEmbedding = new Spec(10_000, Duration.ofHours(24));
+
+    /** Answers of {@code /vector/answer}; invalidated when the vector store is re-indexed. */
+    private final Semantic vectorAnswer = new Semantic(2_000, Duration.ofHours(1), 0.95);
+
+    /** Answers of {@code /ask}. */
+    private final Semantic askAnswer = new Semantic(2_000, Duration.ofHours(1), 0.97);
+
+    /** Results of the {@code /capital} endpoints, keyed by endpoint and country. */
+    private final Persistent capital = new Persistent(1_000, Duration.ofDays(7));
+
+    public Spec getQueryEmbedding() {
+        return queryEmbedding;
+    }
+
+    public Semantic getVectorAnswer() {
+        return vectorAnswer;
+    }
+
+    public Semantic getAskAnswer() {
+        return askAnswer;
+    }
+
+    public Persistent getCapital() {
+        return capital;
+    }
+
+    public static class Spec {
+
+        private boolean enabled = true;
+
+        private long maximumSize;
+
+        private Duration ttl;
+
+        public Spec(long maximumSize, Duration ttl) {
+            this.maximumSize = maximumSize;
+            this.ttl = ttl;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class Semantic extends Spec {
+
+        /** Minimum cosine similarity between two questions to reuse an answer. */
+        private double similarityThreshold;
+
+        public Semantic(long maximumSize, Duration ttl, double similarityThreshold) {
+            super(maximumSize, ttl);
+            this.similarityThreshold = similarityThreshold;
+        }
+
+        public double getSimilarityThreshold() {
+            return similarityThreshold;
+        }
+
+        public void setSimilarityThreshold(double similarityThreshold) {
+            this.similarityThreshold = similarityThreshold;
+        }
+    }
+
+    public static class Persistent extends Spec {
+
+        /** Directory for the write-through files; empty keeps the cache in memory only. */
+        private String directory = "";
+
+        public Persistent(long maximumSize, Duration ttl) {
+            super(maximumSize, ttl);
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.codefarm.openai.demo.service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "capital.batch")
+public class CapitalBatchProperties {
+
+    /** Countries packed into one prompt; larger lists are split into prompts sent concurrently. */
+    private int promptSize = 25;
+
+    /** Largest list accepted by {@code /capital/batch}, after removing duplicates. */
+    private int maxCountries = 500;
+
+    /** Micro-batching of single-country {@code /capital/json/binding} requests. */
+    private final Micro micro = new Micro();
+
+    public int getPromptSize() {
+        return promptSize;
+    }
+
+    public void setPromptSize(int promptSize) {
+        this.promptSize = promptSize;
+    }
+
+    public int getMaxCountries() {
+        return maxCountries;
+    }
+
+    public void setMaxCountries(int maxCountries) {
+        this.maxCountries = maxCountries;
+    }
+
+    public Micro getMicro() {
+        return micro;
+    }
+
+    public static class Micro {
+
+        private boolean enabled = true;
+
+        /** How long the first request of a batch waits for others to join it. */
+        private Duration window = Duration.ofMillis(20);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+}
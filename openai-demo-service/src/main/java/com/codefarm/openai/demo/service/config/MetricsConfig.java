@@ -0,0 +1,17 @@
+package com.codefarm.openai.demo.service.config;
+
+import com.codefarm.openai.demo.service.metrics.LlmMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public LlmMetrics llmMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LlmMetrics(meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
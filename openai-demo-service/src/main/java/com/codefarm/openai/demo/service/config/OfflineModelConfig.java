@@ -0,0 +1,47 @@
+package com.codefarm.openai.demo.service.config;
+
+import com.codefarm.openai.demo.service.offline.OfflineChatModel;
+import com.codefarm.openai.demo.service.offline.OfflineEmbeddingModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.regex.Pattern;
+
+/**
+ * With the {@code offline} profile the OpenAI models are switched off (see
+ * {@code application-offline.properties}) and replaced by deterministic local models with
+ * simulated latency and failures, so the whole service runs without network access.
+ */
+@Configuration
+@Profile("offline")
+public class OfflineModelConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineModelConfig.class);
+
+    @Bean
+    public ChatModel offlineChatModel(OfflineProperties offlineProperties) {
+        OfflineProperties.Chat chat = offlineProperties.getChat();
+        log.info("using offline chat model: first token {} median / {} p99, {} tokens/s, error rate {}",
+                chat.getLatency().getMedian(), chat.getLatency().getP99(), chat.getTokensPerSecond(),
+                chat.getErrorRate());
+        return new OfflineChatModel(chat.getLatency().model(), chat.getTokensPerSecond(), chat.getCompletionWords(),
+                chat.getErrorRate(), chat.getReplies().stream()
+                .map(reply -> new OfflineChatModel.CannedReply(Pattern.compile(reply.getPattern()), reply.getText()))
+                .toList());
+    }
+
+    @Bean
+    public EmbeddingModel offlineEmbeddingModel(OfflineProperties offlineProperties) {
+        OfflineProperties.Embedding embedding = offlineProperties.getEmbedding();
+        log.info("using offline embedding model: {} dimensions, {} median / {} p99, error rate {}",
+                embedding.getDimensions(), embedding.getLatency().getMedian(), embedding.getLatency().getP99(),
+                embedding.getErrorRate());
+        return new OfflineEmbeddingModel(embedding.getDimensions(), embedding.getLatency().model(),
+                embedding.getErrorRate());
+    }
+}
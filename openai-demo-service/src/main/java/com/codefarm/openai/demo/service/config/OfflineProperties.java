@@ -0,0 +1,200 @@
+package com.codefarm.openai.demo.service.config;
+
+import com.codefarm.openai.demo.service.offline.LatencyModel;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local model stand-ins used by the {@code offline} profile, see {@link OfflineModelConfig}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "offline")
+public class OfflineProperties {
+
+    private final Chat chat = new Chat();
+
+    private final Embedding embedding = new Embedding();
+
+    public Chat getChat() {
+        return chat;
+    }
+
+    public Embedding getEmbedding() {
+        return embedding;
+    }
+
+    public static class Chat {
+
+        /** Time to first token. */
+        private final Latency latency = new Latency(Duration.ofMillis(300), Duration.ofMillis(1500));
+
+        /** Rate at which reply words are generated and streamed; 0 returns them at once. */
+        private double tokensPerSecond = 50;
+
+        /** Words in a free-text reply. */
+        private int completionWords = 40;
+
+        /** Fraction of calls failing with a transient error. */
+        private double errorRate;
+
+        /** Fixed replies for prompts containing {@code pattern}; {@code text} may refer to its groups as $1... */
+        private List<Reply> replies = new ArrayList<>();
+
+        public Latency getLatency() {
+            return latency;
+        }
+
+        public double getTokensPerSecond() {
+            return tokensPerSecond;
+        }
+
+        public void setTokensPerSecond(double tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+        }
+
+        public int getCompletionWords() {
+            return completionWords;
+        }
+
+        public void setCompletionWords(int completionWords) {
+            this.completionWords = completionWords;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+
+        public List<Reply> getReplies() {
+            return replies;
+        }
+
+        public void setReplies(List<Reply> replies) {
+            this.replies = replies;
+        }
+    }
+
+    public static class Reply {
+
+        private String pattern;
+
+        private String text;
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+    }
+
+    public static class Embedding {
+
+        private int dimensions = 1536;
+
+        private final Latency latency = new Latency(Duration.ofMillis(40), Duration.ofMillis(200));
+
+        /** Fraction of calls failing with a transient error. */
+        private double errorRate;
+
+        public int getDimensions() {
+            return dimensions;
+        }
+
+        public void setDimensions(int dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        public Latency getLatency() {
+            return latency;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+    }
+
+    public static class Latency {
+
+        private LatencyModel.Distribution distribution = LatencyModel.Distribution.LOG_NORMAL;
+
+        /** Median for log-normal latencies, the constant for fixed ones. */
+        private Duration median;
+
+        private Duration p99;
+
+        /** Bounds of uniform latencies. */
+        private Duration min = Duration.ZERO;
+
+        private Duration max = Duration.ZERO;
+
+        Latency(Duration median, Duration p99) {
+            this.median = median;
+            this.p99 = p99;
+        }
+
+        public LatencyModel model() {
+            return new LatencyModel(distribution, median, p99, min, max);
+        }
+
+        public LatencyModel.Distribution getDistribution() {
+            return distribution;
+        }
+
+        public void setDistribution(LatencyModel.Distribution distribution) {
+            this.distribution = distribution;
+        }
+
+        public Duration getMedian() {
+            return median;
+        }
+
+        public void setMedian(Duration median) {
+            this.median = median;
+        }
+
+        public Duration getP99() {
+            return p99;
+        }
+
+        public void setP99(Duration p99) {
+            this.p99 = p99;
+        }
+
+        public Duration getMin() {
+            return min;
+        }
+
+        public void setMin(Duration min) {
+            this.min = min;
+        }
+
+        public Duration getMax() {
+            return max;
+        }
+
+        public void setMax(Duration max) {
+            this.max = max;
+        }
+    }
+}
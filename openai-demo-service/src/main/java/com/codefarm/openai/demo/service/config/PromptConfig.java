@@ -0,0 +1,23 @@
+package com.codefarm.openai.demo.service.config;
+
+import com.codefarm.openai.demo.service.model.CapitalResponseV2;
+import com.codefarm.openai.demo.service.prompt.PromptRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import java.util.List;
+
+@Configuration
+public class PromptConfig {
+
+    @Bean
+    public PromptRegistry promptRegistry(ResourcePatternResolver resourcePatternResolver) {
+        PromptRegistry registry = PromptRegistry.load(resourcePatternResolver, "classpath:templates/*.st");
+        registry.register(CapitalResponseV2.class);
+        registry.register(new ParameterizedTypeReference<List<CapitalResponseV2>>() {
+        });
+        return registry;
+    }
+}
@@ -0,0 +1,37 @@
+package com.codefarm.openai.demo.service.config;
+
+import com.codefarm.openai.demo.service.resilience.Bulkhead;
+import com.codefarm.openai.demo.service.resilience.Bulkheads;
+import com.codefarm.openai.demo.service.resilience.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public Bulkheads bulkheads(BulkheadProperties bulkheadProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new Bulkheads(name -> {
+            BulkheadProperties.Limits limits = bulkheadProperties.limits(name);
+            Bulkhead bulkhead = new Bulkhead(name, limits.getMaxConcurrent(), limits.getMaxQueue(),
+                    limits.getMaxWait());
+            meterRegistry.ifAvailable(bulkhead::bindTo);
+            return bulkhead;
+        });
+    }
+
+    /**
+     * Shares one model call among concurrent requests that rendered an equal {@link Prompt}
+     * (same messages and options).
+     */
+    @Bean
+    public SingleFlight<Prompt, ChatResponse> chatSingleFlight(ObjectProvider<MeterRegistry> meterRegistry) {
+        SingleFlight<Prompt, ChatResponse> singleFlight = new SingleFlight<>("chat");
+        meterRegistry.ifAvailable(singleFlight::bindTo);
+        return singleFlight;
+    }
+}
@@ -0,0 +1,44 @@
+package com.codefarm.openai.demo.service.config;
+
+import com.codefarm.openai.demo.service.retrieval.Bm25Index;
+import com.codefarm.openai.demo.service.retrieval.ContextPacker;
+import com.codefarm.openai.demo.service.retrieval.HybridRetriever;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RetrievalConfig {
+
+    /**
+     * Filled by the vector store refresh with every source chunk, see {@link VectorStoreConfig}.
+     */
+    @Bean
+    public Bm25Index lexicalIndex(RetrievalProperties retrievalProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        RetrievalProperties.Bm25 bm25 = retrievalProperties.getBm25();
+        Bm25Index index = new Bm25Index(bm25.getK1(), bm25.getB(), bm25.getTitleField());
+        meterRegistry.ifAvailable(index::bindTo);
+        return index;
+    }
+
+    @Bean
+    public HybridRetriever hybridRetriever(VectorStore vectorStore, Bm25Index lexicalIndex,
+                                           RetrievalProperties retrievalProperties,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        HybridRetriever retriever = new HybridRetriever(vectorStore, lexicalIndex, retrievalProperties.isHybrid(),
+                retrievalProperties.isTitleFastPath(), retrievalProperties.getCandidates(),
+                retrievalProperties.getRrfK());
+        meterRegistry.ifAvailable(retriever::bindTo);
+        return retriever;
+    }
+
+    @Bean
+    public ContextPacker contextPacker(RetrievalProperties retrievalProperties) {
+        RetrievalProperties.Context context = retrievalProperties.getContext();
+        return new ContextPacker(new JTokkitTokenCountEstimator(), context.getMmrLambda(),
+                context.getDuplicateThreshold());
+    }
+}
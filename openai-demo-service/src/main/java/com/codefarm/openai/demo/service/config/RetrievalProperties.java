@@ -0,0 +1,164 @@
+package com.codefarm.openai.demo.service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "retrieval")
+public class RetrievalProperties {
+
+    /** Fuse BM25 results with the vector results; when off only the vector store is queried. */
+    private boolean hybrid = true;
+
+    /** Answer queries that are (or quote) an exact title from the lexical index, without embedding them. */
+    private boolean titleFastPath = true;
+
+    /** Results taken from each retriever before fusion. */
+    private int candidates = 20;
+
+    /** Reciprocal rank fusion constant; larger values flatten the advantage of top ranks. */
+    private int rrfK = 60;
+
+    private final Bm25 bm25 = new Bm25();
+
+    private final Context context = new Context();
+
+    public boolean isHybrid() {
+        return hybrid;
+    }
+
+    public void setHybrid(boolean hybrid) {
+        this.hybrid = hybrid;
+    }
+
+    public boolean isTitleFastPath() {
+        return titleFastPath;
+    }
+
+    public void setTitleFastPath(boolean titleFastPath) {
+        this.titleFastPath = titleFastPath;
+    }
+
+    public int getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(int candidates) {
+        this.candidates = candidates;
+    }
+
+    public int getRrfK() {
+        return rrfK;
+    }
+
+    public void setRrfK(int rrfK) {
+        this.rrfK = rrfK;
+    }
+
+    public Bm25 getBm25() {
+        return bm25;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public static class Bm25 {
+
+        private float k1 = 1.2f;
+
+        private float b = 0.75f;
+
+        /** Metadata field used for exact title lookups. */
+        private String titleField = "title";
+
+        public float getK1() {
+            return k1;
+        }
+
+        public void setK1(float k1) {
+            this.k1 = k1;
+        }
+
+        public float getB() {
+            return b;
+        }
+
+        public void setB(float b) {
+            this.b = b;
+        }
+
+        public String getTitleField() {
+            return titleField;
+        }
+
+        public void setTitleField(String titleField) {
+            this.titleField = titleField;
+        }
+    }
+
+    public static class Context {
+
+        /** Chunks retrieved for a question before packing. */
+        private int candidates = 10;
+
+        /** Token budget for the packed documents when the endpoint has none of its own. */
+        private int maxTokens = 1500;
+
+        /** Token budgets per endpoint (vector-answer, vector-answer-stream). */
+        private Map<String, Integer> endpoints = new HashMap<>();
+
+        /** Maximal marginal relevance trade-off: 1 ranks by relevance only, 0 by diversity only. */
+        private double mmrLambda = 0.7;
+
+        /** Chunks at least this similar (term Jaccard) to an already packed chunk are dropped. */
+        private double duplicateThreshold = 0.8;
+
+        public int maxTokens(String endpoint) {
+            return endpoints.getOrDefault(endpoint, maxTokens);
+        }
+
+        public int getCandidates() {
+            return candidates;
+        }
+
+        public void setCandidates(int candidates) {
+            this.candidates = candidates;
+        }
+
+        public int getMaxTokens() {
+            return maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+        public Map<String, Integer> getEndpoints() {
+            return endpoints;
+        }
+
+        public void setEndpoints(Map<String, Integer> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        public double getMmrLambda() {
+            return mmrLambda;
+        }
+
+        public void setMmrLambda(double mmrLambda) {
+            this.mmrLambda = mmrLambda;
+        }
+
+        public double getDuplicateThreshold() {
+            return duplicateThreshold;
+        }
+
+        public void setDuplicateThreshold(double duplicateThreshold) {
+            this.duplicateThreshold = duplicateThreshold;
+        }
+    }
+}
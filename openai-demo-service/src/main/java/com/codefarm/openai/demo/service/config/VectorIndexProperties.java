@@ -0,0 +1,183 @@
+package com.codefarm.openai.demo.service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "vector.store.index")
+public class VectorIndexProperties {
+
+    public enum Type {
+        /** Spring AI {@code SimpleVectorStore}, brute-force scan. */
+        SIMPLE,
+        /** {@code IndexedVectorStore} with an exact scan. */
+        EXACT,
+        /** {@code IndexedVectorStore} with an HNSW graph. */
+        HNSW,
+        /** {@code IndexedVectorStore} scanning quantized codes, re-ranked in full precision. */
+        QUANTIZED
+    }
+
+    public enum Quantizer {
+        /** int8 per dimension, 4x smaller than float32. */
+        INT8,
+        /** Product quantization, one byte per subspace. */
+        PQ
+    }
+
+    private Type type = Type.SIMPLE;
+
+    /**
+     * Metadata fields indexed for filtered searches ({@code IndexedVectorStore} types only);
+     * filters on other fields are evaluated per candidate.
+     */
+    private List<String> filterableFields = List.of("genres", "original_language", "release_year", "vote_average",
+            "budget", "revenue", "runtime", "status");
+
+    private final Exact exact = new Exact();
+
+    private final Hnsw hnsw = new Hnsw();
+
+    private final Quantization quantization = new Quantization();
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public List<String> getFilterableFields() {
+        return filterableFields;
+    }
+
+    public void setFilterableFields(List<String> filterableFields) {
+        this.filterableFields = filterableFields;
+    }
+
+    public Exact getExact() {
+        return exact;
+    }
+
+    public Hnsw getHnsw() {
+        return hnsw;
+    }
+
+    public Quantization getQuantization() {
+        return quantization;
+    }
+
+    public static class Exact {
+
+        /** Threads of the search pool and partitions per exact scan. */
+        private int partitions = Runtime.getRuntime().availableProcessors();
+
+        /** Smaller scans stay on the request thread. */
+        private int minPartitionSize = 16_384;
+
+        public int getPartitions() {
+            return partitions;
+        }
+
+        public void setPartitions(int partitions) {
+            this.partitions = partitions;
+        }
+
+        public int getMinPartitionSize() {
+            return minPartitionSize;
+        }
+
+        public void setMinPartitionSize(int minPartitionSize) {
+            this.minPartitionSize = minPartitionSize;
+        }
+    }
+
+    public static class Hnsw {
+
+        private int m = 16;
+
+        private int efConstruction = 200;
+
+        private int efSearch = 64;
+
+        public int getM() {
+            return m;
+        }
+
+        public void setM(int m) {
+            this.m = m;
+        }
+
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+
+        public int getEfSearch() {
+            return efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+    }
+
+    public static class Quantization {
+
+        private Quantizer method = Quantizer.INT8;
+
+        private int subspaces = 96;
+
+        private int iterations = 10;
+
+        private int trainingSize = 10_000;
+
+        private int rerankFactor = 4;
+
+        public Quantizer getMethod() {
+            return method;
+        }
+
+        public void setMethod(Quantizer method) {
+            this.method = method;
+        }
+
+        public int getSubspaces() {
+            return subspaces;
+        }
+
+        public void setSubspaces(int subspaces) {
+            this.subspaces = subspaces;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+
+        public int getTrainingSize() {
+            return trainingSize;
+        }
+
+        public void setTrainingSize(int trainingSize) {
+            this.trainingSize = trainingSize;
+        }
+
+        public int getRerankFactor() {
+            return rerankFactor;
+        }
+
+        public void setRerankFactor(int rerankFactor) {
+            this.rerankFactor = rerankFactor;
+        }
+    }
+}
@@ -1,5 +1,26 @@
 package com.codefarm.openai.demo.service.config;
 
+import com.codefarm.openai.demo.service.cache.CachingEmbeddingModel;
+import com.codefarm.openai.demo.service.cache.QueryEmbeddingCache;
+import com.codefarm.openai.demo.service.ingestion.ChunkManifest;
+import com.codefarm.openai.demo.service.ingestion.IngestionPipeline;
+import com.codefarm.openai.demo.service.ingestion.MovieCsvDocumentReader;
+import com.codefarm.openai.demo.service.ingestion.VectorStoreReindexedEvent;
+import com.codefarm.openai.demo.service.metrics.TimedEmbeddingModel;
+import com.codefarm.openai.demo.service.resilience.BulkheadEmbeddingModel;
+import com.codefarm.openai.demo.service.resilience.Bulkheads;
+import com.codefarm.openai.demo.service.retrieval.Bm25Index;
+import com.codefarm.openai.demo.service.vectorstore.ExactVectorIndex;
+import com.codefarm.openai.demo.service.vectorstore.HnswVectorIndex;
+import com.codefarm.openai.demo.service.vectorstore.IndexedVectorStore;
+import com.codefarm.openai.demo.service.vectorstore.ListAwareSimpleVectorStore;
+import com.codefarm.openai.demo.service.vectorstore.ProductQuantizer;
+import com.codefarm.openai.demo.service.vectorstore.QuantizedVectorIndex;
+import com.codefarm.openai.demo.service.vectorstore.ScalarQuantizer;
+import com.codefarm.openai.demo.service.vectorstore.VectorIndex;
+import com.codefarm.openai.demo.service.vectorstore.VectorSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
@@ -8,41 +29,198 @@ import org.springframework.ai.reader.tika.TikaDocumentReader;
 import org.springframework.ai.transformer.splitter.TextSplitter;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 @Configuration
 public class VectorStoreConfig {
 
     private static final Logger log = LoggerFactory.getLogger(VectorStoreConfig.class);
+
+    /**
+     * Dedicated pool for partitioned exact scans, kept apart from the request threads. Not a bean,
+     * so it does not replace Boot's application task executor.
+     */
+    private ExecutorService vectorSearchExecutor;
+
     @Bean
-    public SimpleVectorStore simpleVectorStore(EmbeddingModel embeddingModel, ApplicationProperties applicationProperties) {
-        SimpleVectorStore store = SimpleVectorStore.builder(embeddingModel).build();
+    public VectorStore vectorStore(EmbeddingModel embeddingModel, ApplicationProperties applicationProperties,
+                                   VectorIndexProperties indexProperties, IngestionProperties ingestionProperties,
+                                   QueryEmbeddingCache queryEmbeddingCache, Bulkheads bulkheads,
+                                   Bm25Index lexicalIndex, ApplicationEventPublisher events,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        // every similarity search embeds its query first; repeated questions are served from memory
+        EmbeddingModel remote = new BulkheadEmbeddingModel(embeddingModel, bulkheads.get("embedding"));
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            remote = new TimedEmbeddingModel(remote, registry);
+        }
+        embeddingModel = new CachingEmbeddingModel(remote, queryEmbeddingCache);
         File vectorStoreFile = new File(applicationProperties.getMoviesVector());
 
         // Create parent directory if it doesn't exist
         vectorStoreFile.getParentFile().mkdirs();
 
-        if (vectorStoreFile.exists()) {
-            store.load(vectorStoreFile);
+        log.info("using {} vector store", indexProperties.getType());
+        if (indexProperties.getType() == VectorIndexProperties.Type.SIMPLE) {
+            SimpleVectorStore store = ListAwareSimpleVectorStore.create(embeddingModel);
+            loadAndRefresh(store, vectorStoreFile.exists(), () -> store.load(vectorStoreFile),
+                    () -> store.save(vectorStoreFile), applicationProperties, ingestionProperties, lexicalIndex, events);
+            return store;
+        }
+
+        if (indexProperties.getType() == VectorIndexProperties.Type.EXACT) {
+            vectorSearchExecutor = searchExecutor(indexProperties.getExact().getPartitions());
+        }
+        IndexedVectorStore store = IndexedVectorStore.builder(embeddingModel)
+                .indexFactory(indexFactory(indexProperties, vectorSearchExecutor))
+                .filterableFields(indexProperties.getFilterableFields())
+                .build();
+        meterRegistry.ifAvailable(store::bindTo);
+        if (StringUtils.hasText(applicationProperties.getMoviesSnapshot())) {
+            Path snapshotFile = Path.of(applicationProperties.getMoviesSnapshot());
+            convertToSnapshot(vectorStoreFile, snapshotFile);
+            loadAndRefresh(store, Files.exists(snapshotFile), () -> store.loadSnapshot(snapshotFile),
+                    () -> store.saveSnapshot(snapshotFile), applicationProperties, ingestionProperties, lexicalIndex, events);
         } else {
-            log.info("vector store file not exists, loading new files");
-            applicationProperties.getMoviesToLoad().forEach(document -> {
-                log.info("load document --> {}", document);
-                TikaDocumentReader documentReader = new TikaDocumentReader(document);
-                List<Document> documents = documentReader.get();
-                TextSplitter textSplitter = TokenTextSplitter.builder()
-                        .withChunkSize(300)
-                        .withMaxNumChunks(400)
-                        .build();
-                List<Document> splitDocs = textSplitter.apply(documents);
-                store.add(splitDocs);
-            });
-            store.save(vectorStoreFile);
+            loadAndRefresh(store, vectorStoreFile.exists(), () -> store.load(vectorStoreFile),
+                    () -> store.save(vectorStoreFile), applicationProperties, ingestionProperties, lexicalIndex, events);
         }
         return store;
     }
+
+    @PreDestroy
+    public void shutdown() {
+        if (vectorSearchExecutor != null) {
+            vectorSearchExecutor.shutdown();
+        }
+    }
+
+    private ExecutorService searchExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "vector-search-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private VectorIndex.Factory indexFactory(VectorIndexProperties indexProperties, ExecutorService executor) {
+        VectorIndexProperties.Exact exact = indexProperties.getExact();
+        VectorIndexProperties.Hnsw hnsw = indexProperties.getHnsw();
+        VectorIndexProperties.Quantization quantization = indexProperties.getQuantization();
+        return switch (indexProperties.getType()) {
+            case HNSW -> HnswVectorIndex.factory(hnsw.getM(), hnsw.getEfConstruction(), hnsw.getEfSearch());
+            case QUANTIZED -> QuantizedVectorIndex.factory(
+                    () -> quantization.getMethod() == VectorIndexProperties.Quantizer.PQ
+                            ? new ProductQuantizer(quantization.getSubspaces(), quantization.getIterations(), 42)
+                            : new ScalarQuantizer(),
+                    quantization.getTrainingSize(), quantization.getRerankFactor());
+            default -> ExactVectorIndex.factory(executor, exact.getPartitions(), exact.getMinPartitionSize());
+        };
+    }
+
+    private void convertToSnapshot(File vectorStoreFile, Path snapshotFile) {
+        if (Files.exists(snapshotFile) || !vectorStoreFile.exists()) {
+            return;
+        }
+        log.info("converting {} to binary snapshot {}", vectorStoreFile, snapshotFile);
+        try {
+            VectorSnapshot.convert(vectorStoreFile, snapshotFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to convert " + vectorStoreFile, e);
+        }
+    }
+
+    /**
+     * Loads the persisted store and brings it in line with the sources: only chunks whose content
+     * hash is missing from (or differs in) the manifest are embedded, and chunks that disappeared
+     * from the sources are deleted. Without a manifest the persisted store cannot be trusted, so
+     * everything is embedded again.
+     * <p>
+     * Every source chunk, changed or not, is also added to the lexical index, which is rebuilt
+     * in memory on each start and needs no embedding.
+     */
+    private void loadAndRefresh(VectorStore store, boolean persisted, Runnable load, Runnable save,
+                                ApplicationProperties applicationProperties, IngestionProperties ingestionProperties,
+                                Bm25Index lexicalIndex, ApplicationEventPublisher events) {
+        Path manifestFile = Path.of(applicationProperties.getMoviesManifest());
+        ChunkManifest manifest = persisted && Files.exists(manifestFile)
+                ? ChunkManifest.load(manifestFile)
+                : new ChunkManifest();
+        if (!manifest.isEmpty()) {
+            load.run();
+        } else if (persisted) {
+            log.info("chunk manifest {} not found, re-indexing all documents", manifestFile);
+        } else {
+            log.info("vector store file not exists, loading new files");
+        }
+
+        int embedded = new IngestionPipeline(store, ingestionProperties.getBatchSize(),
+                ingestionProperties.getParallelism())
+                .ingest(readDocuments(applicationProperties).peek(lexicalIndex::add).filter(manifest::track));
+        int unchanged = manifest.unchanged();
+        List<String> removed = manifest.commit();
+        if (!removed.isEmpty()) {
+            store.delete(removed);
+        }
+        log.info("vector store refreshed: {} embedded, {} removed, {} unchanged", embedded, removed.size(), unchanged);
+        log.info("lexical index holds {} chunks", lexicalIndex.size());
+
+        if (embedded > 0 || !removed.isEmpty() || !persisted) {
+            save.run();
+            manifest.save(manifestFile);
+            events.publishEvent(new VectorStoreReindexedEvent(embedded, removed.size()));
+        }
+    }
+
+    private Stream<Document> readDocuments(ApplicationProperties applicationProperties) {
+        TextSplitter textSplitter = TokenTextSplitter.builder()
+                .withChunkSize(300)
+                .withMaxNumChunks(400)
+                .build();
+        return applicationProperties.getMoviesToLoad().stream()
+                .flatMap(resource -> {
+                    log.info("load document --> {}", resource);
+                    if (isCsv(resource)) {
+                        return new MovieCsvDocumentReader(resource).stream();
+                    }
+                    TikaDocumentReader documentReader = new TikaDocumentReader(resource);
+                    return textSplitter.apply(documentReader.get()).stream()
+                            .map(chunk -> contentAddressed(resource, chunk));
+                });
+    }
+
+    private boolean isCsv(Resource resource) {
+        String filename = resource.getFilename();
+        return filename != null && filename.toLowerCase().endsWith(".csv");
+    }
+
+    /**
+     * The splitter assigns random ids; derive the id from source and text instead so an unchanged
+     * chunk keeps its id across restarts and the manifest can recognise it.
+     */
+    private Document contentAddressed(Resource resource, Document chunk) {
+        String key = resource.getDescription() + "\n" + chunk.getText();
+        String id = UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+        return new Document(id, chunk.getText(), chunk.getMetadata());
+    }
 }
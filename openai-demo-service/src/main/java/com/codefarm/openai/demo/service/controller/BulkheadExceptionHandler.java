@@ -0,0 +1,34 @@
+package com.codefarm.openai.demo.service.controller;
+
+import com.codefarm.openai.demo.service.resilience.BulkheadFullException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns a saturated bulkhead into 429 (too many callers already queued, back off) or 503 (the
+ * model did not free up in time), both with a {@code Retry-After} hint.
+ */
+@RestControllerAdvice
+public class BulkheadExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkheadExceptionHandler.class);
+
+    @ExceptionHandler(BulkheadFullException.class)
+    ResponseEntity<ProblemDetail> bulkheadFull(BulkheadFullException e) {
+        HttpStatus status = e.getReason() == BulkheadFullException.Reason.QUEUE_FULL
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        log.warn("rejecting request: {}", e.getMessage());
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, e.getMessage());
+        problem.setProperty("bulkhead", e.getBulkhead());
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(problem);
+    }
+}
@@ -1,21 +1,35 @@
 package com.codefarm.openai.demo.service.controller;
 
 import com.codefarm.openai.demo.service.model.*;
+import com.codefarm.openai.demo.service.service.CapitalBatchService;
+import com.codefarm.openai.demo.service.service.InvalidRequestException;
 import com.codefarm.openai.demo.service.service.OpenAiService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
 
 @RestController
 public class OpenAIQnAController {
 
     private static final Logger log = LoggerFactory.getLogger(OpenAIQnAController.class);
     private final OpenAiService openAiService;
+    private final CapitalBatchService capitalBatchService;
 
-    public OpenAIQnAController(OpenAiService openAiService) {
+    public OpenAIQnAController(OpenAiService openAiService, CapitalBatchService capitalBatchService) {
         this.openAiService = openAiService;
+        this.capitalBatchService = capitalBatchService;
     }
 
     @PostMapping("/ask")
@@ -23,6 +37,17 @@ public class OpenAIQnAController {
         log.info("getting the answer of question: " + question);
         return openAiService.getAnswer(question);
     }
+
+    /**
+     * Same as {@code /ask}, pushing the answer token by token as server-sent events.
+     */
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<AnswerToken>> askStream(@RequestBody String question) {
+        log.info("streaming the answer of question: " + question);
+        return openAiService.streamAnswer(question)
+                .map(token -> ServerSentEvent.builder(new AnswerToken(token)).build());
+    }
+
     @PostMapping("/capital")
     CapitalResponse getCapital(@RequestBody CapitalRequest capitalRequest) {
         log.info("getting the capital of country: " + capitalRequest);
@@ -44,6 +69,31 @@ public class OpenAIQnAController {
     @PostMapping("/capital/json/binding")
     CapitalResponseV2 getCapitalWithJsonBinding(@RequestBody CapitalRequest capitalRequest) {
         log.info("getting the capital of country: " + capitalRequest);
-        return openAiService.getCapitalWithJsonBinding(capitalRequest);
+        return capitalBatchService.getCapital(capitalRequest);
+    }
+
+    /**
+     * Same as {@code /capital/json/binding}, sending each field as an event named after it as soon
+     * as the model has produced it.
+     */
+    @PostMapping(value = "/capital/json/binding/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<JsonNode>> getCapitalWithJsonBindingStream(@RequestBody CapitalRequest capitalRequest) {
+        log.info("streaming the capital of country: " + capitalRequest);
+        return openAiService.streamCapitalWithJsonBinding(capitalRequest)
+                .map(field -> ServerSentEvent.builder(field.value()).event(field.name()).build());
+    }
+
+    /**
+     * Capitals of many countries at once, keyed by country; duplicates are looked up once.
+     */
+    @PostMapping("/capital/batch")
+    Map<String, CapitalResponseV2> getCapitals(@RequestBody List<CapitalRequest> capitalRequests) {
+        log.info("getting the capitals of {} countries", capitalRequests.size());
+        return capitalBatchService.getCapitals(capitalRequests);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    ProblemDetail badRequest(InvalidRequestException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
     }
 }
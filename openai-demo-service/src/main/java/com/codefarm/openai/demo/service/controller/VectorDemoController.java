@@ -1,12 +1,20 @@
 package com.codefarm.openai.demo.service.controller;
 
 import com.codefarm.openai.demo.service.model.Answer;
+import com.codefarm.openai.demo.service.model.AnswerToken;
 import com.codefarm.openai.demo.service.model.Question;
 import com.codefarm.openai.demo.service.service.VectorDemoService;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/vector")
@@ -22,4 +30,18 @@ public class VectorDemoController {
     public Answer post(@RequestBody Question question) {
         return vectorDemoService.getAnswer(question);
     }
+
+    /**
+     * Same as {@code /answer}, pushing the answer token by token as server-sent events.
+     */
+    @PostMapping(value = "/answer/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<AnswerToken>> stream(@RequestBody Question question) {
+        return vectorDemoService.streamAnswer(question)
+                .map(token -> ServerSentEvent.builder(new AnswerToken(token)).build());
+    }
+
+    @ExceptionHandler(FilterExpressionTextParser.FilterExpressionParseException.class)
+    ProblemDetail invalidFilter(FilterExpressionTextParser.FilterExpressionParseException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "invalid filter: " + e.getMessage());
+    }
 }
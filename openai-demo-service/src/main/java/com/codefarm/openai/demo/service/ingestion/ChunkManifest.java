@@ -0,0 +1,122 @@
+package com.codefarm.openai.demo.service.ingestion;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Content hash of every chunk that was embedded into the vector store, keyed by document id.
+ * During a refresh each source chunk is passed through {@link #track(Document)}, which tells
+ * whether it must be (re-)embedded; {@link #commit()} then returns the ids that disappeared from
+ * the sources so they can be deleted from the store.
+ */
+public class ChunkManifest {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkManifest.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, String> hashes;
+    private final Map<String, String> seen = new HashMap<>();
+    private int unchanged;
+
+    public ChunkManifest() {
+        this(new HashMap<>());
+    }
+
+    private ChunkManifest(Map<String, String> hashes) {
+        this.hashes = hashes;
+    }
+
+    public static ChunkManifest load(Path path) {
+        try {
+            return new ChunkManifest(objectMapper.readValue(path.toFile(), new TypeReference<HashMap<String, String>>() {
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read chunk manifest " + path, e);
+        }
+    }
+
+    public void save(Path path) {
+        try {
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(temp.toFile(), new TreeMap<>(hashes));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write chunk manifest " + path, e);
+        }
+    }
+
+    public boolean isEmpty() {
+        return hashes.isEmpty();
+    }
+
+    public int size() {
+        return hashes.size();
+    }
+
+    /**
+     * Records the chunk as present in the sources and returns {@code true} when it is new or its
+     * content changed since the manifest was written. A second chunk with an id already tracked in
+     * this run is rejected (logged and {@code false}); the first one stays in the manifest.
+     */
+    public boolean track(Document document) {
+        String hash = hash(document);
+        if (seen.putIfAbsent(document.getId(), hash) != null) {
+            log.warn("ignoring a second chunk with id {}", document.getId());
+            return false;
+        }
+        if (hash.equals(hashes.get(document.getId()))) {
+            unchanged++;
+            return false;
+        }
+        return true;
+    }
+
+    public int unchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Makes the tracked chunks the new manifest content and returns the ids of chunks that were
+     * not seen in the sources any more.
+     */
+    public List<String> commit() {
+        Set<String> removed = new HashSet<>(hashes.keySet());
+        removed.removeAll(seen.keySet());
+        hashes = new HashMap<>(seen);
+        seen.clear();
+        unchanged = 0;
+        return new ArrayList<>(removed);
+    }
+
+    static String hash(Document document) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(document.getText().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(new TreeMap<>(document.getMetadata()).toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
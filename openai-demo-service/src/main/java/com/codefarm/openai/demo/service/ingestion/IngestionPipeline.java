@@ -0,0 +1,94 @@
+package com.codefarm.openai.demo.service.ingestion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentWriter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Staged ingestion: documents are pulled lazily from the source stream (read + split), grouped
+ * into batches of {@code batchSize} and handed to the writer (embed + insert) on virtual threads.
+ * At most {@code parallelism} batches are in flight; once they are all taken the reading stage
+ * blocks, so memory stays bounded no matter how large the source is.
+ */
+public class IngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    private final DocumentWriter writer;
+    private final int batchSize;
+    private final int parallelism;
+
+    public IngestionPipeline(DocumentWriter writer, int batchSize, int parallelism) {
+        if (batchSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("batchSize and parallelism must be positive");
+        }
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Writes every document of the stream and returns how many were written. The first failing
+     * batch stops the reading stage and is rethrown once the in-flight batches have finished.
+     */
+    public int ingest(Stream<Document> documents) {
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        AtomicInteger written = new AtomicInteger();
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             Stream<Document> source = documents) {
+            Iterator<Document> iterator = source.iterator();
+            List<Document> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext() && failure.get() == null) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    submit(executor, permits, batch, failure, written);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty() && failure.get() == null) {
+                submit(executor, permits, batch, failure, written);
+            }
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        log.info("ingested {} documents in {} ms", written.get(), (System.nanoTime() - start) / 1_000_000);
+        return written.get();
+    }
+
+    private void submit(ExecutorService executor, Semaphore permits, List<Document> batch,
+                        AtomicReference<RuntimeException> failure, AtomicInteger written) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an ingestion slot", e);
+        }
+        executor.execute(() -> {
+            try {
+                writer.accept(batch);
+                int total = written.addAndGet(batch.size());
+                log.debug("ingested batch of {} documents, {} so far", batch.size(), total);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+}
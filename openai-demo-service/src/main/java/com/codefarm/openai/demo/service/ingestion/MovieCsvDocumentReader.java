@@ -0,0 +1,225 @@
+package com.codefarm.openai.demo.service.ingestion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentReader;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads {@code movies.csv} as one {@link Document} per row, streaming the file record by record.
+ * The document id is the movie id, the text holds the descriptive columns as {@code column: value}
+ * lines, and typed columns are copied into metadata: {@code genres} as a list, numbers as
+ * numbers, {@code release_date} as an ISO date plus a {@code release_year}.
+ * Quoted fields (with commas, doubled quotes or line breaks) are supported.
+ * <p>
+ * Ids are unique within one read: a row repeating an earlier id gets {@code #2}, {@code #3}, ...
+ * appended to it, so both rows are kept under stable ids.
+ */
+public class MovieCsvDocumentReader implements DocumentReader {
+
+    private static final Logger log = LoggerFactory.getLogger(MovieCsvDocumentReader.class);
+
+    /** Two-digit years 30-99 are 19xx, 00-29 are 20xx. */
+    private static final DateTimeFormatter RELEASE_DATE = new DateTimeFormatterBuilder()
+            .appendPattern("M/d/")
+            .appendValueReduced(ChronoField.YEAR, 2, 2, 1930)
+            .toFormatter();
+
+    private static final Set<String> EXCLUDED_FROM_TEXT = Set.of("id", "poster_path", "backdrop_path",
+            "recommendations");
+
+    private static final Set<String> LIST_COLUMNS = Set.of("genres", "production_companies", "credits", "keywords");
+
+    private static final Set<String> STRING_METADATA = Set.of("title", "original_language", "status");
+
+    private static final Set<String> LONG_METADATA = Set.of("budget", "revenue", "runtime", "vote_count");
+
+    private static final Set<String> DOUBLE_METADATA = Set.of("popularity", "vote_average");
+
+    private final Resource resource;
+
+    public MovieCsvDocumentReader(Resource resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    public List<Document> get() {
+        try (Stream<Document> documents = stream()) {
+            return documents.toList();
+        }
+    }
+
+    /**
+     * Lazily parses the file; closing the stream closes the underlying resource.
+     */
+    public Stream<Document> stream() {
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+            List<String> header = nextRecord(reader);
+            Map<String, Integer> ids = new HashMap<>();
+            if (header == null) {
+                reader.close();
+                return Stream.empty();
+            }
+            Spliterator<Document> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Document> action) {
+                    try {
+                        List<String> record;
+                        do {
+                            record = nextRecord(reader);
+                        } while (record != null && record.size() == 1 && record.get(0).isBlank());
+                        if (record == null) {
+                            return false;
+                        }
+                        action.accept(unique(toDocument(header, record), ids));
+                        return true;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to read " + resource, e);
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    log.warn("failed to close {}", resource, e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + resource, e);
+        }
+    }
+
+    private Document toDocument(List<String> header, List<String> record) {
+        Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            row.put(header.get(i), i < record.size() ? record.get(i).trim() : "");
+        }
+
+        StringBuilder text = new StringBuilder();
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("source", resource.getFilename() != null ? resource.getFilename() : resource.getDescription());
+        row.forEach((column, value) -> {
+            if (value.isEmpty()) {
+                return;
+            }
+            if (!EXCLUDED_FROM_TEXT.contains(column)) {
+                String shown = LIST_COLUMNS.contains(column) ? String.join(", ", split(value)) : value;
+                text.append(column).append(": ").append(shown).append('\n');
+            }
+            addMetadata(metadata, column, value);
+        });
+        String id = row.getOrDefault("id", "");
+        if (id.isEmpty()) {
+            id = UUID.nameUUIDFromBytes(text.toString().getBytes(StandardCharsets.UTF_8)).toString();
+        }
+        return new Document(id, text.toString().stripTrailing(), metadata);
+    }
+
+    private Document unique(Document document, Map<String, Integer> ids) {
+        int occurrence = ids.merge(document.getId(), 1, Integer::sum);
+        if (occurrence == 1) {
+            return document;
+        }
+        String id = document.getId() + "#" + occurrence;
+        log.warn("{} repeats id {}, reading it as {}", resource.getFilename(), document.getId(), id);
+        return document.mutate().id(id).build();
+    }
+
+    private void addMetadata(Map<String, Object> metadata, String column, String value) {
+        try {
+            if (column.equals("genres")) {
+                metadata.put(column, split(value));
+            } else if (column.equals("release_date")) {
+                LocalDate date = LocalDate.parse(value, RELEASE_DATE);
+                metadata.put(column, date.toString());
+                metadata.put("release_year", date.getYear());
+            } else if (STRING_METADATA.contains(column)) {
+                metadata.put(column, value);
+            } else if (LONG_METADATA.contains(column)) {
+                metadata.put(column, (long) Double.parseDouble(value));
+            } else if (DOUBLE_METADATA.contains(column)) {
+                metadata.put(column, Double.parseDouble(value));
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            log.debug("ignoring unparsable {} value '{}'", column, value);
+        }
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split("-")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    /**
+     * Reads one RFC 4180 record, or returns {@code null} at end of input.
+     */
+    static List<String> nextRecord(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,8 @@
+package com.codefarm.openai.demo.service.ingestion;
+
+/**
+ * Published after the vector store contents changed, so anything derived from earlier search
+ * results (such as cached answers) can be dropped.
+ */
+public record VectorStoreReindexedEvent(int embedded, int removed) {
+}
@@ -0,0 +1,140 @@
+package com.codefarm.openai.demo.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the stages of an LLM-backed request, all tagged by {@code endpoint} and
+ * {@code template}:
+ * <ul>
+ *     <li>{@code llm.stage} timer per {@code stage} (retrieve, pack, render, model, first-token, parse);</li>
+ *     <li>{@code llm.tokens} counter per {@code type} (prompt, completion), read from the response usage;</li>
+ *     <li>{@code llm.context.chunks} and {@code llm.context.tokens} summaries of the retrieved and packed
+ *     RAG context.</li>
+ * </ul>
+ * Timings are recorded whether the stage succeeds or fails, with an {@code outcome} tag.
+ */
+public class LlmMetrics {
+
+    private final MeterRegistry registry;
+
+    public LlmMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T time(String endpoint, String template, String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } finally {
+            record(endpoint, template, stage, outcome, start);
+        }
+    }
+
+    /**
+     * Times a streamed model call from subscription: {@code first-token} when the first response
+     * arrives and {@code model} when the stream ends (a cancelled stream is tagged as such). Token
+     * usage is taken from the last response that reports any.
+     */
+    public Flux<ChatResponse> timeStream(String endpoint, String template, Flux<ChatResponse> responses) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            AtomicReference<ChatResponse> usage = new AtomicReference<>();
+            return responses
+                    .doOnNext(response -> {
+                        if (first.compareAndSet(true, false)) {
+                            record(endpoint, template, "first-token", "success", start);
+                        }
+                        if (usage(response) != null) {
+                            usage.set(response);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        record(endpoint, template, "model", "success", start);
+                        if (usage.get() != null) {
+                            tokens(endpoint, template, usage.get());
+                        }
+                    })
+                    .doOnError(e -> record(endpoint, template, "model", "error", start))
+                    .doOnCancel(() -> record(endpoint, template, "model", "cancelled", start));
+        });
+    }
+
+    public void tokens(String endpoint, String template, ChatResponse response) {
+        Usage usage = usage(response);
+        if (usage == null) {
+            return;
+        }
+        if (usage.getPromptTokens() != null) {
+            counter(endpoint, template, "prompt").increment(usage.getPromptTokens());
+        }
+        if (usage.getCompletionTokens() != null) {
+            counter(endpoint, template, "completion").increment(usage.getCompletionTokens());
+        }
+    }
+
+    /**
+     * Records the size of a RAG context: chunks retrieved, chunks packed and the packed tokens.
+     */
+    public void context(String endpoint, int retrieved, int packed, int tokens) {
+        chunks(endpoint, "retrieved").record(retrieved);
+        chunks(endpoint, "packed").record(packed);
+        DistributionSummary.builder("llm.context.tokens")
+                .tag("endpoint", endpoint)
+                .baseUnit("tokens")
+                .description("tokens of retrieved context sent in the prompt")
+                .register(registry)
+                .record(tokens);
+    }
+
+    private void record(String endpoint, String template, String stage, String outcome, long start) {
+        timer(endpoint, template, stage, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String endpoint, String template, String stage, String outcome) {
+        return Timer.builder("llm.stage")
+                .tag("endpoint", endpoint)
+                .tag("template", template)
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .description("time spent in one stage of an LLM-backed request")
+                .register(registry);
+    }
+
+    private Counter counter(String endpoint, String template, String type) {
+        return Counter.builder("llm.tokens")
+                .tag("endpoint", endpoint)
+                .tag("template", template)
+                .tag("type", type)
+                .baseUnit("tokens")
+                .description("tokens reported by the model")
+                .register(registry);
+    }
+
+    private DistributionSummary chunks(String endpoint, String phase) {
+        return DistributionSummary.builder("llm.context.chunks")
+                .tag("endpoint", endpoint)
+                .tag("phase", phase)
+                .description("context chunks per RAG prompt")
+                .register(registry);
+    }
+
+    private static Usage usage(ChatResponse response) {
+        Usage usage = response.getMetadata() == null ? null : response.getMetadata().getUsage();
+        return usage == null || usage.getTotalTokens() == null || usage.getTotalTokens() == 0 ? null : usage;
+    }
+}
@@ -0,0 +1,69 @@
+package com.codefarm.openai.demo.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * {@link EmbeddingModel} timing every call that reaches the delegate as {@code llm.embedding},
+ * tagged {@code operation=query} for single texts and {@code operation=batch} for document batches.
+ */
+public class TimedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final MeterRegistry registry;
+
+    public TimedEmbeddingModel(EmbeddingModel delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return time(request.getInstructions().size() == 1 ? "query" : "batch", () -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return time("query", () -> delegate.embed(text));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return time("query", () -> delegate.embed(document));
+    }
+
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        return time("batch", () -> delegate.embed(documents, options, batchingStrategy));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private <T> T time(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("llm.embedding")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .description("embedding model calls")
+                    .register(registry));
+        }
+    }
+}
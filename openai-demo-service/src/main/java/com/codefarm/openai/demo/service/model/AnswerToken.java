@@ -0,0 +1,7 @@
+package com.codefarm.openai.demo.service.model;
+
+/**
+ * A piece of a streamed answer, sent as JSON so leading whitespace survives the SSE framing.
+ */
+public record AnswerToken(String text) {
+}
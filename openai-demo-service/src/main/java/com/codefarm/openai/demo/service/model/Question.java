@@ -1,4 +1,18 @@
 package com.codefarm.openai.demo.service.model;
 
-public record Question(String question) {
+/**
+ * @param filter optional metadata filter in Spring AI's filter expression syntax, e.g.
+ *               {@code genres == 'Science Fiction' && original_language == 'en' && release_year == 2019};
+ *               on list-valued fields such as {@code genres}, {@code ==} and {@code in} test membership,
+ *               with every store type
+ */
+public record Question(String question, String filter) {
+
+    public Question(String question) {
+        this(question, null);
+    }
+
+    public boolean hasFilter() {
+        return filter != null && !filter.isBlank();
+    }
 }
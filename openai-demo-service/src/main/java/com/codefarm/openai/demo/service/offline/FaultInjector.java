@@ -0,0 +1,26 @@
+package com.codefarm.openai.demo.service.offline;
+
+import org.springframework.ai.retry.TransientAiException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fails a configurable fraction of simulated calls with the exception a transient provider error
+ * (rate limit, 5xx) raises.
+ */
+class FaultInjector {
+
+    private final double errorRate;
+
+    FaultInjector(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    boolean shouldFail() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    TransientAiException failure(String model) {
+        return new TransientAiException("injected " + model + " failure");
+    }
+}
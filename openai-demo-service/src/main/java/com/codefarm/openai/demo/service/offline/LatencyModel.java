@@ -0,0 +1,73 @@
+package com.codefarm.openai.demo.service.offline;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Latency distribution of a simulated model call.
+ * <ul>
+ *     <li>{@code FIXED}: always {@code median};</li>
+ *     <li>{@code UNIFORM}: uniform between {@code min} and {@code max};</li>
+ *     <li>{@code LOG_NORMAL}: log-normal with the given {@code median} and {@code p99}, the usual
+ *     shape of remote call latency (most calls near the median, a long right tail).</li>
+ * </ul>
+ */
+public class LatencyModel {
+
+    private static final double Z_99 = 2.326;
+
+    public enum Distribution {
+        FIXED, UNIFORM, LOG_NORMAL
+    }
+
+    private final Distribution distribution;
+    private final long medianNanos;
+    private final long minNanos;
+    private final long maxNanos;
+    private final double sigma;
+    private final Supplier<RandomGenerator> random;
+
+    public LatencyModel(Distribution distribution, Duration median, Duration p99, Duration min, Duration max) {
+        this(distribution, median, p99, min, max, ThreadLocalRandom::current);
+    }
+
+    LatencyModel(Distribution distribution, Duration median, Duration p99, Duration min, Duration max,
+                 Supplier<RandomGenerator> random) {
+        this.distribution = distribution;
+        this.medianNanos = median.toNanos();
+        this.minNanos = min.toNanos();
+        this.maxNanos = Math.max(min.toNanos(), max.toNanos());
+        this.sigma = median.isZero() || p99.compareTo(median) <= 0
+                ? 0
+                : Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+        this.random = random;
+    }
+
+    public static LatencyModel none() {
+        return new LatencyModel(Distribution.FIXED, Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    public Duration sample() {
+        return Duration.ofNanos(switch (distribution) {
+            case FIXED -> medianNanos;
+            case UNIFORM -> minNanos == maxNanos ? minNanos : random.get().nextLong(minNanos, maxNanos + 1);
+            case LOG_NORMAL -> (long) (medianNanos * Math.exp(sigma * random.get().nextGaussian()));
+        });
+    }
+
+    /**
+     * Sleeps for {@code duration}; an interrupt ends the sleep early and is preserved.
+     */
+    static void pause(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.codefarm.openai.demo.service.offline;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic local {@link ChatModel}. The reply to a prompt is, in order of preference:
+ * <ol>
+ *     <li>the first configured canned reply whose pattern occurs in the prompt ({@code $1}.. refer
+ *     to its groups);</li>
+ *     <li>a JSON instance of the JSON Schema embedded by a {@code BeanOutputConverter} format, with
+ *     one array element per numbered line ({@code 1. France}) when the schema is an array;</li>
+ *     <li>a JSON object when the prompt asks for a single {@code property 'name'};</li>
+ *     <li>a sentence about the prompt's subject, padded with words chosen by the prompt's hash.</li>
+ * </ol>
+ * A call waits for a sampled time to first token and then for the reply's words at
+ * {@code tokensPerSecond}; streams emit one word per chunk at that rate. Calls fail with the
+ * configured error rate once the first-token wait is over. Usage metadata estimates four
+ * characters per prompt token and counts one token per reply word.
+ */
+public class OfflineChatModel implements ChatModel {
+
+    private static final Pattern NUMBERED = Pattern.compile("(?m)^\\s*\\d+\\.\\s+(.+?)\\s*$");
+    private static final Pattern QUESTION = Pattern.compile("QUESTION:\\s*\\n\\s*(.+)");
+    private static final Pattern SUBJECT = Pattern.compile("\\bof ([^.?!,\\n{]+)");
+    private static final Pattern PROPERTY = Pattern.compile("property '(\\w+)'");
+    private static final Pattern TOKEN = Pattern.compile("(?<=\\s)(?=\\S)");
+    private static final String[] WORDS = {"the", "story", "follows", "a", "city", "known", "for", "its", "history",
+            "and", "people", "who", "travel", "far", "to", "see", "what", "remains", "of", "an", "old", "world",
+            "while", "new", "ideas", "shape", "every", "day"};
+
+    private final LatencyModel firstToken;
+    private final double tokensPerSecond;
+    private final int completionWords;
+    private final FaultInjector faults;
+    private final List<CannedReply> cannedReplies;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public OfflineChatModel(LatencyModel firstToken, double tokensPerSecond, int completionWords, double errorRate,
+                            List<CannedReply> cannedReplies) {
+        this.firstToken = firstToken;
+        this.tokensPerSecond = tokensPerSecond;
+        this.completionWords = completionWords;
+        this.faults = new FaultInjector(errorRate);
+        this.cannedReplies = List.copyOf(cannedReplies);
+    }
+
+    public record CannedReply(Pattern pattern, String text) {
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String text = prompt.getContents();
+        String reply = reply(text);
+        int tokens = tokens(reply).size();
+        LatencyModel.pause(firstToken.sample());
+        if (faults.shouldFail()) {
+            throw faults.failure("chat");
+        }
+        LatencyModel.pause(generation(tokens));
+        return response(reply, usage(text, tokens));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            String text = prompt.getContents();
+            List<String> tokens = tokens(reply(text));
+            Mono<Long> wait = Mono.delay(firstToken.sample());
+            if (faults.shouldFail()) {
+                return wait.then(Mono.error(faults.failure("chat")));
+            }
+            Flux<ChatResponse> chunks = Flux.range(0, tokens.size())
+                    .map(i -> response(tokens.get(i), i == tokens.size() - 1 ? usage(text, tokens.size()) : null));
+            if (tokensPerSecond > 0 && tokens.size() > 1) {
+                chunks = chunks.take(1).concatWith(chunks.skip(1).delayElements(generation(1)));
+            }
+            return wait.thenMany(chunks);
+        });
+    }
+
+    String reply(String prompt) {
+        for (CannedReply canned : cannedReplies) {
+            Matcher matcher = canned.pattern().matcher(prompt);
+            if (matcher.find()) {
+                StringBuilder reply = new StringBuilder();
+                matcher.appendReplacement(reply, canned.text());
+                return reply.substring(matcher.start());
+            }
+        }
+        JsonNode schema = schema(prompt);
+        if (schema != null) {
+            return generate(schema, prompt);
+        }
+        Matcher property = PROPERTY.matcher(prompt);
+        if (property.find()) {
+            ObjectNode object = objectMapper.createObjectNode();
+            object.put(property.group(1), property.group(1) + " of " + subject(prompt));
+            return object.toString();
+        }
+        return sentence(prompt);
+    }
+
+    private JsonNode schema(String prompt) {
+        int marker = prompt.indexOf("JSON Schema");
+        if (marker < 0) {
+            return null;
+        }
+        int start = prompt.indexOf("```", marker);
+        int end = start < 0 ? -1 : prompt.indexOf("```", start + 3);
+        if (end < 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(prompt.substring(start + 3, end));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private String generate(JsonNode schema, String prompt) {
+        if (!"array".equals(schema.path("type").asText())) {
+            return instance(schema, subject(prompt), "value").toString();
+        }
+        ArrayNode array = objectMapper.createArrayNode();
+        Matcher numbered = NUMBERED.matcher(prompt);
+        while (numbered.find()) {
+            array.add(instance(schema.path("items"), numbered.group(1), "item"));
+        }
+        if (array.isEmpty()) {
+            array.add(instance(schema.path("items"), subject(prompt), "item"));
+        }
+        return array.toString();
+    }
+
+    private JsonNode instance(JsonNode schema, String subject, String name) {
+        int hash = (subject + '/' + name).hashCode() & Integer.MAX_VALUE;
+        if (schema.has("enum") && !schema.get("enum").isEmpty()) {
+            return schema.get("enum").get(hash % schema.get("enum").size());
+        }
+        return switch (schema.path("type").asText("string")) {
+            case "object" -> {
+                ObjectNode object = objectMapper.createObjectNode();
+                Iterator<Map.Entry<String, JsonNode>> properties = schema.path("properties").fields();
+                while (properties.hasNext()) {
+                    Map.Entry<String, JsonNode> property = properties.next();
+                    object.set(property.getKey(), instance(property.getValue(), subject, property.getKey()));
+                }
+                yield object;
+            }
+            case "array" -> objectMapper.createArrayNode().add(instance(schema.path("items"), subject, name));
+            case "integer" -> objectMapper.getNodeFactory().numberNode(hash % 1000 + 1);
+            case "number" -> objectMapper.getNodeFactory().numberNode((hash % 100_000) / 100.0);
+            case "boolean" -> objectMapper.getNodeFactory().booleanNode(hash % 2 == 0);
+            default -> objectMapper.getNodeFactory().textNode(name + " of " + subject);
+        };
+    }
+
+    private String sentence(String prompt) {
+        String subject = subject(prompt);
+        StringBuilder sentence = new StringBuilder("Offline answer about ").append(subject).append(':');
+        SplittableRandom random = new SplittableRandom(prompt.hashCode());
+        for (int i = 0; i < completionWords; i++) {
+            sentence.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append('.').toString();
+    }
+
+    private static String subject(String prompt) {
+        Matcher question = QUESTION.matcher(prompt);
+        if (question.find()) {
+            return question.group(1).strip();
+        }
+        Matcher subject = SUBJECT.matcher(prompt);
+        if (subject.find()) {
+            return subject.group(1).strip();
+        }
+        String firstLine = prompt.strip().lines().findFirst().orElse("");
+        return firstLine.length() > 60 ? firstLine.substring(0, 60) : firstLine;
+    }
+
+    private static List<String> tokens(String reply) {
+        List<String> tokens = new ArrayList<>(List.of(TOKEN.split(reply)));
+        tokens.removeIf(String::isEmpty);
+        return tokens.isEmpty() ? List.of("") : tokens;
+    }
+
+    private Duration generation(int tokens) {
+        return tokensPerSecond > 0 ? Duration.ofNanos((long) (tokens * 1e9 / tokensPerSecond)) : Duration.ZERO;
+    }
+
+    private static DefaultUsage usage(String prompt, int completionTokens) {
+        return new DefaultUsage((prompt.length() + 3) / 4, completionTokens);
+    }
+
+    private static ChatResponse response(String text, DefaultUsage usage) {
+        List<Generation> generations = List.of(new Generation(new AssistantMessage(text)));
+        if (usage == null) {
+            return new ChatResponse(generations);
+        }
+        return new ChatResponse(generations, ChatResponseMetadata.builder().model("offline").usage(usage).build());
+    }
+}
@@ -0,0 +1,88 @@
+package com.codefarm.openai.demo.service.offline;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic local {@link EmbeddingModel}: every lower-cased word is hashed to a dimension and a
+ * sign (feature hashing) and the sum is normalized, so equal texts get equal vectors and texts
+ * sharing words are close. Each call waits for a sampled latency and may fail with the configured
+ * error rate.
+ */
+public class OfflineEmbeddingModel implements EmbeddingModel {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int dimensions;
+    private final LatencyModel latency;
+    private final FaultInjector faults;
+
+    public OfflineEmbeddingModel(int dimensions, LatencyModel latency, double errorRate) {
+        this.dimensions = dimensions;
+        this.latency = latency;
+        this.faults = new FaultInjector(errorRate);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        LatencyModel.pause(latency.sample());
+        if (faults.shouldFail()) {
+            throw faults.failure("embedding");
+        }
+        List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+        for (String text : request.getInstructions()) {
+            embeddings.add(new Embedding(vector(text), embeddings.size()));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    float[] vector(String text) {
+        float[] vector = new float[dimensions];
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        for (String word : NON_WORD.split(normalized)) {
+            if (!word.isEmpty()) {
+                int hash = mix(word.hashCode());
+                vector[Math.floorMod(hash, dimensions)] += (hash & 0x8000_0000) == 0 ? 1f : -1f;
+            }
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            vector[0] = 1f;
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85eb_ca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
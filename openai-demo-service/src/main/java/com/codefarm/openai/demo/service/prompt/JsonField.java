@@ -0,0 +1,9 @@
+package com.codefarm.openai.demo.service.prompt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A top-level field of a JSON object, published as soon as its value has been parsed completely.
+ */
+public record JsonField(String name, JsonNode value) {
+}
@@ -0,0 +1,87 @@
+package com.codefarm.openai.demo.service.prompt;
+
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenStream;
+import org.springframework.ai.template.TemplateRenderer;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.compiler.FormalArgument;
+import org.stringtemplate.v4.compiler.STLexer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * StringTemplate renderer that parses each registered template once. Spring AI's default renderer
+ * parses the template text and lexes it again for validation on every call; here every variable is
+ * declared on the compiled template up front, and a render copies the prototype and only binds
+ * values, so concurrent renders never modify shared state. Like the default renderer it uses
+ * {@code {}} delimiters and rejects renders that leave variables unset.
+ * <p>
+ * Only templates passed to {@link #compile} are kept; any other text is compiled for that call
+ * alone, so ad-hoc templates cannot grow the registry.
+ */
+public class PrecompiledTemplateRenderer implements TemplateRenderer {
+
+    private final Map<String, Compiled> compiled = new ConcurrentHashMap<>();
+
+    public void compile(String template) {
+        compiled.computeIfAbsent(template, Compiled::of);
+    }
+
+    @Override
+    public String apply(String template, Map<String, Object> variables) {
+        Compiled prototype = compiled.get(template);
+        if (prototype == null) {
+            prototype = Compiled.of(template);
+        }
+        return prototype.render(variables);
+    }
+
+    private record Compiled(ST prototype, Set<String> variables) {
+
+        static Compiled of(String template) {
+            ST prototype;
+            try {
+                prototype = new ST(template, '{', '}');
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("template string is not valid: " + template, e);
+            }
+            Set<String> variables = inputVariables(prototype.impl.tokens);
+            // ST would otherwise declare each attribute on the compiled template at its first add
+            variables.forEach(name -> prototype.impl.addArg(new FormalArgument(name)));
+            return new Compiled(prototype, Collections.unmodifiableSet(variables));
+        }
+
+        String render(Map<String, Object> values) {
+            if (!values.keySet().containsAll(variables)) {
+                Set<String> missing = new TreeSet<>(variables);
+                missing.removeAll(values.keySet());
+                throw new IllegalStateException(
+                        "Not all variables were replaced in the template. Missing variable names are: " + missing);
+            }
+            // the copy gets its own attribute slots; values the template does not use are not bound
+            ST st = new ST(prototype);
+            for (String name : variables) {
+                st.add(name, values.get(name));
+            }
+            return st.render();
+        }
+
+        private static Set<String> inputVariables(TokenStream tokens) {
+            Set<String> variables = new HashSet<>();
+            for (int i = 0; i + 1 < tokens.size(); i++) {
+                Token token = tokens.get(i);
+                Token next = tokens.get(i + 1);
+                boolean call = i + 2 < tokens.size() && tokens.get(i + 2).getType() == STLexer.LPAREN;
+                if (token.getType() == STLexer.LDELIM && next.getType() == STLexer.ID && !call) {
+                    variables.add(next.getText());
+                }
+            }
+            return variables;
+        }
+    }
+}
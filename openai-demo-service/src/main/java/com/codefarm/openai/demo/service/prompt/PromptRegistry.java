@@ -0,0 +1,101 @@
+package com.codefarm.openai.demo.service.prompt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prompt templates and output converters prepared once at startup. Templates are read from
+ * {@code *.st} files and registered under the file name without the extension; converters are
+ * registered per target type with their format instructions already generated. All lookups are
+ * read-only after startup and safe for concurrent use.
+ */
+public class PromptRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptRegistry.class);
+
+    private final PrecompiledTemplateRenderer renderer = new PrecompiledTemplateRenderer();
+    private final Map<String, PromptTemplate> templates = new ConcurrentHashMap<>();
+    private final Map<Type, StructuredOutput<?>> outputs = new ConcurrentHashMap<>();
+
+    /**
+     * Loads and compiles every template matching {@code locationPattern}, e.g.
+     * {@code classpath:templates/*.st}.
+     */
+    public static PromptRegistry load(ResourcePatternResolver resolver, String locationPattern) {
+        PromptRegistry registry = new PromptRegistry();
+        try {
+            for (Resource resource : resolver.getResources(locationPattern)) {
+                String filename = resource.getFilename();
+                if (filename != null && filename.endsWith(".st")) {
+                    registry.register(filename.substring(0, filename.length() - ".st".length()),
+                            resource.getContentAsString(StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to load prompt templates from " + locationPattern, e);
+        }
+        log.info("compiled {} prompt templates from {}", registry.templates.size(), locationPattern);
+        return registry;
+    }
+
+    public PromptRegistry register(String name, String template) {
+        renderer.compile(template);
+        templates.put(name, PromptTemplate.builder().template(template).renderer(renderer).build());
+        return this;
+    }
+
+    public <T> StructuredOutput<T> register(Class<T> type) {
+        return register(type, new BeanOutputConverter<>(type));
+    }
+
+    public <T> StructuredOutput<T> register(ParameterizedTypeReference<T> type) {
+        return register(type.getType(), new BeanOutputConverter<>(type));
+    }
+
+    public PromptTemplate template(String name) {
+        PromptTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("no prompt template named " + name + ", known: " + templates.keySet());
+        }
+        return template;
+    }
+
+    public Prompt create(String name, Map<String, Object> variables) {
+        return template(name).create(variables);
+    }
+
+    public <T> StructuredOutput<T> output(Class<T> type) {
+        return output((Type) type);
+    }
+
+    public <T> StructuredOutput<T> output(ParameterizedTypeReference<T> type) {
+        return output(type.getType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> StructuredOutput<T> output(Type type) {
+        StructuredOutput<T> output = (StructuredOutput<T>) outputs.get(type);
+        if (output == null) {
+            throw new IllegalArgumentException("no output converter registered for " + type.getTypeName());
+        }
+        return output;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> StructuredOutput<T> register(Type type, BeanOutputConverter<T> converter) {
+        return (StructuredOutput<T>) outputs.computeIfAbsent(type, key -> StructuredOutput.of(converter));
+    }
+}
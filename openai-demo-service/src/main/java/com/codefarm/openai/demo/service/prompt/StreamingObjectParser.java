@@ -0,0 +1,160 @@
+package com.codefarm.openai.demo.service.prompt;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parses a JSON object arriving in text chunks, e.g. a streamed model reply, with Jackson's
+ * non-blocking parser and publishes each top-level field once its value is complete, without
+ * waiting for the rest of the object. A markdown code fence around the object is tolerated. Any
+ * other text before the object, malformed JSON, or a stream ending inside the object fails the
+ * flux at the offending chunk, which cancels the upstream stream.
+ */
+public class StreamingObjectParser {
+
+    /** Whatever may precede the object: nothing, or (part of) an opening fence such as {@code ```json}. */
+    private static final Pattern PREAMBLE = Pattern.compile("`{0,3}|```[A-Za-z]*");
+
+    private final ObjectMapper objectMapper;
+
+    public StreamingObjectParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public Flux<JsonField> fields(Flux<String> chunks) {
+        return Flux.defer(() -> {
+            Parse parse = new Parse();
+            return chunks.concatMapIterable(parse::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(parse.finish())));
+        });
+    }
+
+    /**
+     * Parsing state of one subscription.
+     */
+    private class Parse {
+
+        private final JsonParser parser;
+        private final StringBuilder preamble = new StringBuilder();
+        private boolean started;
+        private boolean done;
+        private String field;
+        private TokenBuffer value;
+        private int valueDepth;
+
+        Parse() {
+            try {
+                parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        List<JsonField> feed(String chunk) {
+            if (done) {
+                return List.of();
+            }
+            String json = chunk;
+            if (!started) {
+                int start = chunk.indexOf('{');
+                preamble.append(start < 0 ? chunk : chunk.substring(0, start));
+                if (!PREAMBLE.matcher(preamble.toString().strip()).matches()) {
+                    throw new MalformedOutputException("expected a JSON object, got: " + preamble.toString().strip());
+                }
+                if (start < 0) {
+                    return List.of();
+                }
+                started = true;
+                json = chunk.substring(start);
+            }
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            try {
+                ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+                return drain();
+            } catch (JsonProcessingException e) {
+                throw new MalformedOutputException("malformed JSON in model output: " + e.getOriginalMessage(), e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        List<JsonField> finish() {
+            if (!done) {
+                throw new MalformedOutputException(started
+                        ? "model output ended inside the JSON object"
+                        : "model output did not contain a JSON object");
+            }
+            return List.of();
+        }
+
+        private List<JsonField> drain() throws IOException {
+            List<JsonField> fields = new ArrayList<>();
+            JsonToken token;
+            while (!done && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+                if (value != null) {
+                    value.copyCurrentEvent(parser);
+                    valueDepth += depthChange(token);
+                    if (valueDepth == 0) {
+                        fields.add(completeValue());
+                    }
+                } else if (token == JsonToken.FIELD_NAME && parser.getParsingContext().getParent().inRoot()) {
+                    field = parser.currentName();
+                } else if (token == JsonToken.END_OBJECT && parser.getParsingContext().inRoot()) {
+                    done = true;
+                } else if (field != null) {
+                    value = new TokenBuffer(parser, null);
+                    value.copyCurrentEvent(parser);
+                    valueDepth = depthChange(token);
+                    if (valueDepth == 0) {
+                        fields.add(completeValue());
+                    }
+                } else if (token != JsonToken.START_OBJECT) {
+                    throw new MalformedOutputException("expected a JSON object, got " + token);
+                }
+            }
+            return fields;
+        }
+
+        private JsonField completeValue() throws IOException {
+            JsonNode node;
+            try (JsonParser buffered = value.asParser(objectMapper)) {
+                node = objectMapper.readTree(buffered);
+            }
+            JsonField complete = new JsonField(field, node);
+            field = null;
+            value = null;
+            return complete;
+        }
+
+        private int depthChange(JsonToken token) {
+            return token.isStructStart() ? 1 : token.isStructEnd() ? -1 : 0;
+        }
+    }
+
+    /**
+     * The model output is not the JSON object that was asked for.
+     */
+    public static class MalformedOutputException extends IllegalStateException {
+
+        public MalformedOutputException(String message) {
+            super(message);
+        }
+
+        public MalformedOutputException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.codefarm.openai.demo.service.prompt;
+
+import org.springframework.ai.converter.BeanOutputConverter;
+
+/**
+ * An output converter together with its format instructions, rendered once. The converter is
+ * stateless after construction and safe to share between requests.
+ */
+public record StructuredOutput<T>(BeanOutputConverter<T> converter, String format) {
+
+    public static <T> StructuredOutput<T> of(BeanOutputConverter<T> converter) {
+        return new StructuredOutput<>(converter, converter.getFormat());
+    }
+
+    public T convert(String text) {
+        return converter.convert(text);
+    }
+}
@@ -0,0 +1,106 @@
+package com.codefarm.openai.demo.service.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of concurrent calls to a slow dependency. Up to {@code maxConcurrent} calls run,
+ * up to {@code maxQueue} more wait at most {@code maxWait} for a permit, and anything beyond that
+ * fails fast with a {@link BulkheadFullException}. Waiting blocks the calling thread, which is
+ * cheap when requests run on virtual threads.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder queueFull = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueue, Duration maxWait) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public <T> T call(Supplier<T> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Holds a permit from subscription until the stream completes, fails or is cancelled.
+     */
+    public <T> Flux<T> stream(Supplier<Flux<T>> stream) {
+        return Flux.defer(() -> {
+            acquire();
+            try {
+                return stream.get().doFinally(signal -> permits.release());
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        });
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bulkhead.active", this, Bulkhead::active).tag("bulkhead", name).register(registry);
+        Gauge.builder("bulkhead.waiting", this, Bulkhead::waiting).tag("bulkhead", name).register(registry);
+        registry.more().counter("bulkhead.rejected", Tags.of("bulkhead", name, "reason", "queue_full"),
+                queueFull, LongAdder::sum);
+        registry.more().counter("bulkhead.rejected", Tags.of("bulkhead", name, "reason", "timeout"),
+                timeouts, LongAdder::sum);
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            queueFull.increment();
+            throw new BulkheadFullException(name, BulkheadFullException.Reason.QUEUE_FULL);
+        }
+        try {
+            if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                timeouts.increment();
+                throw new BulkheadFullException(name, BulkheadFullException.Reason.TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException(name, BulkheadFullException.Reason.TIMEOUT);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.codefarm.openai.demo.service.resilience;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * {@link EmbeddingModel} whose remote calls go through a {@link Bulkhead}.
+ */
+public class BulkheadEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final Bulkhead bulkhead;
+
+    public BulkheadEmbeddingModel(EmbeddingModel delegate, Bulkhead bulkhead) {
+        this.delegate = delegate;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return bulkhead.call(() -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return bulkhead.call(() -> delegate.embed(text));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return bulkhead.call(() -> delegate.embed(document));
+    }
+
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        return bulkhead.call(() -> delegate.embed(documents, options, batchingStrategy));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,31 @@
+package com.codefarm.openai.demo.service.resilience;
+
+/**
+ * Thrown when a {@link Bulkhead} refuses a call instead of letting it wait.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    public enum Reason {
+        /** Too many callers already waiting; the client should back off. */
+        QUEUE_FULL,
+        /** No permit became free within the maximum wait; the dependency is saturated. */
+        TIMEOUT
+    }
+
+    private final String bulkhead;
+    private final Reason reason;
+
+    public BulkheadFullException(String bulkhead, Reason reason) {
+        super("bulkhead '" + bulkhead + "' is full (" + reason + ")");
+        this.bulkhead = bulkhead;
+        this.reason = reason;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
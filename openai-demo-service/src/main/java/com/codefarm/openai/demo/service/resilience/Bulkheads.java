@@ -0,0 +1,22 @@
+package com.codefarm.openai.demo.service.resilience;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Named {@link Bulkhead}s, created on first use.
+ */
+public class Bulkheads {
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final Function<String, Bulkhead> factory;
+
+    public Bulkheads(Function<String, Bulkhead> factory) {
+        this.factory = factory;
+    }
+
+    public Bulkhead get(String name) {
+        return bulkheads.computeIfAbsent(name, factory);
+    }
+}
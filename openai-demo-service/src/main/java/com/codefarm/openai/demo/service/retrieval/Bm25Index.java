@@ -0,0 +1,259 @@
+package com.codefarm.openai.demo.service.retrieval;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index scoring documents with Okapi BM25. Every term keeps a posting list of
+ * (document, term frequency) pairs; a query only touches the postings of its own terms, so it
+ * costs no embedding call and a fraction of a scan.
+ * <p>
+ * Documents are also indexed by their normalized {@code title} metadata, for exact title lookups.
+ * Adding a document with an id that is already present replaces it: the old document is taken out
+ * of the postings of its terms, so document frequencies only ever count live documents. Safe for
+ * concurrent searches; adds take a write lock.
+ */
+public class Bm25Index {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+            "from", "has", "have", "in", "is", "it", "me", "movie", "movies", "of", "on", "or", "that", "the",
+            "this", "to", "was", "what", "when", "where", "which", "who", "with", "about", "tell", "film");
+
+    private final float k1;
+    private final float b;
+    private final String titleField;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, List<Integer>> slotsByTitle = new HashMap<>();
+    private int[] lengths = new int[64];
+    private long totalLength;
+
+    public Bm25Index(float k1, float b, String titleField) {
+        this.k1 = k1;
+        this.b = b;
+        this.titleField = titleField;
+    }
+
+    public void add(Document document) {
+        List<String> terms = tokenize(document.getText());
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            Integer previous = slotsById.get(document.getId());
+            if (previous != null) {
+                remove(previous);
+            }
+            int slot = documents.size();
+            documents.add(document);
+            slotsById.put(document.getId(), slot);
+            if (slot == lengths.length) {
+                lengths = Arrays.copyOf(lengths, slot * 2);
+            }
+            lengths[slot] = terms.size();
+            totalLength += terms.size();
+            frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new Postings())
+                    .add(slot, frequency));
+            if (document.getMetadata().get(titleField) instanceof String title) {
+                slotsByTitle.computeIfAbsent(normalize(title), key -> new ArrayList<>(1)).add(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Publishes the number of indexed chunks and distinct terms as {@code retrieval.lexical.documents}
+     * and {@code retrieval.lexical.terms}.
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("retrieval.lexical.documents", this, Bm25Index::size)
+                .description("chunks in the BM25 index")
+                .register(registry);
+        Gauge.builder("retrieval.lexical.terms", this, Bm25Index::terms)
+                .description("distinct terms in the BM25 index")
+                .register(registry);
+    }
+
+    /**
+     * Returns at most {@code topK} documents ordered by descending BM25 score, with the score set.
+     */
+    public List<Document> search(String query, int topK) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        lock.readLock().lock();
+        try {
+            int count = slotsById.size();
+            if (terms.isEmpty() || count == 0 || topK <= 0) {
+                return List.of();
+            }
+            float averageLength = (float) totalLength / count;
+            float[] scores = new float[documents.size()];
+            BitSet touched = new BitSet();
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (count - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int slot = list.slots[i];
+                    int frequency = list.frequencies[i];
+                    float norm = k1 * (1 - b + b * lengths[slot] / averageLength);
+                    scores[slot] += (float) (idf * frequency * (k1 + 1) / (frequency + norm));
+                    touched.set(slot);
+                }
+            }
+
+            PriorityQueue<Integer> best = new PriorityQueue<>(topK + 1,
+                    (x, y) -> Float.compare(scores[x], scores[y]));
+            for (int slot = touched.nextSetBit(0); slot >= 0; slot = touched.nextSetBit(slot + 1)) {
+                best.add(slot);
+                if (best.size() > topK) {
+                    best.poll();
+                }
+            }
+            Document[] ranked = new Document[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                int slot = best.poll();
+                ranked[i] = withScore(documents.get(slot), scores[slot]);
+            }
+            return List.of(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int terms() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents whose title equals {@code title} after normalization (case, accents, punctuation
+     * and spacing are ignored).
+     */
+    public List<Document> findByTitle(String title) {
+        lock.readLock().lock();
+        try {
+            List<Integer> slots = slotsByTitle.getOrDefault(normalize(title), List.of());
+            List<Document> found = new ArrayList<>(slots.size());
+            for (int slot : slots) {
+                found.add(withScore(documents.get(slot), 1.0));
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Takes the document in {@code slot} out of the postings and the title lookup. The slot itself
+     * stays allocated, so the slots of the other documents do not move; must hold the write lock.
+     */
+    private void remove(int slot) {
+        Document document = documents.set(slot, null);
+        totalLength -= lengths[slot];
+        for (String term : new LinkedHashSet<>(tokenize(document.getText()))) {
+            Postings list = postings.get(term);
+            if (list != null && list.remove(slot) && list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        if (document.getMetadata().get(titleField) instanceof String title) {
+            String key = normalize(title);
+            List<Integer> slots = slotsByTitle.get(key);
+            if (slots != null && slots.remove(Integer.valueOf(slot)) && slots.isEmpty()) {
+                slotsByTitle.remove(key);
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : NON_WORD.split(Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    static String normalize(String title) {
+        String decomposed = Normalizer.normalize(title, Normalizer.Form.NFKD).replaceAll("\\p{M}+", "");
+        return String.join(" ", NON_WORD.split(decomposed.toLowerCase(Locale.ROOT).strip())).strip();
+    }
+
+    private static Document withScore(Document document, double score) {
+        return Document.builder()
+                .id(document.getId())
+                .text(document.getText())
+                .metadata(document.getMetadata())
+                .score(score)
+                .build();
+    }
+
+    private static final class Postings {
+
+        private int[] slots = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        void add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        /** Slots are added in ascending order, so the list stays sorted and can be searched. */
+        boolean remove(int slot) {
+            int i = Arrays.binarySearch(slots, 0, size, slot);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(slots, i + 1, slots, i, size - i - 1);
+            System.arraycopy(frequencies, i + 1, frequencies, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+}
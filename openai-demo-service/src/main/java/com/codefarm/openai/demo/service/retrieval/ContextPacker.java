@@ -0,0 +1,116 @@
+package com.codefarm.openai.demo.service.retrieval;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chooses which retrieved chunks go into a prompt. Chunks are taken greedily by maximal marginal
+ * relevance, {@code lambda * relevance - (1 - lambda) * max similarity to the chunks already
+ * taken}, until the token budget is spent; a chunk that does not fit is skipped in favour of
+ * smaller ones. Near-duplicates (term-set Jaccard similarity at or above
+ * {@code duplicateThreshold}) of an already taken chunk are dropped. Relevance is the retrieval
+ * rank, and the packed chunks are returned in that order.
+ * <p>
+ * Similarity between chunks is lexical, so packing needs no embeddings. When even the most
+ * relevant chunk exceeds the budget it is cut down to fit rather than sending no context at all.
+ */
+public class ContextPacker {
+
+    private final TokenCountEstimator tokenCounter;
+    private final double lambda;
+    private final double duplicateThreshold;
+
+    public ContextPacker(TokenCountEstimator tokenCounter, double lambda, double duplicateThreshold) {
+        this.tokenCounter = tokenCounter;
+        this.lambda = lambda;
+        this.duplicateThreshold = duplicateThreshold;
+    }
+
+    /**
+     * @param ranked retrieved chunks, most relevant first
+     */
+    public List<Document> pack(List<Document> ranked, int maxTokens) {
+        int count = ranked.size();
+        List<Set<String>> terms = new ArrayList<>(count);
+        int[] tokens = new int[count];
+        for (Document document : ranked) {
+            terms.add(new HashSet<>(Bm25Index.tokenize(document.getText())));
+            tokens[terms.size() - 1] = tokenCounter.estimate(document.getText());
+        }
+
+        List<Integer> taken = new ArrayList<>();
+        double[] redundancy = new double[count];
+        boolean[] done = new boolean[count];
+        int budget = maxTokens;
+        while (true) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                if (done[i]) {
+                    continue;
+                }
+                if (tokens[i] > budget || redundancy[i] >= duplicateThreshold) {
+                    done[i] = true;
+                    continue;
+                }
+                double relevance = 1.0 - (double) i / count;
+                double score = lambda * relevance - (1 - lambda) * redundancy[i];
+                if (score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            done[best] = true;
+            taken.add(best);
+            budget -= tokens[best];
+            for (int i = 0; i < count; i++) {
+                if (!done[i]) {
+                    redundancy[i] = Math.max(redundancy[i], jaccard(terms.get(i), terms.get(best)));
+                }
+            }
+        }
+
+        if (taken.isEmpty()) {
+            return ranked.isEmpty() || maxTokens <= 0 ? List.of() : List.of(truncate(ranked.get(0), tokens[0], maxTokens));
+        }
+        taken.sort(Comparator.naturalOrder());
+        return taken.stream().map(ranked::get).toList();
+    }
+
+    public int countTokens(String text) {
+        return tokenCounter.estimate(text);
+    }
+
+    private Document truncate(Document document, int tokens, int maxTokens) {
+        String text = document.getText();
+        int length = (int) ((long) text.length() * maxTokens / tokens);
+        while (length > 0 && tokenCounter.estimate(text.substring(0, length)) > maxTokens) {
+            length = length * 9 / 10;
+        }
+        return document.mutate().text(text.substring(0, length)).build();
+    }
+
+    static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int shared = 0;
+        for (String term : smaller) {
+            if (larger.contains(term)) {
+                shared++;
+            }
+        }
+        return (double) shared / (a.size() + b.size() - shared);
+    }
+}
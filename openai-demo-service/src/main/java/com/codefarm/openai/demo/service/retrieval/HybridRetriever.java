@@ -0,0 +1,138 @@
+package com.codefarm.openai.demo.service.retrieval;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Retrieves context documents from the vector store and the {@link Bm25Index} and merges both
+ * rankings with reciprocal rank fusion: a document scores {@code sum(1 / (rrfK + rank))} over the
+ * rankings it appears in, so exact title or name matches found lexically surface even when their
+ * embedding is not among the nearest.
+ * <p>
+ * With the title fast path on, a query that is a known title, or that quotes one, is answered
+ * from the lexical index alone and never reaches the embedding model. Filtered queries use the
+ * vector store only, since the lexical index does not evaluate filter expressions.
+ */
+public class HybridRetriever {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridRetriever.class);
+
+    private static final Pattern QUOTED = Pattern.compile("[\"“”]([^\"“”]+)[\"“”]");
+
+    private final VectorStore vectorStore;
+    private final Bm25Index lexicalIndex;
+    private final boolean hybrid;
+    private final boolean titleFastPath;
+    private final int candidates;
+    private final int rrfK;
+    private final LongAdder titleLookups = new LongAdder();
+    private final LongAdder hybridSearches = new LongAdder();
+    private final LongAdder vectorSearches = new LongAdder();
+
+    public HybridRetriever(VectorStore vectorStore, Bm25Index lexicalIndex, boolean hybrid, boolean titleFastPath,
+                           int candidates, int rrfK) {
+        this.vectorStore = vectorStore;
+        this.lexicalIndex = lexicalIndex;
+        this.hybrid = hybrid;
+        this.titleFastPath = titleFastPath;
+        this.candidates = candidates;
+        this.rrfK = rrfK;
+    }
+
+    /**
+     * @param filter optional filter expression, applied by the vector store
+     */
+    public List<Document> retrieve(String query, String filter, int topK) {
+        boolean filtered = filter != null && !filter.isBlank();
+        if (titleFastPath && !filtered) {
+            List<Document> titled = titleLookup(query);
+            if (!titled.isEmpty()) {
+                log.debug("answering '{}' from the title index", query);
+                titleLookups.increment();
+                return titled.size() > topK ? titled.subList(0, topK) : titled;
+            }
+        }
+
+        SearchRequest.Builder request = SearchRequest.builder()
+                .query(query)
+                .topK(hybrid && !filtered ? Math.max(candidates, topK) : topK);
+        if (filtered) {
+            request.filterExpression(filter);
+        }
+        List<Document> semantic = vectorStore.similaritySearch(request.build());
+        if (!hybrid || filtered) {
+            vectorSearches.increment();
+            return semantic;
+        }
+        hybridSearches.increment();
+        return fuse(List.of(semantic, lexicalIndex.search(query, Math.max(candidates, topK))), topK);
+    }
+
+    /**
+     * Publishes {@code retrieval.queries{path=title|hybrid|vector}}, the queries answered by the
+     * title fast path, by fused search and by vector search alone.
+     */
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "title", titleLookups);
+        counter(registry, "hybrid", hybridSearches);
+        counter(registry, "vector", vectorSearches);
+    }
+
+    private static void counter(MeterRegistry registry, String path, LongAdder count) {
+        FunctionCounter.builder("retrieval.queries", count, LongAdder::sum)
+                .tag("path", path)
+                .description("retrieval queries by the path that answered them")
+                .register(registry);
+    }
+
+    private List<Document> titleLookup(String query) {
+        List<Document> titled = lexicalIndex.findByTitle(query);
+        if (!titled.isEmpty()) {
+            return titled;
+        }
+        List<Document> quoted = new ArrayList<>();
+        Matcher matcher = QUOTED.matcher(query);
+        while (matcher.find()) {
+            quoted.addAll(lexicalIndex.findByTitle(matcher.group(1)));
+        }
+        return quoted;
+    }
+
+    List<Document> fuse(List<List<Document>> rankings, int topK) {
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, Document> documents = new HashMap<>();
+        for (List<Document> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                Document document = ranking.get(rank);
+                scores.merge(document.getId(), 1.0 / (rrfK + rank + 1), Double::sum);
+                documents.putIfAbsent(document.getId(), document);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(topK)
+                .map(entry -> {
+                    Document document = documents.get(entry.getKey());
+                    return Document.builder()
+                            .id(document.getId())
+                            .text(document.getText())
+                            .metadata(document.getMetadata())
+                            .score(entry.getValue())
+                            .build();
+                })
+                .toList();
+    }
+}
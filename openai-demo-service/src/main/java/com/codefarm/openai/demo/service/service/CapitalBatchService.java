@@ -0,0 +1,206 @@
+package com.codefarm.openai.demo.service.service;
+
+import com.codefarm.openai.demo.service.batch.MicroBatcher;
+import com.codefarm.openai.demo.service.cache.QueryEmbeddingCache;
+import com.codefarm.openai.demo.service.cache.ResultCache;
+import com.codefarm.openai.demo.service.config.CapitalBatchProperties;
+import com.codefarm.openai.demo.service.metrics.LlmMetrics;
+import com.codefarm.openai.demo.service.model.CapitalRequest;
+import com.codefarm.openai.demo.service.model.CapitalResponseV2;
+import com.codefarm.openai.demo.service.prompt.PromptRegistry;
+import com.codefarm.openai.demo.service.prompt.StructuredOutput;
+import com.codefarm.openai.demo.service.resilience.Bulkhead;
+import com.codefarm.openai.demo.service.resilience.Bulkheads;
+import com.codefarm.openai.demo.service.resilience.SingleFlight;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Looks up many countries with few model calls: countries are packed into prompts of
+ * {@code capital.batch.prompt-size} that ask for a JSON array of {@link CapitalResponseV2}, and
+ * the prompts run concurrently. Single-country requests are micro-batched into the same prompts.
+ * Results share the {@code /capital/json/binding} cache. Metrics are tagged with the endpoint that
+ * started the call: {@code capital-json-binding} for micro-batched single requests,
+ * {@code capital-batch} for {@code /capital/batch}.
+ */
+@Service
+public class CapitalBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CapitalBatchService.class);
+
+    private static final String TEMPLATE = "get-capitals-with-json-binding-prompt";
+    private static final String BATCH_ENDPOINT = "capital-batch";
+    private static final String SINGLE_ENDPOINT = "capital-json-binding";
+
+    private final ChatModel chatModel;
+    private final OpenAiService openAiService;
+    private final ResultCache<CapitalResponseV2> cache;
+    private final Bulkhead bulkhead;
+    private final SingleFlight<Prompt, ChatResponse> singleFlight;
+    private final CapitalBatchProperties properties;
+    private final LlmMetrics metrics;
+    private final PromptTemplate promptTemplate;
+    private final StructuredOutput<List<CapitalResponseV2>> output;
+    private final MicroBatcher<String, CapitalResponseV2> microBatcher;
+
+    public CapitalBatchService(ChatModel chatModel, OpenAiService openAiService,
+                               ResultCache<CapitalResponseV2> capitalJsonBindingCache, Bulkheads bulkheads,
+                               SingleFlight<Prompt, ChatResponse> singleFlight, CapitalBatchProperties properties,
+                               PromptRegistry prompts, LlmMetrics metrics) {
+        this.chatModel = chatModel;
+        this.openAiService = openAiService;
+        this.cache = capitalJsonBindingCache;
+        this.bulkhead = bulkheads.get("capital");
+        this.singleFlight = singleFlight;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.promptTemplate = prompts.template(TEMPLATE);
+        this.output = prompts.output(new ParameterizedTypeReference<List<CapitalResponseV2>>() {
+        });
+        this.microBatcher = properties.getMicro().isEnabled()
+                ? new MicroBatcher<>("capital", properties.getMicro().getWindow(), properties.getPromptSize(),
+                        countries -> generate(SINGLE_ENDPOINT, countries))
+                : null;
+    }
+
+    /**
+     * Same as {@link OpenAiService#getCapitalWithJsonBinding}, but joins other single-country
+     * requests arriving within {@code capital.batch.micro.window} into one prompt.
+     */
+    public CapitalResponseV2 getCapital(CapitalRequest capitalRequest) {
+        String country = country(capitalRequest);
+        if (microBatcher == null) {
+            return openAiService.getCapitalWithJsonBinding(capitalRequest);
+        }
+        return cache.get(QueryEmbeddingCache.normalize(country), () -> microBatcher.submit(country));
+    }
+
+    /**
+     * Looks up every distinct country (compared after normalization), keyed by the first spelling
+     * seen, in request order. That spelling is what the model is asked about; cached countries are
+     * not sent to the model.
+     */
+    public Map<String, CapitalResponseV2> getCapitals(List<CapitalRequest> capitalRequests) {
+        Map<String, String> countries = new LinkedHashMap<>();
+        for (CapitalRequest capitalRequest : capitalRequests) {
+            String country = country(capitalRequest);
+            countries.putIfAbsent(QueryEmbeddingCache.normalize(country), country);
+        }
+        if (countries.size() > properties.getMaxCountries()) {
+            throw new InvalidRequestException("at most " + properties.getMaxCountries()
+                    + " distinct countries per batch, got " + countries.size());
+        }
+
+        Map<String, CapitalResponseV2> found = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        countries.forEach((normalized, country) -> cache.find(normalized)
+                .ifPresentOrElse(capital -> found.put(normalized, capital), () -> missing.add(country)));
+        generateAll(BATCH_ENDPOINT, missing, properties.getPromptSize()).forEach((country, capital) -> {
+            String normalized = QueryEmbeddingCache.normalize(country);
+            cache.put(normalized, capital);
+            found.put(normalized, capital);
+        });
+
+        Map<String, CapitalResponseV2> capitals = new LinkedHashMap<>();
+        countries.forEach((normalized, country) -> capitals.put(country, found.get(normalized)));
+        return capitals;
+    }
+
+    private static String country(CapitalRequest capitalRequest) {
+        if (capitalRequest == null || capitalRequest.country() == null || capitalRequest.country().isBlank()) {
+            throw new InvalidRequestException("country is required");
+        }
+        return capitalRequest.country().strip();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (microBatcher != null) {
+            microBatcher.close();
+        }
+    }
+
+    /**
+     * Splits {@code countries} into prompts of {@code promptSize} and runs them concurrently; the
+     * capital bulkhead bounds how many reach the model at once.
+     */
+    private Map<String, CapitalResponseV2> generateAll(String endpoint, List<String> countries, int promptSize) {
+        int size = Math.max(1, promptSize);
+        if (countries.size() <= size) {
+            return countries.isEmpty() ? Map.of() : generate(endpoint, countries);
+        }
+        Map<String, CapitalResponseV2> capitals = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Map<String, CapitalResponseV2>>> prompts = new ArrayList<>();
+            for (int from = 0; from < countries.size(); from += size) {
+                List<String> chunk = countries.subList(from, Math.min(from + size, countries.size()));
+                prompts.add(executor.submit(() -> generate(endpoint, chunk)));
+            }
+            for (Future<Map<String, CapitalResponseV2>> prompt : prompts) {
+                capitals.putAll(prompt.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while looking up capitals", e);
+        }
+        return capitals;
+    }
+
+    /**
+     * Sends one packed prompt. If the reply does not hold exactly one entry per country the
+     * countries are retried one per prompt, so a confused reply never gets mapped to the wrong
+     * country.
+     */
+    private Map<String, CapitalResponseV2> generate(String endpoint, List<String> countries) {
+        StringBuilder numbered = new StringBuilder();
+        for (int i = 0; i < countries.size(); i++) {
+            numbered.append(i + 1).append(". ").append(countries.get(i)).append('\n');
+        }
+        Prompt prompt = metrics.time(endpoint, TEMPLATE, "render",
+                () -> promptTemplate.create(Map.of("countries", numbered.toString(), "format", output.format())));
+        ChatResponse response = metrics.time(endpoint, TEMPLATE, "model",
+                () -> singleFlight.execute(prompt, () -> {
+                    ChatResponse generated = bulkhead.call(() -> chatModel.call(prompt));
+                    metrics.tokens(endpoint, TEMPLATE, generated);
+                    return generated;
+                }));
+
+        List<CapitalResponseV2> capitals = metrics.time(endpoint, TEMPLATE, "parse",
+                () -> output.convert(response.getResult().getOutput().getText()));
+        if (capitals == null || capitals.size() != countries.size()) {
+            int received = capitals == null ? 0 : capitals.size();
+            if (countries.size() == 1) {
+                throw new IllegalStateException("expected 1 capital for " + countries.get(0) + ", got " + received);
+            }
+            log.warn("expected {} capitals, got {}; retrying one country per prompt", countries.size(), received);
+            return generateAll(endpoint, countries, 1);
+        }
+
+        Map<String, CapitalResponseV2> byCountry = new LinkedHashMap<>();
+        for (int i = 0; i < countries.size(); i++) {
+            byCountry.put(countries.get(i), capitals.get(i));
+        }
+        return byCountry;
+    }
+}
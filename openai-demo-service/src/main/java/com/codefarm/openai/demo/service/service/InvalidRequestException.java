@@ -0,0 +1,12 @@
+package com.codefarm.openai.demo.service.service;
+
+/**
+ * Thrown when a request is rejected before any model call, e.g. a missing country or a batch
+ * over the size limit. The message is meant for the client.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -1,109 +1,236 @@
 package com.codefarm.openai.demo.service.service;
 
+import com.codefarm.openai.demo.service.cache.ResultCache;
+import com.codefarm.openai.demo.service.cache.SemanticCache;
+import com.codefarm.openai.demo.service.metrics.LlmMetrics;
 import com.codefarm.openai.demo.service.model.*;
+import com.codefarm.openai.demo.service.prompt.JsonField;
+import com.codefarm.openai.demo.service.prompt.PromptRegistry;
+import com.codefarm.openai.demo.service.prompt.StreamingObjectParser;
+import com.codefarm.openai.demo.service.prompt.StructuredOutput;
+import com.codefarm.openai.demo.service.resilience.Bulkhead;
+import com.codefarm.openai.demo.service.resilience.Bulkheads;
+import com.codefarm.openai.demo.service.resilience.SingleFlight;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.swagger.v3.oas.annotations.servers.Server;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.ai.converter.BeanOutputConverter;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class OpenAiService {
 
+    private static final Set<String> CAPITAL_FIELDS = Arrays.stream(CapitalResponseV2.class.getRecordComponents())
+            .map(RecordComponent::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
     private final Logger logger = LoggerFactory.getLogger(OpenAiService.class);
     private final ChatModel chatModel;
-
-    @Value("classpath:templates/get-capital-prompt.st")
-    private Resource capitalPrompt;
-
-    @Value("classpath:templates/get-capital-with-info-prompt.st")
-    private Resource capitalPromptWithInfo;
-
-    @Value("classpath:templates/get-capital-with-json-prompt.st")
-    private Resource capitalPromptWithJson;
-
-    @Value("classpath:templates/get-capital-with-json-binding-prompt.st")
-    private Resource capitalPromptWithJsonBinding;
-
-
-    @Autowired
-    private ObjectMapper objectMapper;
-
-    public OpenAiService(ChatModel chatModel) {
+    private final SemanticCache<String> answerCache;
+    private final ResultCache<CapitalResponse> capitalCache;
+    private final ResultCache<CapitalResponse> capitalInfoCache;
+    private final ResultCache<CapitalResponse> capitalJsonCache;
+    private final ResultCache<CapitalResponseV2> capitalJsonBindingCache;
+    private final Bulkhead askBulkhead;
+    private final Bulkhead capitalBulkhead;
+    private final SingleFlight<Prompt, ChatResponse> singleFlight;
+
+    private final PromptRegistry prompts;
+    private final StructuredOutput<CapitalResponseV2> capitalOutput;
+    private final ObjectMapper objectMapper;
+    private final StreamingObjectParser streamingParser;
+    private final LlmMetrics metrics;
+
+    public OpenAiService(ChatModel chatModel, SemanticCache<String> answerCache,
+                         @Qualifier("capitalCache") ResultCache<CapitalResponse> capitalCache,
+                         @Qualifier("capitalInfoCache") ResultCache<CapitalResponse> capitalInfoCache,
+                         @Qualifier("capitalJsonCache") ResultCache<CapitalResponse> capitalJsonCache,
+                         ResultCache<CapitalResponseV2> capitalJsonBindingCache, Bulkheads bulkheads,
+                         SingleFlight<Prompt, ChatResponse> singleFlight, PromptRegistry prompts,
+                         ObjectMapper objectMapper, LlmMetrics metrics) {
         this.chatModel = chatModel;
+        this.answerCache = answerCache;
+        this.capitalCache = capitalCache;
+        this.capitalInfoCache = capitalInfoCache;
+        this.capitalJsonCache = capitalJsonCache;
+        this.capitalJsonBindingCache = capitalJsonBindingCache;
+        this.askBulkhead = bulkheads.get("ask");
+        this.capitalBulkhead = bulkheads.get("capital");
+        this.singleFlight = singleFlight;
+        this.prompts = prompts;
+        this.capitalOutput = prompts.output(CapitalResponseV2.class);
+        this.objectMapper = objectMapper;
+        this.streamingParser = new StreamingObjectParser(objectMapper);
+        this.metrics = metrics;
     }
 
     public String getAnswer(String question){
-        PromptTemplate promptTemplate = new PromptTemplate(question);
+        return answerCache.get(question, () -> generateAnswer(question));
+    }
+
+    /**
+     * Streams the answer as the model produces it; cancelling the returned flux cancels the
+     * model stream. Cached answers are sent as a single token.
+     */
+    public Flux<String> streamAnswer(String question) {
+        return Flux.defer(() -> {
+            Optional<String> cached = answerCache.find(question);
+            if (cached.isPresent()) {
+                return Flux.just(cached.get());
+            }
+            StringBuilder text = new StringBuilder();
+            Prompt prompt = metrics.time("ask-stream", "none", "render", () -> new PromptTemplate(question).create());
+            return metrics.timeStream("ask-stream", "none", askBulkhead.stream(() -> chatModel.stream(prompt)))
+                    .mapNotNull(OpenAiService::text)
+                    .doOnNext(text::append)
+                    .doOnComplete(() -> answerCache.put(question, text.toString()));
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
 
-        ChatResponse response = chatModel.call(promptTemplate.create());
+    private String generateAnswer(String question) {
+        Prompt prompt = metrics.time("ask", "none", "render", () -> new PromptTemplate(question).create());
+
+        ChatResponse response = call("ask", "none", askBulkhead, prompt);
 
         return response.getResult().getOutput().getText();
     }
 
     public CapitalResponse getCapital(CapitalRequest capitalRequest) {
-        PromptTemplate promptTemplate = new PromptTemplate(capitalPrompt);
-        Prompt prompt =
-                promptTemplate.create(Map.of("country", capitalRequest.country()));
+        return capitalCache.get(capitalRequest.country(), () -> generateCapital(capitalRequest));
+    }
+
+    private CapitalResponse generateCapital(CapitalRequest capitalRequest) {
+        Prompt prompt = render("capital", "get-capital-prompt", Map.of("country", capitalRequest.country()));
 
-        ChatResponse response = chatModel.call(prompt);
+        ChatResponse response = call("capital", "get-capital-prompt", capitalBulkhead, prompt);
 
         return new CapitalResponse(response.getResult().getOutput().getText());
     }
 
     public CapitalResponse getCapitalWithInfo(CapitalRequest capitalRequest) {
-        PromptTemplate promptTemplate = new PromptTemplate(capitalPromptWithInfo);
-        Prompt prompt =
-                promptTemplate.create(Map.of("country", capitalRequest.country()));
+        return capitalInfoCache.get(capitalRequest.country(), () -> generateCapitalWithInfo(capitalRequest));
+    }
+
+    private CapitalResponse generateCapitalWithInfo(CapitalRequest capitalRequest) {
+        Prompt prompt = render("capital-info", "get-capital-with-info-prompt",
+                Map.of("country", capitalRequest.country()));
 
-        ChatResponse response = chatModel.call(prompt);
+        ChatResponse response = call("capital-info", "get-capital-with-info-prompt", capitalBulkhead, prompt);
 
         return new CapitalResponse(response.getResult().getOutput().getText());
     }
 
     public CapitalResponse getCapitalWithJson(CapitalRequest capitalRequest) {
-        PromptTemplate promptTemplate = new PromptTemplate(capitalPromptWithJson);
-        Prompt prompt =
-                promptTemplate.create(Map.of("country", capitalRequest.country()));
+        return capitalJsonCache.get(capitalRequest.country(), () -> generateCapitalWithJson(capitalRequest));
+    }
+
+    private CapitalResponse generateCapitalWithJson(CapitalRequest capitalRequest) {
+        Prompt prompt = render("capital-json", "get-capital-with-json-prompt",
+                Map.of("country", capitalRequest.country()));
 
-        ChatResponse response = chatModel.call(prompt);
+        ChatResponse response = call("capital-json", "get-capital-with-json-prompt", capitalBulkhead, prompt);
 
         logger.info("response in json - {}", response.getResult().getOutput().getText());
 
-        try {
-            JsonNode node = objectMapper.readTree(response.getResult().getOutput().getText());
-            return new CapitalResponse(node.get("capital").asText());
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
+        return metrics.time("capital-json", "get-capital-with-json-prompt", "parse", () -> {
+            try {
+                JsonNode node = objectMapper.readTree(response.getResult().getOutput().getText());
+                return new CapitalResponse(node.get("capital").asText());
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
     public CapitalResponseV2 getCapitalWithJsonBinding(CapitalRequest capitalRequest) {
+        return capitalJsonBindingCache.get(capitalRequest.country(),
+                () -> generateCapitalWithJsonBinding(capitalRequest));
+    }
+
+    private CapitalResponseV2 generateCapitalWithJsonBinding(CapitalRequest capitalRequest) {
 
-        BeanOutputConverter<CapitalResponseV2> converter = new BeanOutputConverter<>(CapitalResponseV2.class);
-        String format = converter.getFormat();
-        logger.info("Json format - {}", format);
-        PromptTemplate promptTemplate = new PromptTemplate(capitalPromptWithJsonBinding);
-        Prompt prompt =
-                promptTemplate.create(Map.of("country", capitalRequest.country(),
-                        "format", format));
+        Prompt prompt = render("capital-json-binding", "get-capital-with-json-binding-prompt",
+                Map.of("country", capitalRequest.country(), "format", capitalOutput.format()));
 
-        ChatResponse response = chatModel.call(prompt);
+        ChatResponse response = call("capital-json-binding", "get-capital-with-json-binding-prompt", capitalBulkhead,
+                prompt);
 
         logger.info("response in json - {}", response.getResult().getOutput().getText());
 
-        return converter.convert(response.getResult().getOutput().getText());
+        return metrics.time("capital-json-binding", "get-capital-with-json-binding-prompt", "parse",
+                () -> capitalOutput.convert(response.getResult().getOutput().getText()));
+    }
+
+    /**
+     * Streams the fields of the {@code /capital/json/binding} answer, each as soon as the model has
+     * finished generating it. The stream fails, cancelling the model call, as soon as the output
+     * stops being the expected JSON object. An answer with every field is cached; a cached answer
+     * is sent field by field at once.
+     */
+    public Flux<JsonField> streamCapitalWithJsonBinding(CapitalRequest capitalRequest) {
+        return Flux.defer(() -> {
+            Optional<CapitalResponseV2> cached = capitalJsonBindingCache.find(capitalRequest.country());
+            if (cached.isPresent()) {
+                ObjectNode node = objectMapper.valueToTree(cached.get());
+                return Flux.fromIterable(node::fields).map(field -> new JsonField(field.getKey(), field.getValue()));
+            }
+            Prompt prompt = render("capital-json-binding-stream", "get-capital-with-json-binding-prompt",
+                    Map.of("country", capitalRequest.country(), "format", capitalOutput.format()));
+            ObjectNode answer = objectMapper.createObjectNode();
+            Flux<String> chunks = metrics.timeStream("capital-json-binding-stream",
+                            "get-capital-with-json-binding-prompt", capitalBulkhead.stream(() -> chatModel.stream(prompt)))
+                    .mapNotNull(OpenAiService::text);
+            return streamingParser.fields(chunks)
+                    .filter(field -> CAPITAL_FIELDS.contains(field.name()))
+                    .doOnNext(field -> answer.set(field.name(), field.value()))
+                    .doOnComplete(() -> {
+                        // a reply cut short (e.g. by the token limit) can still end the stream cleanly
+                        if (CAPITAL_FIELDS.stream().allMatch(answer::hasNonNull)) {
+                            capitalJsonBindingCache.put(capitalRequest.country(),
+                                    objectMapper.convertValue(answer, CapitalResponseV2.class));
+                        } else {
+                            logger.warn("not caching the streamed capital of {}, it only has {}",
+                                    capitalRequest.country(), answer.properties().stream().map(Map.Entry::getKey).toList());
+                        }
+                    });
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static String text(ChatResponse response) {
+        return response.getResult() != null && response.getResult().getOutput() != null
+                ? response.getResult().getOutput().getText()
+                : null;
+    }
+
+    private Prompt render(String endpoint, String template, Map<String, Object> variables) {
+        return metrics.time(endpoint, template, "render", () -> prompts.create(template, variables));
+    }
+
+    /**
+     * Identical prompts in flight at the same time share one model call; only that call takes a
+     * bulkhead permit and has its tokens counted. The model stage is timed for every caller.
+     */
+    private ChatResponse call(String endpoint, String template, Bulkhead bulkhead, Prompt prompt) {
+        return metrics.time(endpoint, template, "model", () -> singleFlight.execute(prompt, () -> {
+            ChatResponse response = bulkhead.call(() -> chatModel.call(prompt));
+            metrics.tokens(endpoint, template, response);
+            return response;
+        }));
     }
 }
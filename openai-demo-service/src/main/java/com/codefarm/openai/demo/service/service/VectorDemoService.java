@@ -1,54 +1,145 @@
 package com.codefarm.openai.demo.service.service;
 
+import com.codefarm.openai.demo.service.cache.SemanticCache;
+import com.codefarm.openai.demo.service.config.RetrievalProperties;
+import com.codefarm.openai.demo.service.ingestion.VectorStoreReindexedEvent;
+import com.codefarm.openai.demo.service.metrics.LlmMetrics;
 import com.codefarm.openai.demo.service.model.Answer;
 import com.codefarm.openai.demo.service.model.Question;
+import com.codefarm.openai.demo.service.prompt.PromptRegistry;
+import com.codefarm.openai.demo.service.resilience.Bulkhead;
+import com.codefarm.openai.demo.service.resilience.Bulkheads;
+import com.codefarm.openai.demo.service.resilience.SingleFlight;
+import com.codefarm.openai.demo.service.retrieval.ContextPacker;
+import com.codefarm.openai.demo.service.retrieval.HybridRetriever;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class VectorDemoService {
 
+    private static final Logger log = LoggerFactory.getLogger(VectorDemoService.class);
+
+    private static final String TEMPLATE = "rag-prompt-template";
+
     private final ChatModel chatModel;
-    private final SimpleVectorStore vectorStore;
+    private final HybridRetriever retriever;
+    private final ContextPacker contextPacker;
+    private final RetrievalProperties.Context context;
+    private final SemanticCache<Answer> answerCache;
+    private final Bulkhead bulkhead;
+    private final SingleFlight<Prompt, ChatResponse> singleFlight;
 
-    @Value("classpath:templates/rag-prompt-template.st")
-    private Resource ragPromptTemplate;
+    private final LlmMetrics metrics;
 
-    public VectorDemoService(ChatModel chatModel, SimpleVectorStore vectorStore) {
+    private final PromptTemplate ragPromptTemplate;
+
+    public VectorDemoService(ChatModel chatModel, HybridRetriever retriever, SemanticCache<Answer> answerCache,
+                             Bulkheads bulkheads, SingleFlight<Prompt, ChatResponse> singleFlight,
+                             PromptRegistry prompts, ContextPacker contextPacker,
+                             RetrievalProperties retrievalProperties, LlmMetrics metrics) {
         this.chatModel = chatModel;
-        this.vectorStore = vectorStore;
+        this.retriever = retriever;
+        this.contextPacker = contextPacker;
+        this.context = retrievalProperties.getContext();
+        this.answerCache = answerCache;
+        this.bulkhead = bulkheads.get("vector-answer");
+        this.singleFlight = singleFlight;
+        this.metrics = metrics;
+        this.ragPromptTemplate = prompts.template(TEMPLATE);
     }
 
+    /**
+     * Filtered questions bypass the answer cache, which is keyed by the question alone.
+     */
     public Answer getAnswer(Question question) {
+        if (question.hasFilter()) {
+            return generateAnswer(question);
+        }
+        return answerCache.get(question.question(), () -> generateAnswer(question));
+    }
+
+    /**
+     * Streams the answer as the model produces it. Retrieval runs on a worker thread once the
+     * client subscribes; cancelling the returned flux cancels the model stream. A complete
+     * answer is stored in the answer cache, and a cached answer is sent as a single token.
+     */
+    public Flux<String> streamAnswer(Question question) {
+        return Flux.defer(() -> {
+            Optional<Answer> cached = question.hasFilter() ? Optional.empty() : answerCache.find(question.question());
+            if (cached.isPresent()) {
+                return Flux.just(cached.get().question());
+            }
+            StringBuilder text = new StringBuilder();
+            Prompt prompt = prompt(question, "vector-answer-stream");
+            return metrics.timeStream("vector-answer-stream", TEMPLATE, bulkhead.stream(() -> chatModel.stream(prompt)))
+                    .mapNotNull(VectorDemoService::text)
+                    .doOnNext(text::append)
+                    .doOnComplete(() -> {
+                        if (!question.hasFilter()) {
+                            answerCache.put(question.question(), new Answer(text.toString()));
+                        }
+                    });
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @EventListener
+    public void onReindexed(VectorStoreReindexedEvent event) {
+        answerCache.invalidateAll();
+    }
 
-        List<Document> documents = vectorStore.similaritySearch(
-                SearchRequest.builder().query(question.question()).topK(5).build()
-        );
+    private Answer generateAnswer(Question question) {
+        Prompt prompt = prompt(question, "vector-answer");
+        // identical prompts (same question and retrieved documents) in flight together share one call
+        ChatResponse response = metrics.time("vector-answer", TEMPLATE, "model",
+                () -> singleFlight.execute(prompt, () -> {
+                    ChatResponse generated = bulkhead.call(() -> chatModel.call(prompt));
+                    metrics.tokens("vector-answer", TEMPLATE, generated);
+                    return generated;
+                }));
+
+        return new Answer(response.getResult().getOutput().getText());
+    }
+
+    /**
+     * Retrieves candidate chunks and packs the most relevant, non-redundant ones into the
+     * endpoint's token budget.
+     */
+    private Prompt prompt(Question question, String endpoint) {
+        List<Document> retrieved = metrics.time(endpoint, TEMPLATE, "retrieve",
+                () -> retriever.retrieve(question.question(), question.filter(), context.getCandidates()));
+        List<Document> documents = metrics.time(endpoint, TEMPLATE, "pack",
+                () -> contextPacker.pack(retrieved, context.maxTokens(endpoint)));
 
         List<String> cottentList = documents.stream().map(Document::getText).toList();
-        cottentList.forEach(System.out::println);
+        String joined = String.join("\n\n", cottentList);
+        metrics.context(endpoint, retrieved.size(), documents.size(), contextPacker.countTokens(joined));
+        log.debug("packed {} of {} retrieved chunks for '{}'", documents.size(), retrieved.size(), question.question());
 
-        PromptTemplate promptTemplate = new PromptTemplate(ragPromptTemplate);
-        Prompt prompt = promptTemplate.create(
+        return metrics.time(endpoint, TEMPLATE, "render", () -> ragPromptTemplate.create(
                 Map.of(
                         "input", question.question(),
-                "documents", String.join(",", cottentList)
+                "documents", joined
                 )
-        );
-
-        ChatResponse response = chatModel.call(prompt);
+        ));
+    }
 
-        return new Answer(response.getResult().getOutput().getText());
+    private static String text(ChatResponse response) {
+        return response.getResult() != null && response.getResult().getOutput() != null
+                ? response.getResult().getOutput().getText()
+                : null;
     }
 }
@@ -0,0 +1,111 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
+
+/**
+ * Brute-force index that scores every live row. Used as the exact baseline for the
+ * approximate indexes.
+ * <p>
+ * Given an executor, large indexes are split into contiguous node ranges scored in parallel:
+ * each partition keeps its own fixed-size {@link TopK} heap and the heaps are merged at the end,
+ * so neither the scan nor the merge allocates per candidate or sorts more than {@code topK}
+ * entries. The calling thread scores the first partition itself.
+ */
+public class ExactVectorIndex implements VectorIndex {
+
+    private final VectorBlock vectors;
+    private final BitSet live = new BitSet();
+    private final ExecutorService executor;
+    private final int partitions;
+    private final int minPartitionSize;
+
+    public ExactVectorIndex(VectorBlock vectors) {
+        this(vectors, null, 1, Integer.MAX_VALUE);
+    }
+
+    public ExactVectorIndex(VectorBlock vectors, ExecutorService executor, int partitions, int minPartitionSize) {
+        this.vectors = vectors;
+        this.executor = executor;
+        this.partitions = executor == null ? 1 : Math.max(1, partitions);
+        this.minPartitionSize = Math.max(1, minPartitionSize);
+    }
+
+    public static Factory factory(ExecutorService executor, int partitions, int minPartitionSize) {
+        return vectors -> new ExactVectorIndex(vectors, executor, partitions, minPartitionSize);
+    }
+
+    @Override
+    public void add(int node) {
+        live.set(node);
+    }
+
+    @Override
+    public void remove(int node) {
+        live.clear(node);
+    }
+
+    @Override
+    public List<ScoredNode> search(float[] query, int topK, IntPredicate accept) {
+        return scanAll(query, topK, live, accept);
+    }
+
+    /**
+     * Scores only the live nodes in {@code candidates}, partitioned like a full scan.
+     */
+    @Override
+    public List<ScoredNode> search(float[] query, int topK, BitSet candidates, IntPredicate accept) {
+        BitSet nodes = (BitSet) candidates.clone();
+        nodes.and(live);
+        return scanAll(query, topK, nodes, accept);
+    }
+
+    private List<ScoredNode> scanAll(float[] query, int topK, BitSet nodes, IntPredicate accept) {
+        int end = nodes.length();
+        int count = Math.min(partitions, Math.max(1, nodes.cardinality() / minPartitionSize));
+        if (count == 1) {
+            return scan(vectors, query, topK, nodes, accept, 0, end).drain();
+        }
+
+        long step = (end + (long) count - 1) / count;
+        List<Future<TopK>> futures = new ArrayList<>(count - 1);
+        try {
+            for (int p = 1; p < count; p++) {
+                int from = (int) Math.min(end, p * step);
+                int to = (int) Math.min(end, (p + 1) * step);
+                futures.add(executor.submit(() -> scan(vectors, query, topK, nodes, accept, from, to)));
+            }
+            TopK best = scan(vectors, query, topK, nodes, accept, 0, (int) Math.min(end, step));
+            for (Future<TopK> future : futures) {
+                best.addAll(future.get());
+            }
+            return best.drain();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted during vector search", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime
+                    : new IllegalStateException("vector search partition failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    /**
+     * Scores the accepted nodes of {@code nodes} in {@code [from, to)} into a fresh heap.
+     */
+    static TopK scan(VectorBlock vectors, float[] query, int topK, BitSet nodes, IntPredicate accept, int from, int to) {
+        TopK best = new TopK(topK);
+        for (int node = nodes.nextSetBit(from); node >= 0 && node < to; node = nodes.nextSetBit(node + 1)) {
+            if (accept.test(node)) {
+                best.offer(node, vectors.dot(node, query));
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,292 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph (Malkov &amp; Yashunin) over the rows of a {@link VectorBlock}.
+ * <ul>
+ *     <li>{@code m} - links per node on the upper layers, {@code 2 * m} on layer 0</li>
+ *     <li>{@code efConstruction} - candidate list size while inserting</li>
+ *     <li>{@code efSearch} - candidate list size while querying, raised to {@code topK} when smaller</li>
+ * </ul>
+ * Removed nodes stay in the graph as tombstones so the graph remains navigable; they are dropped
+ * when the owning store is reloaded or compacted. Inserts must not run concurrently with searches.
+ * <p>
+ * Candidate nodes passed as a bitmap must have been added to this index.
+ */
+public class HnswVectorIndex implements VectorIndex {
+
+    private static final Comparator<ScoredNode> BY_SCORE = Comparator.comparingDouble(ScoredNode::score);
+
+    private final VectorBlock vectors;
+    private final int m;
+    private final int maxConnectionsLayer0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private final ThreadLocal<VisitedSet> visited = ThreadLocal.withInitial(VisitedSet::new);
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswVectorIndex(VectorBlock vectors, int m, int efConstruction, int efSearch) {
+        this(vectors, m, efConstruction, efSearch, 42L);
+    }
+
+    public HnswVectorIndex(VectorBlock vectors, int m, int efConstruction, int efSearch, long seed) {
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be at least 2");
+        }
+        this.vectors = vectors;
+        this.m = m;
+        this.maxConnectionsLayer0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new Random(seed);
+    }
+
+    public static Factory factory(int m, int efConstruction, int efSearch) {
+        return vectors -> new HnswVectorIndex(vectors, m, efConstruction, efSearch);
+    }
+
+    @Override
+    public void add(int node) {
+        while (nodes.size() <= node) {
+            nodes.add(null);
+        }
+        int level = randomLevel();
+        Node inserted = new Node(level, m, maxConnectionsLayer0);
+        nodes.set(node, inserted);
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] query = vectors.row(node);
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > level; layer--) {
+            current = greedyClosest(query, current, layer);
+        }
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            List<ScoredNode> candidates = searchLayer(query, current, efConstruction, layer, n -> n != node);
+            int maxConnections = layer == 0 ? maxConnectionsLayer0 : m;
+            for (ScoredNode neighbour : selectNeighbours(candidates, m)) {
+                inserted.link(layer, neighbour.node());
+                connect(neighbour.node(), node, layer, maxConnections);
+            }
+            if (!candidates.isEmpty()) {
+                current = candidates.get(0).node();
+            }
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    @Override
+    public void remove(int node) {
+        deleted.set(node);
+    }
+
+    @Override
+    public List<ScoredNode> search(float[] query, int topK, IntPredicate accept) {
+        return search(query, topK, efSearch, accept);
+    }
+
+    /**
+     * Small candidate sets are scored directly: a filtered graph walk costs about
+     * {@code ef * 2m} distance computations and can miss matches that sit behind non-matching
+     * nodes, while scoring the candidates is exact and no more expensive.
+     */
+    @Override
+    public List<ScoredNode> search(float[] query, int topK, BitSet candidates, IntPredicate accept) {
+        if (candidates.cardinality() <= (long) Math.max(efSearch, topK) * maxConnectionsLayer0) {
+            BitSet nodes = (BitSet) candidates.clone();
+            nodes.andNot(deleted);
+            return ExactVectorIndex.scan(vectors, query, topK, nodes, accept, 0, nodes.length()).drain();
+        }
+        return search(query, topK, efSearch, node -> candidates.get(node) && accept.test(node));
+    }
+
+    public List<ScoredNode> search(float[] query, int topK, int ef, IntPredicate accept) {
+        if (entryPoint < 0 || topK <= 0) {
+            return List.of();
+        }
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > 0; layer--) {
+            current = greedyClosest(query, current, layer);
+        }
+        List<ScoredNode> found = searchLayer(query, current, Math.max(ef, topK), 0,
+                n -> !deleted.get(n) && accept.test(n));
+        return found.size() > topK ? List.copyOf(found.subList(0, topK)) : found;
+    }
+
+    private int greedyClosest(float[] query, int entry, int layer) {
+        int best = entry;
+        float bestScore = vectors.dot(entry, query);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node node = nodes.get(best);
+            int[] links = node.links[layer];
+            for (int i = 0; i < node.counts[layer]; i++) {
+                float score = vectors.dot(links[i], query);
+                if (score > bestScore) {
+                    best = links[i];
+                    bestScore = score;
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    private List<ScoredNode> searchLayer(float[] query, int entry, int ef, int layer, IntPredicate accept) {
+        VisitedSet seen = visited.get();
+        seen.reset(nodes.size());
+        PriorityQueue<ScoredNode> candidates = new PriorityQueue<>(BY_SCORE.reversed());
+        PriorityQueue<ScoredNode> results = new PriorityQueue<>(BY_SCORE);
+
+        ScoredNode start = new ScoredNode(entry, vectors.dot(entry, query));
+        seen.visit(entry);
+        candidates.add(start);
+        if (accept.test(entry)) {
+            results.add(start);
+        }
+
+        while (!candidates.isEmpty()) {
+            ScoredNode candidate = candidates.poll();
+            if (results.size() >= ef && candidate.score() < results.peek().score()) {
+                break;
+            }
+            Node node = nodes.get(candidate.node());
+            int[] links = node.links[layer];
+            for (int i = 0; i < node.counts[layer]; i++) {
+                int neighbour = links[i];
+                if (!seen.visit(neighbour)) {
+                    continue;
+                }
+                float score = vectors.dot(neighbour, query);
+                if (results.size() < ef || score > results.peek().score()) {
+                    ScoredNode scored = new ScoredNode(neighbour, score);
+                    candidates.add(scored);
+                    if (accept.test(neighbour)) {
+                        results.add(scored);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<ScoredNode> ordered = new ArrayList<>(results);
+        ordered.sort(BY_SCORE.reversed());
+        return ordered;
+    }
+
+    /**
+     * Neighbour selection heuristic: a candidate is kept only if it is closer to the base node than
+     * to any neighbour already kept, which spreads links across clusters. Pruned candidates fill
+     * any remaining slots. Expects candidates ordered by descending similarity to the base node.
+     */
+    private List<ScoredNode> selectNeighbours(List<ScoredNode> candidates, int limit) {
+        List<ScoredNode> selected = new ArrayList<>(limit);
+        List<ScoredNode> pruned = new ArrayList<>();
+        for (ScoredNode candidate : candidates) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            boolean diverse = true;
+            for (ScoredNode kept : selected) {
+                if (vectors.dot(candidate.node(), kept.node()) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : pruned).add(candidate);
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < limit; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    private void connect(int target, int neighbour, int layer, int maxConnections) {
+        Node node = nodes.get(target);
+        if (node.counts[layer] < maxConnections) {
+            node.link(layer, neighbour);
+            return;
+        }
+        List<ScoredNode> candidates = new ArrayList<>(maxConnections + 1);
+        for (int i = 0; i < node.counts[layer]; i++) {
+            int existing = node.links[layer][i];
+            candidates.add(new ScoredNode(existing, vectors.dot(target, existing)));
+        }
+        candidates.add(new ScoredNode(neighbour, vectors.dot(target, neighbour)));
+        candidates.sort(BY_SCORE.reversed());
+        node.counts[layer] = 0;
+        for (ScoredNode kept : selectNeighbours(candidates, maxConnections)) {
+            node.link(layer, kept.node());
+        }
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private static final class Node {
+
+        final int[][] links;
+        final int[] counts;
+
+        Node(int level, int m, int maxConnectionsLayer0) {
+            links = new int[level + 1][];
+            counts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                links[layer] = new int[layer == 0 ? maxConnectionsLayer0 : m];
+            }
+        }
+
+        void link(int layer, int neighbour) {
+            links[layer][counts[layer]++] = neighbour;
+        }
+    }
+
+    private static final class VisitedSet {
+
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int size) {
+            if (marks.length < size) {
+                marks = Arrays.copyOf(marks, Math.max(size, marks.length * 2));
+            }
+            if (++epoch == 0) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean visit(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
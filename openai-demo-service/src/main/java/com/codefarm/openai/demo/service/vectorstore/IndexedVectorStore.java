@@ -0,0 +1,410 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStoreContent;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory {@link org.springframework.ai.vectorstore.VectorStore} that keeps embeddings in a
+ * {@link VectorBlock} and delegates nearest-neighbour search to a pluggable {@link VectorIndex}.
+ * The JSON file format of {@link #save(File)} / {@link #load(File)} is the one used by
+ * {@link org.springframework.ai.vectorstore.SimpleVectorStore}, so existing vector files can be reused;
+ * {@link #saveSnapshot(Path)} / {@link #loadSnapshot(Path)} use the binary {@link VectorSnapshot} format.
+ * <p>
+ * Loading a snapshot only maps it and reads the ids. Its rows are added to the vector index (for
+ * HNSW, the graph is rebuilt) and their metadata decoded into the {@link MetadataIndex} on the first
+ * search, so startup only pays for mapping the file and reading the ids.
+ * <p>
+ * Deleting or replacing a document leaves its row in the block; once such rows outnumber the live
+ * ones (and there are at least {@value #COMPACTION_MIN_DEAD_ROWS}) the live entries are copied into a
+ * fresh block and index. Compacting a store loaded from a snapshot moves its rows to the heap.
+ */
+public class IndexedVectorStore extends AbstractObservationVectorStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexedVectorStore.class);
+
+    static final int COMPACTION_MIN_DEAD_ROWS = 1_024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    private final FilterExpressionConverter filterExpressionConverter = new ListAwareFilterExpressionConverter();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final VectorIndex.Factory indexFactory;
+    private final List<String> filterableFields;
+
+    private VectorBlock vectors;
+    private VectorIndex index;
+    private VectorSnapshot snapshot;
+    private List<Document> documents;
+    private BitSet live;
+    private Map<String, Integer> nodesById;
+    private MetadataIndex metadataIndex;
+    private volatile boolean snapshotIndexed = true;
+    private final Object snapshotIndexLock = new Object();
+
+    protected IndexedVectorStore(IndexedVectorStoreBuilder builder) {
+        super(builder);
+        this.indexFactory = builder.indexFactory;
+        this.filterableFields = builder.filterableFields;
+        reset();
+    }
+
+    public static IndexedVectorStoreBuilder builder(EmbeddingModel embeddingModel) {
+        return new IndexedVectorStoreBuilder(embeddingModel);
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(),
+                batchingStrategy);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                insert(documents.get(i), embeddings.get(i));
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            idList.forEach(this::remove);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        float[] query = VectorBlock.normalize(embeddingModel.embed(request.getQuery()));
+        lock.readLock().lock();
+        try {
+            List<ScoredNode> hits = search(query, request);
+            List<Document> results = new ArrayList<>(hits.size());
+            for (ScoredNode hit : hits) {
+                if (hit.score() < request.getSimilarityThreshold()) {
+                    break;
+                }
+                Document document = document(hit.node());
+                results.add(Document.builder()
+                        .id(document.getId())
+                        .text(document.getText())
+                        .metadata(document.getMetadata())
+                        .score((double) hit.score())
+                        .build());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rows in the vector block, including those of removed documents that were not reclaimed yet.
+     */
+    int rows() {
+        lock.readLock().lock();
+        try {
+            return vectors.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Publishes the number of stored vectors as {@code vectorstore.size}.
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("vectorstore.size", this, IndexedVectorStore::size)
+                .description("vectors in the store")
+                .register(registry);
+    }
+
+    public void save(File file) {
+        Map<String, SimpleVectorStoreContent> contents = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            nodesById.forEach((id, node) -> {
+                Document document = document(node);
+                contents.put(id, new SimpleVectorStoreContent(id, document.getText(), document.getMetadata(),
+                        vectors.row(node)));
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, contents);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write vector store to " + file, e);
+        }
+    }
+
+    public void load(File file) {
+        Map<String, SimpleVectorStoreContent> contents;
+        try {
+            contents = objectMapper.readValue(file, new TypeReference<HashMap<String, SimpleVectorStoreContent>>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read vector store from " + file, e);
+        }
+        lock.writeLock().lock();
+        try {
+            reset();
+            contents.values().forEach(content -> insert(
+                    new Document(content.getId(), content.getText(), content.getMetadata()), content.getEmbedding()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("loaded {} vectors from {}", contents.size(), file);
+    }
+
+    /**
+     * Writes the live entries to a binary {@link VectorSnapshot}.
+     */
+    public void saveSnapshot(Path path) {
+        lock.readLock().lock();
+        try {
+            Iterator<SimpleVectorStoreContent> contents = nodesById.entrySet().stream()
+                    .map(entry -> {
+                        Document document = document(entry.getValue());
+                        return new SimpleVectorStoreContent(entry.getKey(), document.getText(),
+                                document.getMetadata(), vectors.row(entry.getValue()));
+                    })
+                    .iterator();
+            VectorSnapshot.write(path, nodesById.size(), vectors.dimensions(), contents);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write vector snapshot to " + path, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the contents of this store with a memory-mapped {@link VectorSnapshot}. Embeddings
+     * stay in the mapping and are copied row by row when scored; documents added afterwards go to
+     * the heap. The mapped rows are indexed on the first search.
+     */
+    public void loadSnapshot(Path path) {
+        lock.writeLock().lock();
+        try {
+            reset();
+            snapshot = VectorSnapshot.open(path);
+            vectors = snapshot.vectors();
+            index = indexFactory.create(vectors);
+            documents = new ArrayList<>(Collections.nCopies(snapshot.count(), null));
+            snapshot.forEachId((id, node) -> {
+                nodesById.put(id, node);
+                live.set(node);
+            });
+            snapshotIndexed = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read vector snapshot from " + path, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("mapped {} vectors from {}", nodesById.size(), path);
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+                .dimensions(vectors.dimensions())
+                .collectionName("in-memory-index")
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    private void reset() {
+        if (snapshot != null) {
+            try {
+                snapshot.close();
+            } catch (IOException e) {
+                logger.warn("failed to close vector snapshot", e);
+            }
+            snapshot = null;
+        }
+        vectors = new VectorBlock();
+        index = indexFactory.create(vectors);
+        documents = new ArrayList<>();
+        live = new BitSet();
+        nodesById = new HashMap<>();
+        metadataIndex = new MetadataIndex(filterableFields);
+        snapshotIndexed = true;
+    }
+
+    /**
+     * Adds the live rows of the loaded snapshot to the vector index and, if any field is filterable,
+     * decodes their metadata into the metadata index. Runs once, under the read lock of the first
+     * search; concurrent searches wait for it. Nodes added or removed before that are already
+     * reflected in {@code live} and the indexes, and neither index depends on insertion order.
+     */
+    private void indexSnapshot() {
+        if (snapshotIndexed) {
+            return;
+        }
+        synchronized (snapshotIndexLock) {
+            if (snapshotIndexed) {
+                return;
+            }
+            int rows = snapshot.count();
+            for (int node = live.nextSetBit(0); node >= 0 && node < rows; node = live.nextSetBit(node + 1)) {
+                index.add(node);
+                if (!metadataIndex.isEmpty()) {
+                    metadataIndex.add(node, snapshot.document(node).getMetadata());
+                }
+            }
+            snapshotIndexed = true;
+        }
+    }
+
+    private void compactIfNeeded() {
+        int dead = vectors.size() - nodesById.size();
+        if (dead < COMPACTION_MIN_DEAD_ROWS || dead <= nodesById.size()) {
+            return;
+        }
+        List<Integer> nodes = new ArrayList<>(nodesById.values());
+        Collections.sort(nodes);
+        List<Document> liveDocuments = new ArrayList<>(nodes.size());
+        List<float[]> liveRows = new ArrayList<>(nodes.size());
+        for (int node : nodes) {
+            liveDocuments.add(document(node));
+            liveRows.add(vectors.row(node));
+        }
+        reset();
+        for (int i = 0; i < liveDocuments.size(); i++) {
+            insert(liveDocuments.get(i), liveRows.get(i));
+        }
+        logger.info("compacted vector store, reclaimed {} rows of removed documents", dead);
+    }
+
+    private Document document(int node) {
+        Document document = documents.get(node);
+        return document != null ? document : snapshot.document(node);
+    }
+
+    private void insert(Document document, float[] embedding) {
+        remove(document.getId());
+        int node = vectors.append(embedding);
+        documents.add(new Document(document.getId(), document.getText(), document.getMetadata()));
+        nodesById.put(document.getId(), node);
+        live.set(node);
+        index.add(node);
+        metadataIndex.add(node, document.getMetadata());
+    }
+
+    private void remove(String id) {
+        Integer node = nodesById.remove(id);
+        if (node != null) {
+            documents.set(node, null);
+            live.clear(node);
+            index.remove(node);
+        }
+    }
+
+    /**
+     * Without a filter every live node is a candidate. With one, the parts of the filter on
+     * indexed metadata fields are turned into a candidate bitmap first, so the vector index only
+     * visits matching nodes; whatever remains is evaluated per candidate with SpEL.
+     */
+    private List<ScoredNode> search(float[] query, SearchRequest request) {
+        indexSnapshot();
+        if (!request.hasFilterExpression()) {
+            return index.search(query, request.getTopK(), live::get);
+        }
+        MetadataIndex.Selection selection = metadataIndex.select(request.getFilterExpression(), live);
+        IntPredicate residual = selection.residual() == null ? node -> true : spelPredicate(selection.residual());
+        if (selection.candidates() != null) {
+            return index.search(query, request.getTopK(), selection.candidates(), residual);
+        }
+        return index.search(query, request.getTopK(), node -> live.get(node) && residual.test(node));
+    }
+
+    private IntPredicate spelPredicate(Filter.Expression filterExpression) {
+        Expression expression = expressionParser.parseExpression(
+                filterExpressionConverter.convertExpression(filterExpression));
+        return node -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", document(node).getMetadata());
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    public static final class IndexedVectorStoreBuilder extends AbstractVectorStoreBuilder<IndexedVectorStoreBuilder> {
+
+        private VectorIndex.Factory indexFactory = ExactVectorIndex::new;
+
+        private List<String> filterableFields = List.of();
+
+        private IndexedVectorStoreBuilder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        public IndexedVectorStoreBuilder indexFactory(VectorIndex.Factory indexFactory) {
+            this.indexFactory = indexFactory;
+            return this;
+        }
+
+        /**
+         * Metadata fields kept in a {@link MetadataIndex}, so filters on them select candidates
+         * before any vector is scored.
+         */
+        public IndexedVectorStoreBuilder filterableFields(Collection<String> filterableFields) {
+            this.filterableFields = List.copyOf(filterableFields);
+            return this;
+        }
+
+        @Override
+        public IndexedVectorStore build() {
+            return new IndexedVectorStore(this);
+        }
+    }
+}
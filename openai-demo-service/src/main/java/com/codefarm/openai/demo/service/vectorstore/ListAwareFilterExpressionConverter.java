@@ -0,0 +1,42 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+
+/**
+ * SpEL filter converter that gives list-valued metadata the membership semantics of
+ * {@link MetadataIndex}: {@code EQ}/{@code NE} test whether the list contains the value and
+ * {@code IN}/{@code NIN} whether it shares any element with the values, so
+ * {@code genres == 'Drama'} matches movies that have Drama among their genres. Spring AI's
+ * converter compares the whole list with the value instead, which never matches. Scalar fields
+ * are converted as before.
+ */
+public class ListAwareFilterExpressionConverter extends SimpleVectorStoreFilterExpressionConverter {
+
+    private static final String IS_LIST = " instanceof T(java.util.Collection)";
+
+    @Override
+    protected void doExpression(Filter.Expression expression, StringBuilder context) {
+        if (!(expression.left() instanceof Filter.Key)) {
+            super.doExpression(expression, context);
+            return;
+        }
+        String key = convertOperand(expression.left());
+        String listTest = switch (expression.type()) {
+            case EQ -> key + ".contains(" + convertOperand(expression.right()) + ")";
+            case NE -> "!" + key + ".contains(" + convertOperand(expression.right()) + ")";
+            // the values convert to an inline list, {'a','b'}
+            case IN -> "!T(java.util.Collections).disjoint(" + key + ", " + convertOperand(expression.right()) + ")";
+            case NIN -> "T(java.util.Collections).disjoint(" + key + ", " + convertOperand(expression.right()) + ")";
+            default -> null;
+        };
+        if (listTest == null) {
+            super.doExpression(expression, context);
+            return;
+        }
+        StringBuilder scalarTest = new StringBuilder();
+        super.doExpression(expression, scalarTest);
+        context.append('(').append(key).append(IS_LIST).append(" ? ").append(listTest)
+                .append(" : ").append(scalarTest).append(')');
+    }
+}
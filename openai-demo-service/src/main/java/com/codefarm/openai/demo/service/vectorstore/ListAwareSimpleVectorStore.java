@@ -0,0 +1,61 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.SimpleVectorStoreContent;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * {@link SimpleVectorStore} whose filters go through {@link ListAwareFilterExpressionConverter},
+ * so a filter matches the same documents as on the indexed stores. Search is otherwise the same
+ * brute-force cosine scan, and the JSON file format is unchanged.
+ */
+public class ListAwareSimpleVectorStore extends SimpleVectorStore {
+
+    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    private final FilterExpressionConverter filterExpressionConverter = new ListAwareFilterExpressionConverter();
+
+    protected ListAwareSimpleVectorStore(SimpleVectorStoreBuilder builder) {
+        super(builder);
+    }
+
+    public static ListAwareSimpleVectorStore create(EmbeddingModel embeddingModel) {
+        return new ListAwareSimpleVectorStore(SimpleVectorStore.builder(embeddingModel));
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        Predicate<SimpleVectorStoreContent> filter = filter(request);
+        float[] query = embeddingModel.embed(request.getQuery());
+        return store.values().stream()
+                .filter(filter)
+                .map(content -> content.toDocument(EmbeddingMath.cosineSimilarity(query, content.getEmbedding())))
+                .filter(document -> document.getScore() >= request.getSimilarityThreshold())
+                .sorted(Comparator.comparing(Document::getScore).reversed())
+                .limit(request.getTopK())
+                .toList();
+    }
+
+    private Predicate<SimpleVectorStoreContent> filter(SearchRequest request) {
+        if (!request.hasFilterExpression()) {
+            return content -> true;
+        }
+        Expression expression = expressionParser.parseExpression(
+                filterExpressionConverter.convertExpression(request.getFilterExpression()));
+        return content -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", content.getMetadata());
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+}
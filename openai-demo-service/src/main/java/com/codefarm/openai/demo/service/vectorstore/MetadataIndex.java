@@ -0,0 +1,379 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar copy of selected metadata fields, used to turn a filter expression into a bitmap of
+ * candidate nodes before any vector is scored.
+ * <ul>
+ *     <li>string, boolean and list-valued fields get an inverted index: one sorted posting list of
+ *     nodes per distinct value (for lists, per element), so a lookup costs the size of the
+ *     matching postings, not of the store</li>
+ *     <li>numeric fields get a {@code double} column plus a range index (nodes sorted by value,
+ *     rebuilt lazily after writes), so a range is two binary searches</li>
+ * </ul>
+ * {@code EQ}, {@code NE}, {@code IN} and {@code NIN} on list-valued fields test membership, e.g.
+ * {@code genres == 'Drama'} matches movies that have Drama among their genres. Removed nodes are
+ * not purged; selections are always intersected with the live nodes. A field whose values mix
+ * numbers and other types is not indexed. Writes must not run concurrently with
+ * {@link #select}; concurrent selects are safe.
+ */
+public class MetadataIndex {
+
+    private final Set<String> fields;
+    private final Map<String, Column> columns = new HashMap<>();
+
+    public MetadataIndex(Collection<String> fields) {
+        this.fields = Set.copyOf(fields);
+    }
+
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    public void add(int node, Map<String, Object> metadata) {
+        for (String field : fields) {
+            Object value = metadata.get(field);
+            if (value == null) {
+                continue;
+            }
+            Column column = columns.computeIfAbsent(field,
+                    key -> value instanceof Number ? new NumericColumn() : new TermColumn());
+            if (!column.add(node, value)) {
+                columns.put(field, Unindexed.INSTANCE);
+            }
+        }
+    }
+
+    /**
+     * Splits {@code expression} into the part answered by the indexes and the rest. The top-level
+     * {@code AND} conjuncts that only touch indexed fields are evaluated into
+     * {@link Selection#candidates()}; the others are returned as {@link Selection#residual()},
+     * to be tested per candidate.
+     */
+    public Selection select(Filter.Expression expression, BitSet live) {
+        List<Filter.Expression> conjuncts = new ArrayList<>();
+        flattenAnd(expression, conjuncts);
+        BitSet candidates = null;
+        Filter.Expression residual = null;
+        for (Filter.Expression conjunct : conjuncts) {
+            BitSet matches = evaluate(conjunct, live);
+            if (matches == null) {
+                residual = residual == null ? conjunct : new Filter.Expression(Filter.ExpressionType.AND, residual, conjunct);
+            } else if (candidates == null) {
+                candidates = matches;
+                candidates.and(live);
+            } else {
+                candidates.and(matches);
+            }
+        }
+        return new Selection(candidates, residual);
+    }
+
+    /**
+     * @param candidates nodes that satisfy the indexed part, already restricted to live nodes, or
+     *                   {@code null} if nothing could be answered from the indexes
+     * @param residual   the part still to be tested per candidate, or {@code null}
+     */
+    public record Selection(BitSet candidates, Filter.Expression residual) {
+    }
+
+    private static void flattenAnd(Filter.Expression expression, List<Filter.Expression> conjuncts) {
+        if (expression.type() == Filter.ExpressionType.AND) {
+            flattenAnd(expression(expression.left()), conjuncts);
+            flattenAnd(expression(expression.right()), conjuncts);
+        } else {
+            conjuncts.add(expression);
+        }
+    }
+
+    private static Filter.Expression expression(Filter.Operand operand) {
+        return operand instanceof Filter.Group group ? group.content() : (Filter.Expression) operand;
+    }
+
+    /**
+     * Returns a fresh bitmap of the matching nodes, or {@code null} if the expression touches a
+     * field or comparison the indexes cannot answer.
+     */
+    private BitSet evaluate(Filter.Expression expression, BitSet live) {
+        switch (expression.type()) {
+            case AND, OR -> {
+                BitSet left = evaluate(expression(expression.left()), live);
+                BitSet right = left == null ? null : evaluate(expression(expression.right()), live);
+                if (right == null) {
+                    return null;
+                }
+                if (expression.type() == Filter.ExpressionType.AND) {
+                    left.and(right);
+                } else {
+                    left.or(right);
+                }
+                return left;
+            }
+            case NOT -> {
+                return complement(evaluate(expression(expression.left()), live), live);
+            }
+            case NE -> {
+                return complement(compare(Filter.ExpressionType.EQ, expression), live);
+            }
+            case NIN -> {
+                return complement(compare(Filter.ExpressionType.IN, expression), live);
+            }
+            default -> {
+                return compare(expression.type(), expression);
+            }
+        }
+    }
+
+    private BitSet compare(Filter.ExpressionType type, Filter.Expression expression) {
+        if (!(expression.left() instanceof Filter.Key key) || !(expression.right() instanceof Filter.Value value)) {
+            return null;
+        }
+        Column column = columns.get(unquote(key.key()));
+        if (column == null) {
+            // an indexed field that no document has: nothing matches
+            return fields.contains(unquote(key.key())) ? new BitSet() : null;
+        }
+        if (type == Filter.ExpressionType.IN) {
+            if (!(value.value() instanceof Collection<?> values)) {
+                return null;
+            }
+            BitSet union = new BitSet();
+            for (Object element : values) {
+                BitSet matches = column.compare(Filter.ExpressionType.EQ, element);
+                if (matches == null) {
+                    return null;
+                }
+                union.or(matches);
+            }
+            return union;
+        }
+        return column.compare(type, value.value());
+    }
+
+    private static BitSet complement(BitSet matches, BitSet live) {
+        if (matches == null) {
+            return null;
+        }
+        BitSet complement = (BitSet) live.clone();
+        complement.andNot(matches);
+        return complement;
+    }
+
+    private static String unquote(String key) {
+        if (key.length() >= 2 && (key.startsWith("'") && key.endsWith("'") || key.startsWith("\"") && key.endsWith("\""))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+
+    private interface Column {
+
+        /**
+         * Returns {@code false} if the value does not fit this column's type.
+         */
+        boolean add(int node, Object value);
+
+        /**
+         * {@code EQ}, {@code GT}, {@code GTE}, {@code LT} or {@code LTE}; {@code null} if unsupported.
+         */
+        BitSet compare(Filter.ExpressionType type, Object value);
+    }
+
+    private enum Unindexed implements Column {
+        INSTANCE;
+
+        @Override
+        public boolean add(int node, Object value) {
+            return true;
+        }
+
+        @Override
+        public BitSet compare(Filter.ExpressionType type, Object value) {
+            return null;
+        }
+    }
+
+    private static final class TermColumn implements Column {
+
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        @Override
+        public boolean add(int node, Object value) {
+            if (value instanceof Collection<?> values) {
+                for (Object element : values) {
+                    if (element instanceof Number || element == null || element instanceof Collection<?>) {
+                        return false;
+                    }
+                    postings.computeIfAbsent(element.toString(), key -> new Postings()).add(node);
+                }
+                return true;
+            }
+            if (value instanceof Number) {
+                return false;
+            }
+            postings.computeIfAbsent(value.toString(), key -> new Postings()).add(node);
+            return true;
+        }
+
+        @Override
+        public BitSet compare(Filter.ExpressionType type, Object value) {
+            if (type != Filter.ExpressionType.EQ || value instanceof Number || value instanceof Collection<?>) {
+                return null;
+            }
+            BitSet matches = new BitSet();
+            Postings nodes = postings.get(value.toString());
+            if (nodes != null) {
+                nodes.addTo(matches);
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Append-only list of node ids.
+     */
+    private static final class Postings {
+
+        private int[] nodes = new int[4];
+        private int size;
+
+        void add(int node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(nodes[i]);
+            }
+        }
+    }
+
+    private static final class NumericColumn implements Column {
+
+        private double[] values = new double[0];
+        private final BitSet present = new BitSet();
+        private volatile Sorted sorted;
+
+        @Override
+        public boolean add(int node, Object value) {
+            if (!(value instanceof Number number)) {
+                return false;
+            }
+            if (node >= values.length) {
+                values = Arrays.copyOf(values, Math.max(node + 1, values.length * 2));
+            }
+            values[node] = number.doubleValue();
+            present.set(node);
+            sorted = null;
+            return true;
+        }
+
+        @Override
+        public BitSet compare(Filter.ExpressionType type, Object value) {
+            if (!(value instanceof Number number)) {
+                return null;
+            }
+            double bound = number.doubleValue();
+            Sorted index = sorted();
+            int from = 0;
+            int to = index.values.length;
+            switch (type) {
+                case EQ -> {
+                    from = index.lowerBound(bound);
+                    to = index.upperBound(bound);
+                }
+                case GT -> from = index.upperBound(bound);
+                case GTE -> from = index.lowerBound(bound);
+                case LT -> to = index.lowerBound(bound);
+                case LTE -> to = index.upperBound(bound);
+                default -> {
+                    return null;
+                }
+            }
+            BitSet matches = new BitSet();
+            for (int i = from; i < to; i++) {
+                matches.set(index.nodes[i]);
+            }
+            return matches;
+        }
+
+        private Sorted sorted() {
+            Sorted index = sorted;
+            if (index == null) {
+                synchronized (this) {
+                    index = sorted;
+                    if (index == null) {
+                        index = Sorted.of(values, present);
+                        sorted = index;
+                    }
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Range index: the present nodes ordered by value, with the values alongside.
+     */
+    private record Sorted(double[] values, int[] nodes) {
+
+        static Sorted of(double[] column, BitSet present) {
+            Integer[] order = new Integer[present.cardinality()];
+            int i = 0;
+            for (int node = present.nextSetBit(0); node >= 0; node = present.nextSetBit(node + 1)) {
+                order[i++] = node;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(column[a], column[b]));
+            double[] values = new double[order.length];
+            int[] nodes = new int[order.length];
+            for (int j = 0; j < order.length; j++) {
+                nodes[j] = order[j];
+                values[j] = column[order[j]];
+            }
+            return new Sorted(values, nodes);
+        }
+
+        /** First position whose value is {@code >= bound}. */
+        int lowerBound(double bound) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < bound) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /** First position whose value is {@code > bound}. */
+        int upperBound(double bound) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= bound) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
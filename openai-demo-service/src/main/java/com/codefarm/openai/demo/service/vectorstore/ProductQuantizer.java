@@ -0,0 +1,155 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Product quantization: the vector is split into {@code subspaces} contiguous slices and each
+ * slice is replaced by the index of its nearest centroid in a per-slice codebook of up to 256
+ * entries trained with k-means, so a vector costs one byte per subspace. Queries are scored
+ * asymmetrically: the query stays in float32 and a per-query table of slice/centroid dot
+ * products turns scoring a code into {@code subspaces} table lookups.
+ */
+public class ProductQuantizer implements VectorQuantizer {
+
+    private static final int CENTROIDS = 256;
+
+    private final int subspaces;
+    private final int iterations;
+    private final long seed;
+
+    private int[] bounds;
+    private int centroids;
+    private float[][] codebooks;
+
+    public ProductQuantizer(int subspaces, int iterations, long seed) {
+        if (subspaces < 1) {
+            throw new IllegalArgumentException("subspaces must be positive");
+        }
+        this.subspaces = subspaces;
+        this.iterations = iterations;
+        this.seed = seed;
+    }
+
+    @Override
+    public void train(VectorBlock vectors, int[] sample) {
+        int dimensions = vectors.dimensions();
+        int slices = Math.min(subspaces, dimensions);
+        bounds = new int[slices + 1];
+        for (int m = 0; m <= slices; m++) {
+            bounds[m] = m * dimensions / slices;
+        }
+        float[][] rows = new float[sample.length][];
+        for (int i = 0; i < sample.length; i++) {
+            rows[i] = vectors.row(sample[i]);
+        }
+        centroids = Math.min(CENTROIDS, sample.length);
+        codebooks = new float[slices][];
+        IntStream.range(0, slices).parallel().forEach(m -> codebooks[m] = kMeans(rows, m));
+    }
+
+    @Override
+    public int codeSize() {
+        return codebooks.length;
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] codes, int offset) {
+        for (int m = 0; m < codebooks.length; m++) {
+            codes[offset + m] = (byte) nearest(codebooks[m], vector, bounds[m], bounds[m + 1] - bounds[m]);
+        }
+    }
+
+    @Override
+    public Scorer scorer(float[] query) {
+        int slices = codebooks.length;
+        float[] table = new float[slices * CENTROIDS];
+        for (int m = 0; m < slices; m++) {
+            int start = bounds[m];
+            int width = bounds[m + 1] - start;
+            float[] codebook = codebooks[m];
+            for (int c = 0; c < centroids; c++) {
+                float sum = 0f;
+                for (int i = 0; i < width; i++) {
+                    sum += codebook[c * width + i] * query[start + i];
+                }
+                table[m * CENTROIDS + c] = sum;
+            }
+        }
+        return (codes, offset) -> {
+            float sum = 0f;
+            for (int m = 0; m < slices; m++) {
+                sum += table[m * CENTROIDS + (codes[offset + m] & 0xFF)];
+            }
+            return sum;
+        };
+    }
+
+    /**
+     * Lloyd's k-means over one slice of the training rows; empty clusters are re-seeded from a
+     * random row.
+     */
+    private float[] kMeans(float[][] rows, int m) {
+        int start = bounds[m];
+        int width = bounds[m + 1] - start;
+        Random random = new Random(seed + m);
+        float[] codebook = new float[centroids * width];
+        int[] order = IntStream.range(0, rows.length).toArray();
+        for (int c = 0; c < centroids; c++) {
+            int pick = c + random.nextInt(rows.length - c);
+            int swap = order[c];
+            order[c] = order[pick];
+            order[pick] = swap;
+            System.arraycopy(rows[order[c]], start, codebook, c * width, width);
+        }
+
+        int[] assignment = new int[rows.length];
+        float[] sums = new float[centroids * width];
+        int[] counts = new int[centroids];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            Arrays.fill(sums, 0f);
+            Arrays.fill(counts, 0);
+            boolean changed = false;
+            for (int r = 0; r < rows.length; r++) {
+                int c = nearest(codebook, rows[r], start, width);
+                changed |= iteration == 0 || c != assignment[r];
+                assignment[r] = c;
+                counts[c]++;
+                for (int i = 0; i < width; i++) {
+                    sums[c * width + i] += rows[r][start + i];
+                }
+            }
+            if (!changed) {
+                break;
+            }
+            for (int c = 0; c < centroids; c++) {
+                if (counts[c] == 0) {
+                    System.arraycopy(rows[random.nextInt(rows.length)], start, codebook, c * width, width);
+                    continue;
+                }
+                for (int i = 0; i < width; i++) {
+                    codebook[c * width + i] = sums[c * width + i] / counts[c];
+                }
+            }
+        }
+        return codebook;
+    }
+
+    private int nearest(float[] codebook, float[] vector, int start, int width) {
+        int best = 0;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int c = 0; c < centroids; c++) {
+            float distance = 0f;
+            for (int i = 0; i < width; i++) {
+                float d = codebook[c * width + i] - vector[start + i];
+                distance += d * d;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+}
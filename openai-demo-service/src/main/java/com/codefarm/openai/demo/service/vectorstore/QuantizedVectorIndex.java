@@ -0,0 +1,139 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Scan over compressed {@link VectorQuantizer} codes instead of the float32 rows. The scan keeps
+ * the best {@code topK * rerankFactor} candidates by approximate score, then re-scores only those
+ * against the full-precision {@link VectorBlock} and returns the exact top K.
+ * <p>
+ * The quantizer is trained once {@code trainingSize} rows have been added, on a sample of them;
+ * until then (small stores) searches fall back to the exact scan. Combined with a memory-mapped
+ * {@link VectorSnapshot}, the heap holds only the codes while the re-rank reads a handful of
+ * rows from the mapping.
+ */
+public class QuantizedVectorIndex implements VectorIndex {
+
+    private final VectorBlock vectors;
+    private final VectorQuantizer quantizer;
+    private final int trainingSize;
+    private final int rerankFactor;
+    private final ExactVectorIndex fallback;
+    private final BitSet live = new BitSet();
+
+    private boolean trained;
+    private byte[] codes = new byte[0];
+
+    public QuantizedVectorIndex(VectorBlock vectors, VectorQuantizer quantizer, int trainingSize, int rerankFactor) {
+        this.vectors = vectors;
+        this.quantizer = quantizer;
+        this.trainingSize = Math.max(1, trainingSize);
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.fallback = new ExactVectorIndex(vectors);
+    }
+
+    public static Factory factory(Supplier<VectorQuantizer> quantizer, int trainingSize, int rerankFactor) {
+        return vectors -> new QuantizedVectorIndex(vectors, quantizer.get(), trainingSize, rerankFactor);
+    }
+
+    @Override
+    public void add(int node) {
+        live.set(node);
+        if (trained) {
+            encode(node);
+            return;
+        }
+        fallback.add(node);
+        if (live.cardinality() >= trainingSize) {
+            train();
+        }
+    }
+
+    @Override
+    public void remove(int node) {
+        live.clear(node);
+        if (!trained) {
+            fallback.remove(node);
+        }
+    }
+
+    @Override
+    public List<ScoredNode> search(float[] query, int topK, IntPredicate accept) {
+        if (!trained) {
+            return fallback.search(query, topK, accept);
+        }
+        return scan(query, topK, live, accept);
+    }
+
+    /**
+     * Scans the codes of the live nodes in {@code candidates} only.
+     */
+    @Override
+    public List<ScoredNode> search(float[] query, int topK, BitSet candidates, IntPredicate accept) {
+        if (!trained) {
+            return fallback.search(query, topK, candidates, accept);
+        }
+        BitSet nodes = (BitSet) candidates.clone();
+        nodes.and(live);
+        return scan(query, topK, nodes, accept);
+    }
+
+    private List<ScoredNode> scan(float[] query, int topK, BitSet nodes, IntPredicate accept) {
+        int codeSize = quantizer.codeSize();
+        VectorQuantizer.Scorer scorer = quantizer.scorer(query);
+        int candidates = topK * rerankFactor;
+        TopK best = new TopK(candidates);
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            if (accept.test(node)) {
+                best.offer(node, scorer.score(codes, node * codeSize));
+            }
+        }
+        TopK reranked = new TopK(topK);
+        for (ScoredNode candidate : best.drain()) {
+            reranked.offer(candidate.node(), vectors.dot(candidate.node(), query));
+        }
+        return reranked.drain();
+    }
+
+    /**
+     * Bytes of code per stored vector, or {@code 0} before training.
+     */
+    public int codeSize() {
+        return trained ? quantizer.codeSize() : 0;
+    }
+
+    private void train() {
+        int[] nodes = live.stream().toArray();
+        int[] sample = nodes;
+        if (nodes.length > trainingSize) {
+            Random random = new Random(nodes.length);
+            for (int i = 0; i < trainingSize; i++) {
+                int pick = i + random.nextInt(nodes.length - i);
+                int swap = nodes[i];
+                nodes[i] = nodes[pick];
+                nodes[pick] = swap;
+            }
+            sample = Arrays.copyOf(nodes, trainingSize);
+        }
+        quantizer.train(vectors, sample);
+        trained = true;
+        live.stream().forEach(this::encode);
+    }
+
+    private void encode(int node) {
+        int codeSize = quantizer.codeSize();
+        long required = (long) (node + 1) * codeSize;
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("quantized codes exceed 2 GB; use more compact codes (fewer subspaces)");
+        }
+        if (required > codes.length) {
+            codes = Arrays.copyOf(codes, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, 2L * codes.length)));
+        }
+        quantizer.encode(vectors.row(node), codes, node * codeSize);
+    }
+}
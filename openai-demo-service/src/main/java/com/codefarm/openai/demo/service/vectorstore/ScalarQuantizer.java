@@ -0,0 +1,70 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import java.util.Arrays;
+
+/**
+ * int8 scalar quantization: every dimension is mapped linearly from its trained [min, max] range
+ * onto 256 levels, a 4x reduction over float32.
+ */
+public class ScalarQuantizer implements VectorQuantizer {
+
+    private float[] min;
+    private float[] scale;
+
+    @Override
+    public void train(VectorBlock vectors, int[] sample) {
+        int dimensions = vectors.dimensions();
+        float[] lower = new float[dimensions];
+        float[] upper = new float[dimensions];
+        Arrays.fill(lower, Float.POSITIVE_INFINITY);
+        Arrays.fill(upper, Float.NEGATIVE_INFINITY);
+        for (int node : sample) {
+            float[] vector = vectors.row(node);
+            for (int i = 0; i < dimensions; i++) {
+                lower[i] = Math.min(lower[i], vector[i]);
+                upper[i] = Math.max(upper[i], vector[i]);
+            }
+        }
+        min = lower;
+        scale = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            scale[i] = upper[i] > lower[i] ? (upper[i] - lower[i]) / 255f : 1f;
+        }
+    }
+
+    @Override
+    public int codeSize() {
+        return min.length;
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] codes, int offset) {
+        for (int i = 0; i < min.length; i++) {
+            int level = Math.round((vector[i] - min[i]) / scale[i]);
+            codes[offset + i] = (byte) (Math.max(0, Math.min(255, level)) - 128);
+        }
+    }
+
+    /**
+     * {@code q . x ~= sum(q[i] * (min[i] + scale[i] * (code[i] + 128)))}, which splits into a
+     * per-query constant plus a dot product of the scaled query with the signed codes.
+     */
+    @Override
+    public Scorer scorer(float[] query) {
+        int dimensions = min.length;
+        float[] weights = new float[dimensions];
+        float bias = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            weights[i] = query[i] * scale[i];
+            bias += query[i] * min[i] + 128 * weights[i];
+        }
+        float constant = bias;
+        return (codes, offset) -> {
+            float sum = constant;
+            for (int i = 0; i < dimensions; i++) {
+                sum += weights[i] * codes[offset + i];
+            }
+            return sum;
+        };
+    }
+}
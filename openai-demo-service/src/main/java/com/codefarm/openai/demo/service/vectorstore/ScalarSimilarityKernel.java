@@ -0,0 +1,22 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+/**
+ * Plain loop; the JIT may auto-vectorize it, but the floating-point reduction order usually
+ * prevents that.
+ */
+class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
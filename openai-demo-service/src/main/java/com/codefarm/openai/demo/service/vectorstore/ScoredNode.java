@@ -0,0 +1,4 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+public record ScoredNode(int node, float score) {
+}
@@ -0,0 +1,49 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@code jdk.incubator.vector} kernel using the widest lanes the CPU supports and four
+ * independent FMA accumulators to hide the FMA latency. Only loaded by {@link SimilarityKernels}
+ * when the incubator module is present.
+ */
+class SimdSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        int lanes = SPECIES.length();
+        FloatVector acc0 = FloatVector.zero(SPECIES);
+        FloatVector acc1 = FloatVector.zero(SPECIES);
+        FloatVector acc2 = FloatVector.zero(SPECIES);
+        FloatVector acc3 = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = length - 4 * lanes; i <= bound; i += 4 * lanes) {
+            acc0 = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), acc0);
+            acc1 = FloatVector.fromArray(SPECIES, a, aOffset + i + lanes)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i + lanes), acc1);
+            acc2 = FloatVector.fromArray(SPECIES, a, aOffset + i + 2 * lanes)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i + 2 * lanes), acc2);
+            acc3 = FloatVector.fromArray(SPECIES, a, aOffset + i + 3 * lanes)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i + 3 * lanes), acc3);
+        }
+        for (int bound = length - lanes; i <= bound; i += lanes) {
+            acc0 = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), acc0);
+        }
+        float sum = acc0.add(acc1).add(acc2.add(acc3)).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+}
@@ -0,0 +1,12 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+/**
+ * Dot product of two float slices. Vectors are stored at unit length, so this is also their
+ * cosine similarity. Obtain the implementation for the running JVM from {@link SimilarityKernels}.
+ */
+public interface SimilarityKernel {
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    String name();
+}
@@ -0,0 +1,47 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Picks the {@link SimilarityKernel} once per JVM: the SIMD kernel when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} (the Gradle build does this for {@code bootRun} and
+ * tests), the scalar loop otherwise or when {@code -Dvector.kernel=scalar} is set.
+ */
+public final class SimilarityKernels {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarityKernels.class);
+
+    private static final SimilarityKernel SCALAR = new ScalarSimilarityKernel();
+    private static final SimilarityKernel PREFERRED = detect();
+
+    private SimilarityKernels() {
+    }
+
+    public static SimilarityKernel preferred() {
+        return PREFERRED;
+    }
+
+    public static SimilarityKernel scalar() {
+        return SCALAR;
+    }
+
+    private static SimilarityKernel detect() {
+        if ("scalar".equals(System.getProperty("vector.kernel"))) {
+            return SCALAR;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.info("jdk.incubator.vector not available, using scalar similarity kernel");
+            return SCALAR;
+        }
+        try {
+            SimilarityKernel simd = new SimdSimilarityKernel();
+            simd.dot(new float[1], 0, new float[1], 0, 1);
+            log.info("using {} similarity kernel", simd.name());
+            return simd;
+        } catch (LinkageError | RuntimeException e) {
+            log.warn("SIMD similarity kernel unavailable, using scalar kernel", e);
+            return SCALAR;
+        }
+    }
+}
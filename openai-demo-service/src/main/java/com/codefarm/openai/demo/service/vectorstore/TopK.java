@@ -0,0 +1,86 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-capacity min-heap of the best {@code k} (node, score) pairs, stored in two primitive
+ * arrays so offering a candidate never allocates. The root is the weakest kept score, so a
+ * candidate that cannot make the cut is rejected with a single comparison.
+ */
+final class TopK {
+
+    private final int[] nodes;
+    private final float[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.nodes = new int[Math.max(0, k)];
+        this.scores = new float[Math.max(0, k)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void offer(int node, float score) {
+        if (size < nodes.length) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= score) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        } else if (size > 0 && score > scores[0]) {
+            siftDown(node, score);
+        }
+    }
+
+    void addAll(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.nodes[i], other.scores[i]);
+        }
+    }
+
+    /**
+     * Returns the kept pairs ordered by descending score; only the {@code k} kept entries are
+     * sorted. The heap is left empty.
+     */
+    List<ScoredNode> drain() {
+        ScoredNode[] sorted = new ScoredNode[size];
+        while (size > 0) {
+            sorted[size - 1] = new ScoredNode(nodes[0], scores[0]);
+            size--;
+            if (size > 0) {
+                siftDown(nodes[size], scores[size]);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(sorted));
+    }
+
+    private void siftDown(int node, float score) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && scores[child + 1] < scores[child]) {
+                child++;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+}
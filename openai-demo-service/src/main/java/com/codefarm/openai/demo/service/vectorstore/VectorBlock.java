@@ -0,0 +1,141 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Contiguous, row-major block of unit-length float32 vectors. Rows are normalized on the way
+ * in so every index can score with a plain dot product, which then equals cosine similarity.
+ * <p>
+ * A block may start with a read-only prefix memory-mapped from a {@link VectorSnapshot}; rows
+ * appended later live on the heap after it. Not thread-safe; callers guard it with their own lock.
+ */
+public class VectorBlock {
+
+    private static final int INITIAL_ROWS = 256;
+
+    private static final SimilarityKernel KERNEL = SimilarityKernels.preferred();
+
+    /** Mapped rows are copied here so they can be scored with the array kernel. */
+    private static final ThreadLocal<float[]> SCRATCH = ThreadLocal.withInitial(() -> new float[0]);
+
+    private int dimensions;
+    private float[] data = new float[0];
+    private int size;
+
+    private FloatBuffer[] mapped = new FloatBuffer[0];
+    private int mappedRows;
+    private int rowsPerChunk = 1;
+
+    public VectorBlock() {
+    }
+
+    /**
+     * Maps {@code rows} little-endian float32 rows starting at {@code offset}. Large blocks are
+     * split into several mappings because a single mapping is limited to 2 GB.
+     */
+    public static VectorBlock map(FileChannel channel, long offset, int rows, int dimensions) throws IOException {
+        VectorBlock block = new VectorBlock();
+        block.dimensions = dimensions;
+        block.size = rows;
+        block.mappedRows = rows;
+        block.rowsPerChunk = Math.max(1, Integer.MAX_VALUE / (Math.max(1, dimensions) * Float.BYTES));
+        int chunks = rows == 0 ? 0 : (rows - 1) / block.rowsPerChunk + 1;
+        block.mapped = new FloatBuffer[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int chunkRows = Math.min(block.rowsPerChunk, rows - chunk * block.rowsPerChunk);
+            long position = offset + (long) chunk * block.rowsPerChunk * dimensions * Float.BYTES;
+            block.mapped[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            (long) chunkRows * dimensions * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer();
+        }
+        return block;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public int append(float[] vector) {
+        if (dimensions == 0) {
+            dimensions = vector.length;
+        }
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "expected vector of " + dimensions + " dimensions but got " + vector.length);
+        }
+        ensureCapacity(size - mappedRows + 1);
+        float norm = norm(vector);
+        int offset = (size - mappedRows) * dimensions;
+        for (int i = 0; i < dimensions; i++) {
+            data[offset + i] = norm == 0f ? 0f : vector[i] / norm;
+        }
+        return size++;
+    }
+
+    public float dot(int row, float[] query) {
+        if (row < mappedRows) {
+            float[] copy = SCRATCH.get();
+            if (copy.length < dimensions) {
+                copy = new float[dimensions];
+                SCRATCH.set(copy);
+            }
+            mapped[row / rowsPerChunk].get((row % rowsPerChunk) * dimensions, copy, 0, dimensions);
+            return KERNEL.dot(copy, 0, query, 0, dimensions);
+        }
+        return KERNEL.dot(data, (row - mappedRows) * dimensions, query, 0, dimensions);
+    }
+
+    public float dot(int row, int otherRow) {
+        if (row < mappedRows || otherRow < mappedRows) {
+            return dot(row, row(otherRow));
+        }
+        return KERNEL.dot(data, (row - mappedRows) * dimensions, data, (otherRow - mappedRows) * dimensions,
+                dimensions);
+    }
+
+    public float[] row(int row) {
+        if (row < mappedRows) {
+            float[] copy = new float[dimensions];
+            mapped[row / rowsPerChunk].get((row % rowsPerChunk) * dimensions, copy);
+            return copy;
+        }
+        int offset = (row - mappedRows) * dimensions;
+        return Arrays.copyOfRange(data, offset, offset + dimensions);
+    }
+
+    public static float[] normalize(float[] vector) {
+        float norm = norm(vector);
+        float[] normalized = new float[vector.length];
+        if (norm != 0f) {
+            for (int i = 0; i < vector.length; i++) {
+                normalized[i] = vector[i] / norm;
+            }
+        }
+        return normalized;
+    }
+
+    private static float norm(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows * dimensions <= data.length) {
+            return;
+        }
+        int capacity = Math.max(INITIAL_ROWS, Integer.highestOneBit(rows - 1) << 1);
+        data = Arrays.copyOf(data, capacity * dimensions);
+    }
+}
@@ -0,0 +1,37 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Nearest-neighbour index over the rows of a {@link VectorBlock}. A node id is the row number
+ * of its vector in the block; the owning store appends the row first and then calls {@link #add}.
+ */
+public interface VectorIndex {
+
+    void add(int node);
+
+    void remove(int node);
+
+    /**
+     * Returns at most {@code topK} accepted nodes ordered by descending similarity to the
+     * (already normalized) query.
+     */
+    List<ScoredNode> search(float[] query, int topK, IntPredicate accept);
+
+    /**
+     * Same as {@link #search(float[], int, IntPredicate)} restricted to {@code candidates}, a
+     * pre-computed bitmap of the only nodes that may match. Indexes override this to visit just
+     * those nodes rather than test every node.
+     */
+    default List<ScoredNode> search(float[] query, int topK, BitSet candidates, IntPredicate accept) {
+        return search(query, topK, node -> candidates.get(node) && accept.test(node));
+    }
+
+    @FunctionalInterface
+    interface Factory {
+
+        VectorIndex create(VectorBlock vectors);
+    }
+}
@@ -0,0 +1,34 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+/**
+ * Lossy compression of the vectors in a {@link VectorBlock} into fixed-size byte codes that can be
+ * scored against a query without decoding.
+ */
+public interface VectorQuantizer {
+
+    /**
+     * Learns the quantization parameters from the given rows of {@code vectors}.
+     */
+    void train(VectorBlock vectors, int[] sample);
+
+    /**
+     * Bytes per encoded vector; only valid after {@link #train}.
+     */
+    int codeSize();
+
+    void encode(float[] vector, byte[] codes, int offset);
+
+    /**
+     * Prepares per-query state (scaled query, lookup tables) for scoring many codes.
+     */
+    Scorer scorer(float[] query);
+
+    @FunctionalInterface
+    interface Scorer {
+
+        /**
+         * Approximate dot product between the query and the code starting at {@code offset}.
+         */
+        float score(byte[] codes, int offset);
+    }
+}
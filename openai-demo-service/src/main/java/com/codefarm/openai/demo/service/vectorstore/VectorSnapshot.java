@@ -0,0 +1,233 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SimpleVectorStoreContent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Binary, memory-mapped snapshot of a vector store.
+ * <pre>
+ * header   64 bytes  magic "VSNP", version, count, dimensions, vectors/index/entries offsets
+ * vectors  count * dimensions little-endian float32, row-major, unit length
+ * index    count big-endian longs, offset of each entry inside the entries segment
+ * entries  per row: int idLength, UTF-8 id, int bodyLength, UTF-8 JSON {"text", "metadata"}
+ * </pre>
+ * The vector block is mapped with {@link FileChannel#map}, so opening a snapshot costs neither
+ * parsing nor heap for the embeddings; scoring copies each mapped row into a per-thread scratch
+ * array first (see {@link VectorBlock#dot(int, float[])}). Ids are read in one pass by
+ * {@link #forEachId}; text and metadata are decoded per row by {@link #document}, only when asked.
+ */
+public class VectorSnapshot implements Closeable {
+
+    private static final int MAGIC = 0x56534e50;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final FileChannel channel;
+    private final int count;
+    private final VectorBlock vectors;
+    private final LongBuffer entryOffsets;
+    private final long entriesOffset;
+
+    private VectorSnapshot(FileChannel channel, int count, VectorBlock vectors, LongBuffer entryOffsets,
+                           long entriesOffset) {
+        this.channel = channel;
+        this.count = count;
+        this.vectors = vectors;
+        this.entryOffsets = entryOffsets;
+        this.entriesOffset = entriesOffset;
+    }
+
+    public static VectorSnapshot open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a vector snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported vector snapshot version " + version + " in " + path);
+            }
+            int count = header.getInt();
+            int dimensions = header.getInt();
+            long vectorsOffset = header.getLong();
+            long indexOffset = header.getLong();
+            long entriesOffset = header.getLong();
+
+            VectorBlock vectors = VectorBlock.map(channel, vectorsOffset, count, dimensions);
+            LongBuffer entryOffsets = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) count * Long.BYTES)
+                    .asLongBuffer();
+            return new VectorSnapshot(channel, count, vectors, entryOffsets, entriesOffset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes {@code count} entries to {@code path}. The file is written next to the target and
+     * moved into place, so a crash never leaves a truncated snapshot behind.
+     */
+    public static void write(Path path, int count, int dimensions, Iterator<SimpleVectorStoreContent> contents)
+            throws IOException {
+        long vectorsOffset = HEADER_BYTES;
+        long indexOffset = vectorsOffset + (long) count * dimensions * Float.BYTES;
+        long entriesOffset = indexOffset + (long) count * Long.BYTES;
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC).putInt(VERSION).putInt(count).putInt(dimensions)
+                    .putLong(vectorsOffset).putLong(indexOffset).putLong(entriesOffset);
+            header.rewind();
+            writeFully(channel, header, 0);
+
+            ByteBuffer row = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer index = ByteBuffer.allocate(count * Long.BYTES);
+            DataOutputStream entries = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel.position(entriesOffset)), 1 << 16));
+            long entryOffset = 0;
+            int written = 0;
+            while (contents.hasNext()) {
+                SimpleVectorStoreContent content = contents.next();
+                if (written == count) {
+                    throw new IllegalArgumentException("more than " + count + " entries supplied");
+                }
+                float[] embedding = content.getEmbedding();
+                if (embedding.length != dimensions) {
+                    throw new IllegalArgumentException("entry " + content.getId() + " has " + embedding.length
+                            + " dimensions, expected " + dimensions);
+                }
+                row.clear();
+                row.asFloatBuffer().put(VectorBlock.normalize(embedding));
+                writeFully(channel, row, vectorsOffset + (long) written * row.capacity());
+
+                byte[] id = content.getId().getBytes(StandardCharsets.UTF_8);
+                byte[] body = objectMapper.writeValueAsBytes(new Body(content.getText(), content.getMetadata()));
+                entries.writeInt(id.length);
+                entries.write(id);
+                entries.writeInt(body.length);
+                entries.write(body);
+                index.putLong(entryOffset);
+                entryOffset += 2 * Integer.BYTES + id.length + body.length;
+                written++;
+            }
+            if (written != count) {
+                throw new IllegalArgumentException("expected " + count + " entries but got " + written);
+            }
+            entries.flush();
+            index.flip();
+            writeFully(channel, index, indexOffset);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Converts a JSON file written by {@code SimpleVectorStore.save} (or {@code IndexedVectorStore.save})
+     * into a snapshot.
+     */
+    public static void convert(File json, Path snapshot) throws IOException {
+        Map<String, SimpleVectorStoreContent> contents = objectMapper.readValue(json,
+                new TypeReference<HashMap<String, SimpleVectorStoreContent>>() {
+                });
+        int dimensions = contents.values().stream().findFirst().map(c -> c.getEmbedding().length).orElse(0);
+        write(snapshot, contents.size(), dimensions, contents.values().iterator());
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public VectorBlock vectors() {
+        return vectors;
+    }
+
+    /**
+     * Streams through the entries segment once and reports the id of every row.
+     */
+    public void forEachId(ObjIntConsumer<String> consumer) throws IOException {
+        InputStream in = Channels.newInputStream(channel.position(entriesOffset));
+        DataInputStream entries = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        for (int row = 0; row < count; row++) {
+            byte[] id = new byte[entries.readInt()];
+            entries.readFully(id);
+            entries.skipNBytes(entries.readInt());
+            consumer.accept(new String(id, StandardCharsets.UTF_8), row);
+        }
+    }
+
+    public Document document(int row) {
+        try {
+            long position = entriesOffset + entryOffsets.get(row);
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            readFully(length, position);
+            byte[] id = new byte[length.flip().getInt()];
+            readFully(ByteBuffer.wrap(id), position + Integer.BYTES);
+            position += Integer.BYTES + id.length;
+            readFully(length.clear(), position);
+            byte[] body = new byte[length.flip().getInt()];
+            readFully(ByteBuffer.wrap(body), position + Integer.BYTES);
+            Body decoded = objectMapper.readValue(body, Body.class);
+            return new Document(new String(id, StandardCharsets.UTF_8), decoded.text(),
+                    decoded.metadata() != null ? decoded.metadata() : Map.of());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read snapshot entry " + row, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("unexpected end of snapshot");
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private record Body(String text, Map<String, Object> metadata) {
+    }
+}
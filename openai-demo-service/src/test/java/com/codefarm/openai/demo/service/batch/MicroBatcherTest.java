@@ -0,0 +1,98 @@
+package com.codefarm.openai.demo.service.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicroBatcherTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    void requestsWithinTheWindowShareOneLoad() throws Exception {
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofMillis(200), 100,
+                recording(key -> key.toUpperCase()))) {
+            List<String> results = submitAll(batcher, List.of("a", "b", "c", "b"));
+
+            assertEquals(List.of("A", "B", "C", "B"), results);
+        }
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size(), "equal keys share a slot");
+    }
+
+    @Test
+    void fullBatchIsFlushedBeforeTheWindowCloses() throws Exception {
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofSeconds(30), 2,
+                recording(key -> key.toUpperCase()))) {
+            List<String> results = submitAll(batcher, List.of("a", "b"));
+
+            assertEquals(List.of("A", "B"), results);
+        }
+        assertEquals(List.of(List.of("a", "b")), batches.stream().map(batch -> batch.stream().sorted().toList()).toList());
+    }
+
+    @Test
+    void failedLoadFailsEveryCallerInTheBatch() throws Exception {
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofMillis(100), 100,
+                keys -> {
+                    throw new IllegalStateException("model failed");
+                });
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> a = executor.submit(() -> batcher.submit("a"));
+            Future<String> b = executor.submit(() -> batcher.submit("b"));
+
+            for (Future<String> result : List.of(a, b)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+        }
+    }
+
+    @Test
+    void keyMissingFromTheLoadFailsOnlyThatCaller() throws Exception {
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofMillis(100), 100,
+                keys -> keys.stream().filter(key -> !key.equals("b"))
+                        .collect(Collectors.toMap(Function.identity(), String::toUpperCase)));
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> a = executor.submit(() -> batcher.submit("a"));
+            Future<String> b = executor.submit(() -> batcher.submit("b"));
+
+            assertEquals("A", a.get(5, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> b.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private Function<List<String>, Map<String, String>> recording(Function<String, String> value) {
+        return keys -> {
+            batches.add(keys);
+            return keys.stream().collect(Collectors.toMap(Function.identity(), value));
+        };
+    }
+
+    private static List<String> submitAll(MicroBatcher<String, String> batcher, List<String> keys) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (String key : keys) {
+                futures.add(executor.submit(() -> batcher.submit(key)));
+            }
+            List<String> results = new ArrayList<>();
+            for (Future<String> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        }
+    }
+}
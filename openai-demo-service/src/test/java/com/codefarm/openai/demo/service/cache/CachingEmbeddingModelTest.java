@@ -0,0 +1,87 @@
+package com.codefarm.openai.demo.service.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingEmbeddingModelTest {
+
+    private final CountingEmbeddingModel delegate = new CountingEmbeddingModel();
+    private final QueryEmbeddingCache cache = new QueryEmbeddingCache(2, Duration.ofMinutes(5));
+    private final CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, cache);
+
+    @Test
+    void repeatedQuestionIsEmbeddedOnce() {
+        float[] first = model.embed("Which movies star Tom Hanks?");
+        float[] second = model.embed("which movies  star tom hanks? ");
+
+        assertArrayEquals(first, second);
+        assertEquals(1, delegate.calls.get());
+        CacheStats stats = cache.cache().stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test
+    void returnedVectorsCannotCorruptTheCache() {
+        float[] first = model.embed("question");
+        first[0] = 42f;
+
+        assertNotEquals(42f, model.embed("question")[0]);
+    }
+
+    @Test
+    void sizeBoundEvictsEntries() {
+        for (int i = 0; i < 50; i++) {
+            model.embed("question " + i);
+        }
+        cache.cache().cleanUp();
+
+        assertTrue(cache.cache().estimatedSize() <= 2);
+    }
+
+    @Test
+    void documentsAreNotCached() {
+        model.embed(new Document("text"));
+        model.embed(new Document("text"));
+
+        assertEquals(2, delegate.calls.get());
+        assertEquals(0, cache.cache().estimatedSize());
+    }
+
+    @Test
+    void normalizesWhitespaceCaseAndCompatibilityForms() {
+        assertEquals("what is film noir?", QueryEmbeddingCache.normalize("  What\tis\n ﬁlm  Noir? "));
+    }
+
+    private static class CountingEmbeddingModel implements EmbeddingModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                calls.incrementAndGet();
+                embeddings.add(new Embedding(new float[]{text.length(), text.hashCode() % 97, 1f}, embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+        }
+    }
+}
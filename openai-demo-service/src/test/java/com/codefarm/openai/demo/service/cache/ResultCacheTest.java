@@ -0,0 +1,105 @@
+package com.codefarm.openai.demo.service.cache;
+
+import com.codefarm.openai.demo.service.model.CapitalResponseV2;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger generated = new AtomicInteger();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameCountryIsGeneratedOnce() {
+        ResultCache<CapitalResponseV2> cache = new ResultCache<>("capital", CapitalResponseV2.class, 10,
+                Duration.ofHours(1), null, objectMapper);
+
+        CapitalResponseV2 first = cache.get("France", this::paris);
+        CapitalResponseV2 second = cache.get("  france ", this::paris);
+
+        assertEquals(first, second);
+        assertEquals(1, generated.get());
+    }
+
+    @Test
+    void entriesSurviveRestartThroughTheFile() throws Exception {
+        Path file = dir.resolve("capital.jsonl");
+        try (ResultCache<CapitalResponseV2> cache = new ResultCache<>("capital", CapitalResponseV2.class, 10,
+                Duration.ofHours(1), file, objectMapper)) {
+            cache.get("France", this::paris);
+        }
+
+        try (ResultCache<CapitalResponseV2> restarted = new ResultCache<>("capital", CapitalResponseV2.class, 10,
+                Duration.ofHours(1), file, objectMapper)) {
+            CapitalResponseV2 restored = restarted.get("FRANCE", this::paris);
+
+            assertEquals("Paris", restored.capital());
+            assertEquals(1, generated.get());
+        }
+    }
+
+    @Test
+    void expiredEntriesAreDroppedOnRestore() throws Exception {
+        Path file = dir.resolve("capital.jsonl");
+        Clock then = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC);
+        try (ResultCache<CapitalResponseV2> cache = new ResultCache<>("capital", CapitalResponseV2.class, 10,
+                Duration.ofHours(1), file, objectMapper, then)) {
+            cache.get("France", this::paris);
+        }
+
+        try (ResultCache<CapitalResponseV2> restarted = new ResultCache<>("capital", CapitalResponseV2.class, 10,
+                Duration.ofHours(1), file, objectMapper)) {
+            restarted.get("France", this::paris);
+        }
+
+        assertEquals(2, generated.get());
+        assertEquals(1, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void unreadableLinesAreSkipped() throws Exception {
+        Path file = dir.resolve("capital.jsonl");
+        Files.writeString(file, "not json\n");
+
+        try (ResultCache<CapitalResponseV2> cache = new ResultCache<>("capital", CapitalResponseV2.class, 10,
+                Duration.ofHours(1), file, objectMapper)) {
+            cache.get("France", this::paris);
+        }
+
+        assertEquals(1, generated.get());
+        assertEquals(1, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void nullResultsAreNotCached() {
+        ResultCache<CapitalResponseV2> cache = new ResultCache<>("capital", CapitalResponseV2.class, 10,
+                Duration.ofHours(1), null, objectMapper);
+
+        cache.get("Atlantis", () -> {
+            generated.incrementAndGet();
+            return null;
+        });
+        cache.get("Atlantis", this::paris);
+
+        assertEquals(2, generated.get());
+    }
+
+    private CapitalResponseV2 paris() {
+        generated.incrementAndGet();
+        return new CapitalResponseV2("Paris", "2.1 million", "Europe", "French", "Euro");
+    }
+}
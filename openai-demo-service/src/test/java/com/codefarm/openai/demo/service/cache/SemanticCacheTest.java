@@ -0,0 +1,118 @@
+package com.codefarm.openai.demo.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SemanticCacheTest {
+
+    private final WordEmbeddingModel embeddingModel = new WordEmbeddingModel();
+    private final QueryEmbeddingCache embeddings = new QueryEmbeddingCache(100, Duration.ofMinutes(5));
+    private final SemanticCache<String> cache = new SemanticCache<>("test", embeddings, embeddingModel, 0.9, 100,
+            Duration.ofMinutes(5));
+    private final AtomicInteger generated = new AtomicInteger();
+
+    @Test
+    void nearDuplicateQuestionReusesAnswer() {
+        String first = cache.get("Which movies did Christopher Nolan direct?", this::generate);
+        String second = cache.get("which movies did Christopher Nolan direct", this::generate);
+
+        assertEquals(first, second);
+        assertEquals(1, generated.get());
+    }
+
+    @Test
+    void differentQuestionIsAnsweredByTheModel() {
+        cache.get("Which movies did Christopher Nolan direct?", this::generate);
+        String other = cache.get("What is the budget of Titanic?", this::generate);
+
+        assertEquals("answer 2", other);
+        assertEquals(2, generated.get());
+    }
+
+    @Test
+    void invalidateAllDropsEntries() {
+        cache.get("Which movies did Christopher Nolan direct?", this::generate);
+
+        cache.invalidateAll();
+        cache.get("Which movies did Christopher Nolan direct?", this::generate);
+
+        assertEquals(2, generated.get());
+    }
+
+    @Test
+    void repeatedQuestionIsEmbeddedOnce() {
+        cache.get("Which movies did Christopher Nolan direct?", this::generate);
+        cache.get("Which movies did Christopher Nolan direct?", this::generate);
+
+        assertEquals(1, embeddingModel.calls.get());
+    }
+
+    @Test
+    void disabledCacheNeitherEmbedsNorStores() {
+        SemanticCache<String> disabled = SemanticCache.disabled("off");
+
+        disabled.get("question", this::generate);
+        disabled.get("question", this::generate);
+
+        assertEquals(2, generated.get());
+        assertEquals(0, embeddingModel.calls.get());
+    }
+
+    @Test
+    void publishesHitAndMissCounters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get("Which movies did Christopher Nolan direct?", this::generate);
+        cache.get("Which movies did Christopher Nolan direct?", this::generate);
+
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "test", "result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "test", "result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.size").tags("cache", "test").gauge().value());
+    }
+
+    private String generate() {
+        return "answer " + generated.incrementAndGet();
+    }
+
+    /**
+     * Bag of hashed words, so questions sharing most words are close.
+     */
+    private static class WordEmbeddingModel implements EmbeddingModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> result = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                calls.incrementAndGet();
+                float[] vector = new float[64];
+                for (String word : text.toLowerCase().split("\\W+")) {
+                    if (!word.isEmpty()) {
+                        vector[Math.floorMod(word.hashCode(), vector.length)] += 1f;
+                    }
+                }
+                result.add(new Embedding(vector, result.size()));
+            }
+            return new EmbeddingResponse(result);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.codefarm.openai.demo.service.ingestion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkManifestTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void onlyNewOrChangedChunksNeedEmbedding() {
+        ChunkManifest manifest = new ChunkManifest();
+        manifest.track(new Document("1", "Avatar", Map.of()));
+        manifest.track(new Document("2", "Titanic", Map.of()));
+        manifest.track(new Document("3", "Alien", Map.of()));
+        manifest.commit();
+        Path file = tempDir.resolve("manifest.json");
+        manifest.save(file);
+
+        ChunkManifest reloaded = ChunkManifest.load(file);
+        assertFalse(reloaded.track(new Document("1", "Avatar", Map.of())));
+        assertTrue(reloaded.track(new Document("2", "Titanic (1997)", Map.of())));
+        assertTrue(reloaded.track(new Document("4", "Heat", Map.of())));
+        assertEquals(1, reloaded.unchanged());
+
+        List<String> removed = reloaded.commit();
+        assertEquals(List.of("3"), removed);
+        assertEquals(3, reloaded.size());
+    }
+
+    @Test
+    void metadataChangeCountsAsChange() {
+        ChunkManifest manifest = new ChunkManifest();
+        manifest.track(new Document("1", "Avatar", Map.of("vote_average", 7.2)));
+        manifest.commit();
+
+        assertTrue(manifest.track(new Document("1", "Avatar", Map.of("vote_average", 7.3))));
+    }
+
+    @Test
+    void secondChunkWithTheSameIdIsRejected() {
+        ChunkManifest manifest = new ChunkManifest();
+        assertTrue(manifest.track(new Document("715904", "Hypnotic", Map.of())));
+        assertFalse(manifest.track(new Document("715904", "Hypnotic (2023)", Map.of())));
+        manifest.commit();
+
+        assertEquals(1, manifest.size());
+        assertFalse(manifest.track(new Document("715904", "Hypnotic", Map.of())));
+    }
+}
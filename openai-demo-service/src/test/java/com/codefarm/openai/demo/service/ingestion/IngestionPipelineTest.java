@@ -0,0 +1,67 @@
+package com.codefarm.openai.demo.service.ingestion;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionPipelineTest {
+
+    @Test
+    void writesEveryDocumentInBatches() {
+        ConcurrentLinkedQueue<Integer> batchSizes = new ConcurrentLinkedQueue<>();
+        IngestionPipeline pipeline = new IngestionPipeline(batch -> batchSizes.add(batch.size()), 10, 3);
+
+        int written = pipeline.ingest(documents(95));
+
+        assertEquals(95, written);
+        assertEquals(10, batchSizes.size());
+        assertEquals(95, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void limitsBatchesInFlight() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        IngestionPipeline pipeline = new IngestionPipeline(batch -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(5);
+            inFlight.decrementAndGet();
+        }, 4, 3);
+
+        pipeline.ingest(documents(200));
+
+        assertTrue(maxInFlight.get() <= 3, "more than 3 batches in flight: " + maxInFlight.get());
+    }
+
+    @Test
+    void stopsReadingAndRethrowsFirstFailure() {
+        AtomicInteger pulled = new AtomicInteger();
+        IngestionPipeline pipeline = new IngestionPipeline(batch -> {
+            throw new IllegalStateException("embedding endpoint down");
+        }, 5, 1);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> pipeline.ingest(documents(10_000).peek(document -> pulled.incrementAndGet())));
+
+        assertEquals("embedding endpoint down", e.getMessage());
+        assertTrue(pulled.get() < 10_000);
+    }
+
+    private static Stream<Document> documents(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new Document("movie " + i));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
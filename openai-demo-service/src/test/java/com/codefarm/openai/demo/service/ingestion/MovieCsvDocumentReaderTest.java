@@ -0,0 +1,75 @@
+package com.codefarm.openai.demo.service.ingestion;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieCsvDocumentReaderTest {
+
+    @Test
+    void emitsOneDocumentPerMovieWithTypedMetadata() {
+        List<Document> documents = new MovieCsvDocumentReader(new ClassPathResource("movies.csv")).get();
+
+        assertEquals(501, documents.size());
+        Document avatar = documents.get(0);
+        assertEquals("19995", avatar.getId());
+        assertEquals(List.of("Action", "Adventure", "Fantasy", "Science Fiction"), avatar.getMetadata().get("genres"));
+        assertEquals("en", avatar.getMetadata().get("original_language"));
+        assertEquals("2009-12-15", avatar.getMetadata().get("release_date"));
+        assertEquals(2009, avatar.getMetadata().get("release_year"));
+        assertEquals(237000000L, avatar.getMetadata().get("budget"));
+        assertEquals(7.569, avatar.getMetadata().get("vote_average"));
+        assertTrue(avatar.getText().startsWith("title: Avatar\ngenres: Action, Adventure, Fantasy, Science Fiction"));
+        assertFalse(avatar.getText().contains("poster_path"));
+    }
+
+    @Test
+    void twoDigitYearsBeforeThirtyAreTwentyFirstCentury() {
+        Document gone = new MovieCsvDocumentReader(new ClassPathResource("movies.csv")).stream()
+                .filter(document -> "Gone with the Wind".equals(document.getMetadata().get("title")))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(1939, gone.getMetadata().get("release_year"));
+    }
+
+    @Test
+    void handlesQuotedFields() {
+        String csv = """
+                id,title,overview,vote_average
+                1,"Crouching Tiger, Hidden Dragon","A ""legendary"" sword
+                is stolen",7.9
+
+                2,Heat,,oops
+                """;
+
+        List<Document> documents = new MovieCsvDocumentReader(
+                new ByteArrayResource(csv.getBytes(StandardCharsets.UTF_8))).get();
+
+        assertEquals(2, documents.size());
+        assertEquals("Crouching Tiger, Hidden Dragon", documents.get(0).getMetadata().get("title"));
+        assertTrue(documents.get(0).getText().contains("overview: A \"legendary\" sword\nis stolen"));
+        assertFalse(documents.get(1).getMetadata().containsKey("vote_average"));
+    }
+
+    @Test
+    void repeatedIdsAreMadeUnique() {
+        String csv = """
+                id,title
+                715904,Hypnotic
+                715904,Hypnotic
+                7,Heat
+                """;
+
+        List<Document> documents = new MovieCsvDocumentReader(
+                new ByteArrayResource(csv.getBytes(StandardCharsets.UTF_8))).get();
+
+        assertEquals(List.of("715904", "715904#2", "7"), documents.stream().map(Document::getId).toList());
+    }
+}
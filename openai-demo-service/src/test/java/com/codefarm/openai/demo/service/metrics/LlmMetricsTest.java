@@ -0,0 +1,77 @@
+package com.codefarm.openai.demo.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LlmMetrics metrics = new LlmMetrics(registry);
+
+    @Test
+    void timesStagesWithTheirOutcome() {
+        assertEquals("ok", metrics.time("ask", "none", "model", () -> "ok"));
+        assertThrows(IllegalStateException.class, () -> metrics.time("ask", "none", "model", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, registry.get("llm.stage").tags("endpoint", "ask", "stage", "model", "outcome", "success")
+                .timer().count());
+        assertEquals(1, registry.get("llm.stage").tags("outcome", "error").timer().count());
+    }
+
+    @Test
+    void countsPromptAndCompletionTokens() {
+        metrics.tokens("capital", "get-capital-prompt", response("Paris", 12, 3));
+        metrics.tokens("capital", "get-capital-prompt", response("Rome", 10, 2));
+        metrics.tokens("capital", "get-capital-prompt", response("Bern", 0, 0));
+
+        assertEquals(22, registry.get("llm.tokens").tags("template", "get-capital-prompt", "type", "prompt")
+                .counter().count());
+        assertEquals(5, registry.get("llm.tokens").tags("type", "completion").counter().count());
+    }
+
+    @Test
+    void streamsRecordFirstTokenModelTimeAndFinalUsage() {
+        List<ChatResponse> responses = metrics.timeStream("ask-stream", "none",
+                Flux.just(response("The", 0, 0), response(" capital", 0, 0), response("", 20, 2))).collectList().block();
+
+        assertEquals(3, responses.size());
+        assertEquals(1, registry.get("llm.stage").tags("stage", "first-token").timer().count());
+        assertEquals(1, registry.get("llm.stage").tags("stage", "model", "outcome", "success").timer().count());
+        assertEquals(20, registry.get("llm.tokens").tags("type", "prompt").counter().count());
+    }
+
+    @Test
+    void cancelledStreamsAreTaggedAsSuch() {
+        metrics.timeStream("ask-stream", "none", Flux.just(response("The", 0, 0), response(" end", 0, 0)))
+                .take(1).blockLast();
+
+        assertEquals(1, registry.get("llm.stage").tags("stage", "model", "outcome", "cancelled").timer().count());
+        assertNull(registry.find("llm.tokens").counter());
+    }
+
+    @Test
+    void contextSizes() {
+        metrics.context("vector-answer", 10, 4, 900);
+
+        assertEquals(10, registry.get("llm.context.chunks").tags("phase", "retrieved").summary().totalAmount());
+        assertEquals(4, registry.get("llm.context.chunks").tags("phase", "packed").summary().totalAmount());
+        assertEquals(900, registry.get("llm.context.tokens").summary().totalAmount());
+    }
+
+    private static ChatResponse response(String text, int promptTokens, int completionTokens) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))),
+                ChatResponseMetadata.builder().usage(new DefaultUsage(promptTokens, completionTokens)).build());
+    }
+}
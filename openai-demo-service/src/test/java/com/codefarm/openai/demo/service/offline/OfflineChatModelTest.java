@@ -0,0 +1,103 @@
+package com.codefarm.openai.demo.service.offline;
+
+import com.codefarm.openai.demo.service.model.CapitalResponseV2;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfflineChatModelTest {
+
+    private final OfflineChatModel chatModel = new OfflineChatModel(LatencyModel.none(), 0, 12, 0, List.of());
+
+    @Test
+    void repliesAreDeterministic() {
+        String first = chatModel.call(new Prompt("Tell me about Lisbon")).getResult().getOutput().getText();
+
+        assertEquals(first, chatModel.call(new Prompt("Tell me about Lisbon")).getResult().getOutput().getText());
+        assertTrue(first.startsWith("Offline answer about Tell me about Lisbon"));
+    }
+
+    @Test
+    void answersJsonSchemaPromptsWithAConformingInstance() {
+        BeanOutputConverter<CapitalResponseV2> converter = new BeanOutputConverter<>(CapitalResponseV2.class);
+
+        String reply = chatModel.call(new Prompt("What is the capital of France? " + converter.getFormat()))
+                .getResult().getOutput().getText();
+
+        assertEquals("capital of France", converter.convert(reply).capital());
+    }
+
+    @Test
+    void answersArraySchemasWithOneElementPerNumberedLine() {
+        BeanOutputConverter<List<CapitalResponseV2>> converter =
+                new BeanOutputConverter<>(new ParameterizedTypeReference<List<CapitalResponseV2>>() {
+                });
+
+        String reply = chatModel.call(new Prompt("For each country:\n1. France\n2. Japan\n3. Peru\n"
+                + converter.getFormat())).getResult().getOutput().getText();
+
+        assertEquals(List.of("capital of France", "capital of Japan", "capital of Peru"),
+                converter.convert(reply).stream().map(CapitalResponseV2::capital).toList());
+    }
+
+    @Test
+    void answersSinglePropertyJsonRequests() {
+        String reply = chatModel.call(new Prompt("What is the capital of Italy? Respond with pure JSON object "
+                + "containing a single property 'capital'")).getResult().getOutput().getText();
+
+        assertEquals("{\"capital\":\"capital of Italy\"}", reply);
+    }
+
+    @Test
+    void cannedRepliesWin() {
+        OfflineChatModel canned = new OfflineChatModel(LatencyModel.none(), 0, 12, 0,
+                List.of(new OfflineChatModel.CannedReply(Pattern.compile("capital of (\\w+)"), "$1 has a capital.")));
+
+        assertEquals("France has a capital.",
+                canned.call(new Prompt("What is the capital of France?")).getResult().getOutput().getText());
+    }
+
+    @Test
+    void streamsTheSameReplyWordByWordWithUsageOnTheLastChunk() {
+        OfflineChatModel paced = new OfflineChatModel(LatencyModel.none(), 1000, 12, 0, List.of());
+        String expected = paced.call(new Prompt("Tell me about Lisbon")).getResult().getOutput().getText();
+
+        List<ChatResponse> chunks = paced.stream(new Prompt("Tell me about Lisbon")).collectList().block();
+
+        assertEquals(expected, String.join("", chunks.stream()
+                .map(chunk -> chunk.getResult().getOutput().getText())
+                .toList()));
+        assertTrue(chunks.size() > 10);
+        assertEquals(chunks.size(), chunks.get(chunks.size() - 1).getMetadata().getUsage().getCompletionTokens());
+    }
+
+    @Test
+    void generationTakesTokensAtTheConfiguredRate() {
+        OfflineChatModel slow = new OfflineChatModel(new LatencyModel(LatencyModel.Distribution.FIXED,
+                Duration.ofMillis(50), Duration.ZERO, Duration.ZERO, Duration.ZERO), 200, 20, 0, List.of());
+
+        long start = System.nanoTime();
+        slow.call(new Prompt("Tell me about Lisbon"));
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // 50ms to the first token, then more than 20 words at 5ms each
+        assertTrue(elapsed >= 150, "took " + elapsed + "ms");
+    }
+
+    @Test
+    void injectsFailures() {
+        OfflineChatModel failing = new OfflineChatModel(LatencyModel.none(), 0, 12, 1.0, List.of());
+
+        assertThrows(TransientAiException.class, () -> failing.call(new Prompt("Tell me about Lisbon")));
+        assertThrows(TransientAiException.class, () -> failing.stream(new Prompt("Tell me about Lisbon")).blockLast());
+    }
+}
@@ -0,0 +1,74 @@
+package com.codefarm.openai.demo.service.offline;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.TransientAiException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfflineEmbeddingModelTest {
+
+    private final OfflineEmbeddingModel embeddingModel = new OfflineEmbeddingModel(256, LatencyModel.none(), 0);
+
+    @Test
+    void embeddingsAreDeterministicUnitVectors() {
+        float[] vector = embeddingModel.embed("Space station astronauts");
+
+        assertArrayEquals(vector, embeddingModel.embed("space station, astronauts!"));
+        assertEquals(256, vector.length);
+        assertEquals(1.0, dot(vector, vector), 1e-5);
+    }
+
+    @Test
+    void textsSharingWordsAreCloser() {
+        float[] query = embeddingModel.embed("astronauts on a space station");
+
+        assertTrue(dot(query, embeddingModel.embed("space station astronauts drift"))
+                > dot(query, embeddingModel.embed("a crime family in New York")));
+    }
+
+    @Test
+    void injectsFailures() {
+        OfflineEmbeddingModel failing = new OfflineEmbeddingModel(16, LatencyModel.none(), 1.0);
+
+        assertThrows(TransientAiException.class, () -> failing.embed("anything"));
+    }
+
+    @Test
+    void logNormalLatencyMatchesMedianAndP99() {
+        SplittableRandom random = new SplittableRandom(7);
+        LatencyModel latency = new LatencyModel(LatencyModel.Distribution.LOG_NORMAL, Duration.ofMillis(100),
+                Duration.ofMillis(400), Duration.ZERO, Duration.ZERO, () -> random);
+
+        long[] samples = new long[20_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = latency.sample().toNanos();
+        }
+        Arrays.sort(samples);
+
+        assertEquals(100, Duration.ofNanos(samples[samples.length / 2]).toMillis(), 5);
+        assertEquals(400, Duration.ofNanos(samples[samples.length * 99 / 100]).toMillis(), 40);
+    }
+
+    @Test
+    void uniformLatencyStaysWithinBounds() {
+        LatencyModel latency = new LatencyModel(LatencyModel.Distribution.UNIFORM, Duration.ZERO, Duration.ZERO,
+                Duration.ofMillis(10), Duration.ofMillis(20));
+
+        for (int i = 0; i < 1000; i++) {
+            Duration sample = latency.sample();
+            assertTrue(sample.compareTo(Duration.ofMillis(10)) >= 0 && sample.compareTo(Duration.ofMillis(20)) <= 0);
+        }
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,91 @@
+package com.codefarm.openai.demo.service.prompt;
+
+import com.codefarm.openai.demo.service.config.PromptConfig;
+import com.codefarm.openai.demo.service.model.CapitalResponseV2;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PromptRegistryTest {
+
+    private final PromptRegistry registry = registry();
+
+    /**
+     * The registry as the application configures it, for tests that build services by hand.
+     */
+    public static PromptRegistry registry() {
+        return new PromptConfig().promptRegistry(new PathMatchingResourcePatternResolver());
+    }
+
+    @Test
+    void rendersLikeTheDefaultRendererForEveryTemplate() {
+        Map<String, Object> variables = Map.of("country", "France", "format", "{\"type\":\"object\"}",
+                "countries", "1. France\n2. Japan\n", "input", "Which movie?", "documents", "a,b");
+        for (String name : List.of("get-capital-prompt", "get-capital-with-info-prompt",
+                "get-capital-with-json-prompt", "get-capital-with-json-binding-prompt",
+                "get-capitals-with-json-binding-prompt", "rag-prompt-template")) {
+            PromptTemplate template = registry.template(name);
+            Map<String, Object> used = new HashMap<>(variables);
+            used.keySet().retainAll(variablesOf(template.getTemplate()));
+
+            assertEquals(new PromptTemplate(template.getTemplate()).render(used), template.render(used), name);
+        }
+    }
+
+    @Test
+    void missingVariableIsRejected() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> registry.create("get-capital-with-json-binding-prompt", Map.of("country", "France")));
+
+        assertTrue(e.getMessage().contains("format"), e.getMessage());
+    }
+
+    @Test
+    void unknownTemplateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> registry.template("no-such-template"));
+    }
+
+    @Test
+    void concurrentRendersDoNotShareVariables() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> rendered = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String country = "Country" + i;
+                rendered.add(executor.submit(() -> registry.create("get-capital-with-json-prompt", Map.of("country", country))
+                        .getContents()));
+            }
+            for (int i = 0; i < rendered.size(); i++) {
+                String text = rendered.get(i).get();
+                assertTrue(text.startsWith("What is the capital of Country" + i + "?"), text);
+            }
+        }
+    }
+
+    @Test
+    void outputConvertersAreBuiltOnce() {
+        StructuredOutput<CapitalResponseV2> output = registry.output(CapitalResponseV2.class);
+
+        assertSame(output, registry.output(CapitalResponseV2.class));
+        assertSame(output.format(), registry.output(CapitalResponseV2.class).format());
+        assertNotNull(registry.output(new ParameterizedTypeReference<List<CapitalResponseV2>>() {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> registry.output(String.class));
+    }
+
+    private static List<String> variablesOf(String template) {
+        return List.of("country", "format", "countries", "input", "documents").stream()
+                .filter(name -> template.contains("{" + name + "}"))
+                .toList();
+    }
+}
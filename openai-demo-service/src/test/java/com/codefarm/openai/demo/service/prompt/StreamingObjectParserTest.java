@@ -0,0 +1,86 @@
+package com.codefarm.openai.demo.service.prompt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingObjectParserTest {
+
+    private final StreamingObjectParser parser = new StreamingObjectParser(new ObjectMapper());
+
+    @Test
+    void fieldIsPublishedAsSoonAsItsValueIsComplete() {
+        Sinks.Many<String> chunks = Sinks.many().unicast().onBackpressureBuffer();
+        List<JsonField> fields = new CopyOnWriteArrayList<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        Disposable subscription = parser.fields(chunks.asFlux())
+                .subscribe(fields::add, e -> fail(e), () -> completed.set(true));
+
+        chunks.tryEmitNext("{\"capital\": \"Pa");
+        assertEquals(List.of(), fields);
+        chunks.tryEmitNext("ris\", \"popu");
+        assertEquals(List.of("capital"), names(fields));
+        assertEquals("Paris", fields.get(0).value().asText());
+        chunks.tryEmitNext("lation\": \"68 million\", \"extra\": {\"a\": [1, {\"b\": 2}]}");
+        assertEquals(List.of("capital", "population", "extra"), names(fields));
+        assertEquals(2, fields.get(2).value().at("/a/1/b").asInt());
+        assertFalse(completed.get());
+        chunks.tryEmitNext("}");
+        chunks.tryEmitComplete();
+
+        assertTrue(completed.get());
+        subscription.dispose();
+    }
+
+    @Test
+    void codeFenceAroundTheObjectIsTolerated() {
+        List<JsonField> fields = parser.fields(Flux.just("``", "`json\n{\"capital\"", ": \"Tokyo\"}\n", "```"))
+                .collectList().block();
+
+        assertEquals(List.of("capital"), names(fields));
+    }
+
+    @Test
+    void malformedOutputAbortsAtTheOffendingChunk() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<JsonField> fields = new CopyOnWriteArrayList<>();
+
+        parser.fields(Flux.just("{\"capital\": \"Lima\", ", "\"population\" 33}", "never read")
+                        .doOnCancel(() -> cancelled.set(true)))
+                .subscribe(fields::add, error::set);
+
+        assertEquals(List.of("capital"), names(fields));
+        assertInstanceOf(StreamingObjectParser.MalformedOutputException.class, error.get());
+        assertTrue(cancelled.get(), "the upstream stream must be cancelled");
+    }
+
+    @Test
+    void proseInsteadOfJsonIsRejectedBeforeTheObjectStarts() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        assertThrows(StreamingObjectParser.MalformedOutputException.class,
+                () -> parser.fields(Flux.just("Sure! Here ", "is the JSON: {}").doOnCancel(() -> cancelled.set(true)))
+                        .blockLast());
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    void streamEndingInsideTheObjectFails() {
+        assertThrows(StreamingObjectParser.MalformedOutputException.class,
+                () -> parser.fields(Flux.just("{\"capital\": \"Rome\"")).collectList().block());
+    }
+
+    private static List<String> names(List<JsonField> fields) {
+        return fields.stream().map(JsonField::name).toList();
+    }
+}
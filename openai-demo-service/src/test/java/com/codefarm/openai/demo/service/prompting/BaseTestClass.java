@@ -1,22 +1,54 @@
 package com.codefarm.openai.demo.service.prompting;
 
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.model.openai.autoconfigure.OpenAiChatProperties;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ActiveProfilesResolver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
      * Base class for all test classes in the promptin package.
      * Provides common functionality for testing AI model interactions.
+ * <p>
+ * {@link #chatModel} records to or replays from the test class' cassette (see
+ * {@link CassetteChatModel}); when replaying, the context runs with the {@code offline} profile
+ * and test methods and classes run concurrently. A class without a cassette fails when replaying
+ * rather than passing without checking anything: cassettes must be recorded against OpenAI
+ * ({@code -Pcassette.mode=record} with {@code OPENAI_API_KEY} set), never against the offline model.
  */
 @SpringBootTest
+@ExtendWith(BaseTestClass.RecordedCassette.class)
+@ActiveProfiles(resolver = BaseTestClass.CassetteProfiles.class)
+@Import(BaseTestClass.CassetteConfiguration.class)
+@Execution(ExecutionMode.CONCURRENT)
 public class BaseTestClass {
 
     @Autowired
+    private ChatModel model;
+
     protected ChatModel chatModel;
 
+    @BeforeEach
+    void insertCassette() {
+        chatModel = CassetteChatModel.forTestClass(getClass(), model);
+    }
+
     String chat(String prompt) {
         PromptTemplate promptTemplate = new PromptTemplate(prompt);
         Prompt promptToSend = promptTemplate.create();
@@ -34,4 +66,37 @@ public class BaseTestClass {
 
     }
 
+    static class CassetteProfiles implements ActiveProfilesResolver {
+
+        @Override
+        public String[] resolve(Class<?> testClass) {
+            return CassetteChatModel.Mode.current() == CassetteChatModel.Mode.REPLAY
+                    ? new String[]{"offline"}
+                    : new String[0];
+        }
+    }
+
+    static class RecordedCassette implements BeforeAllCallback {
+
+        @Override
+        public void beforeAll(ExtensionContext context) {
+            if (CassetteChatModel.Mode.current() == CassetteChatModel.Mode.RECORD) {
+                return;
+            }
+            Path cassette = CassetteChatModel.cassetteFile(context.getRequiredTestClass());
+            if (!Files.exists(cassette)) {
+                throw new IllegalStateException("no cassette at " + cassette
+                        + "; record one against OpenAI with -Pcassette.mode=record and OPENAI_API_KEY set");
+            }
+        }
+    }
+
+    /**
+     * Some tests start from the configured OpenAI options, which the offline profile does not bind.
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(OpenAiChatProperties.class)
+    static class CassetteConfiguration {
+    }
+
 }
@@ -0,0 +1,156 @@
+package com.codefarm.openai.demo.service.prompting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Recorded prompt/response pairs of one test class, stored as JSON lines and indexed by the
+ * SHA-256 of the normalized prompt when opened.
+ * <p>
+ * A prompt recorded more than once (a test asking the same question in a loop) keeps every
+ * response; replaying it cycles through them in recorded order.
+ */
+class Cassette {
+
+    private static final Pattern UUID = Pattern.compile(
+            "\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern TRAILING_WHITESPACE = Pattern.compile("[ \\t]+$", Pattern.MULTILINE);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path file;
+    private final Map<String, List<Interaction>> index = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> replayed = new ConcurrentHashMap<>();
+    private BufferedWriter writer;
+
+    private Cassette(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens {@code file} for replay; a missing file is an empty cassette.
+     */
+    static Cassette load(Path file) {
+        Cassette cassette = new Cassette(file);
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        cassette.index(objectMapper.readValue(line, Interaction.class));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read cassette " + file, e);
+            }
+        }
+        return cassette;
+    }
+
+    /**
+     * Starts recording into {@code file}, replacing whatever it held.
+     */
+    static Cassette record(Path file) {
+        Cassette cassette = new Cassette(file);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            cassette.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open cassette " + file, e);
+        }
+        return cassette;
+    }
+
+    Optional<Interaction> replay(String key) {
+        List<Interaction> recorded = index.get(key);
+        if (recorded == null) {
+            return Optional.empty();
+        }
+        int next = replayed.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+        return Optional.of(recorded.get(next % recorded.size()));
+    }
+
+    synchronized void append(Interaction interaction) {
+        index(interaction);
+        try {
+            writer.write(objectMapper.writeValueAsString(interaction));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write cassette " + file, e);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int size() {
+        return index.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void index(Interaction interaction) {
+        index.computeIfAbsent(interaction.key(), k -> new ArrayList<>()).add(interaction);
+    }
+
+    /**
+     * The prompt as it is matched: messages with their role, line endings, trailing whitespace
+     * and UUIDs normalized away, followed by the options that change the answer.
+     */
+    static String normalize(Prompt prompt) {
+        String messages = prompt.getInstructions().stream()
+                .map(Cassette::normalize)
+                .collect(Collectors.joining("\n"));
+        ChatOptions options = prompt.getOptions();
+        if (options == null) {
+            return messages;
+        }
+        return messages + "\n[options] model=" + options.getModel() + " temperature=" + options.getTemperature()
+                + " topP=" + options.getTopP() + " maxTokens=" + options.getMaxTokens();
+    }
+
+    static String key(String normalizedPrompt) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalizedPrompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String normalize(Message message) {
+        String text = message.getText() == null ? "" : message.getText().replace("\r\n", "\n");
+        text = TRAILING_WHITESPACE.matcher(text).replaceAll("");
+        text = UUID.matcher(text).replaceAll("<uuid>");
+        return "[" + message.getMessageType().getValue() + "] " + text.strip();
+    }
+
+    /**
+     * One recorded call; {@code prompt} is the normalized prompt, kept so cassettes can be reviewed.
+     */
+    record Interaction(String key, String prompt, String model, String text, String finishReason,
+                       Integer promptTokens, Integer completionTokens) {
+    }
+}
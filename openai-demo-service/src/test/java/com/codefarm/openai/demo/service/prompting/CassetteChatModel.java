@@ -0,0 +1,112 @@
+package com.codefarm.openai.demo.service.prompting;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record/replay decorator for the prompting tests. In {@link Mode#REPLAY} answers come from the
+ * cassette only and an unrecorded prompt fails the test, so the suite needs neither network nor
+ * an API key; in {@link Mode#RECORD} every call goes to the real model and is written to the
+ * cassette, replacing the previous recording.
+ * <p>
+ * The mode is read from the {@code cassette.mode} system property ({@code replay} by default) and
+ * cassettes live in {@code cassette.dir} ({@code src/test/cassettes}), one file per test class.
+ * Streaming is replayed and recorded as a single chunk.
+ */
+class CassetteChatModel implements ChatModel {
+
+    enum Mode {
+        RECORD, REPLAY;
+
+        static Mode current() {
+            return valueOf(System.getProperty("cassette.mode", "replay").toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final Map<String, Cassette> cassettes = new ConcurrentHashMap<>();
+
+    private final ChatModel delegate;
+    private final Cassette cassette;
+    private final Mode mode;
+
+    CassetteChatModel(ChatModel delegate, Cassette cassette, Mode mode) {
+        this.delegate = delegate;
+        this.cassette = cassette;
+        this.mode = mode;
+    }
+
+    /**
+     * Wraps {@code delegate} with the cassette of {@code testClass}, opened once per test run.
+     */
+    static CassetteChatModel forTestClass(Class<?> testClass, ChatModel delegate) {
+        Mode mode = Mode.current();
+        Cassette cassette = cassettes.computeIfAbsent(testClass.getName(), name -> {
+            Path file = cassetteFile(testClass);
+            return mode == Mode.RECORD ? Cassette.record(file) : Cassette.load(file);
+        });
+        return new CassetteChatModel(delegate, cassette, mode);
+    }
+
+    static Path cassetteFile(Class<?> testClass) {
+        return Path.of(System.getProperty("cassette.dir", "src/test/cassettes"), testClass.getSimpleName() + ".jsonl");
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String normalized = Cassette.normalize(prompt);
+        String key = Cassette.key(normalized);
+        if (mode == Mode.REPLAY) {
+            return cassette.replay(key)
+                    .map(CassetteChatModel::response)
+                    .orElseThrow(() -> new IllegalStateException("No recorded response for prompt " + key + " in "
+                            + cassette.file() + "; record it with -Pcassette.mode=record\n" + normalized));
+        }
+        ChatResponse response = delegate.call(prompt);
+        cassette.append(interaction(key, normalized, response));
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> Flux.just(call(prompt)));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private static Cassette.Interaction interaction(String key, String normalized, ChatResponse response) {
+        Generation result = response.getResult();
+        ChatResponseMetadata metadata = response.getMetadata();
+        Usage usage = metadata.getUsage();
+        return new Cassette.Interaction(key, normalized, metadata.getModel(), result.getOutput().getText(),
+                result.getMetadata().getFinishReason(),
+                usage == null ? null : usage.getPromptTokens(),
+                usage == null ? null : usage.getCompletionTokens());
+    }
+
+    private static ChatResponse response(Cassette.Interaction interaction) {
+        Generation generation = new Generation(new AssistantMessage(interaction.text()),
+                ChatGenerationMetadata.builder().finishReason(interaction.finishReason()).build());
+        return new ChatResponse(List.of(generation), ChatResponseMetadata.builder()
+                .model(interaction.model())
+                .usage(new DefaultUsage(interaction.promptTokens(), interaction.completionTokens()))
+                .build());
+    }
+}
@@ -0,0 +1,103 @@
+package com.codefarm.openai.demo.service.prompting;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CassetteChatModelTest {
+
+    @TempDir
+    Path dir;
+
+    private final CountingChatModel model = new CountingChatModel();
+
+    @Test
+    void replaysWhatWasRecorded() {
+        Path file = dir.resolve("Test.jsonl");
+        CassetteChatModel recorder = new CassetteChatModel(model, Cassette.record(file), CassetteChatModel.Mode.RECORD);
+        recorder.call(new Prompt("What is the capital of France?"));
+
+        ChatResponse replayed = new CassetteChatModel(null, Cassette.load(file), CassetteChatModel.Mode.REPLAY)
+                .call(new Prompt("What is the capital of France?"));
+
+        assertEquals("answer 1", replayed.getResult().getOutput().getText());
+        assertEquals("stop", replayed.getResult().getMetadata().getFinishReason());
+        assertEquals("counting", replayed.getMetadata().getModel());
+        assertEquals(7, replayed.getMetadata().getUsage().getCompletionTokens());
+        assertEquals(1, model.calls.get());
+    }
+
+    @Test
+    void repeatedPromptsReplayInRecordedOrder() {
+        Path file = dir.resolve("Test.jsonl");
+        CassetteChatModel recorder = new CassetteChatModel(model, Cassette.record(file), CassetteChatModel.Mode.RECORD);
+        recorder.call(new Prompt("Tell me a joke"));
+        recorder.call(new Prompt("Tell me a joke"));
+
+        CassetteChatModel player = new CassetteChatModel(null, Cassette.load(file), CassetteChatModel.Mode.REPLAY);
+
+        assertEquals(List.of("answer 1", "answer 2", "answer 1"), List.of(
+                player.call(new Prompt("Tell me a joke")).getResult().getOutput().getText(),
+                player.call(new Prompt("Tell me a joke")).getResult().getOutput().getText(),
+                player.call(new Prompt("Tell me a joke")).getResult().getOutput().getText()));
+    }
+
+    @Test
+    void unrecordedPromptsFailInReplay() {
+        CassetteChatModel player = new CassetteChatModel(model, Cassette.load(dir.resolve("Missing.jsonl")),
+                CassetteChatModel.Mode.REPLAY);
+
+        assertThrows(IllegalStateException.class, () -> player.call(new Prompt("What is the capital of France?")));
+        assertEquals(0, model.calls.get());
+    }
+
+    @Test
+    void normalizationIgnoresWhitespaceAndUuids() {
+        String first = Cassette.normalize(new Prompt(UUID.randomUUID() + "\r\nReview:  \r\n great  "));
+        String second = Cassette.normalize(new Prompt(UUID.randomUUID() + "\nReview:\n great"));
+
+        assertEquals(Cassette.key(first), Cassette.key(second));
+        assertEquals("[user] <uuid>\nReview:\n great", first);
+    }
+
+    @Test
+    void rolesAndOptionsArePartOfTheKey() {
+        String user = Cassette.key(Cassette.normalize(new Prompt("Be brief")));
+
+        assertNotEquals(user, Cassette.key(Cassette.normalize(new Prompt(new SystemMessage("Be brief")))));
+        assertNotEquals(user, Cassette.key(Cassette.normalize(new Prompt(List.of(new UserMessage("Be brief")),
+                ChatOptions.builder().temperature(0.1).build()))));
+    }
+
+    private static class CountingChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            Generation generation = new Generation(new AssistantMessage("answer " + calls.incrementAndGet()),
+                    ChatGenerationMetadata.builder().finishReason("stop").build());
+            return new ChatResponse(List.of(generation), ChatResponseMetadata.builder()
+                    .model("counting")
+                    .usage(new DefaultUsage(12, 7))
+                    .build());
+        }
+    }
+}
@@ -56,13 +56,15 @@ public class InferenceV2Tests extends BaseTestClass {
     @DisplayName("Testing Product Review Sentiment")
     @Test
     void testingSentiment() {
-        PromptTemplate promptTemplate = new PromptTemplate(sentimentPrompt,
-                Map.of("review1", review1,
+        PromptTemplate promptTemplate = PromptTemplate.builder()
+                .template(sentimentPrompt)
+                .variables(Map.of("review1", review1,
                         "review2", review2,
                         "review3", review3,
                         "review4", review4,
                         "review5", review5,
-                        "review6", review6));
+                        "review6", review6))
+                .build();
 
         System.out.println(chatModel.call(promptTemplate.create()).getResult().getOutput().getText());
     }
@@ -81,13 +83,15 @@ public class InferenceV2Tests extends BaseTestClass {
     @DisplayName("Testing Review Emotions")
     @Test
     void testingEmotion() {
-        PromptTemplate promptTemplate = new PromptTemplate(emotionPrompt,
-                Map.of("review1", review1,
+        PromptTemplate promptTemplate = PromptTemplate.builder()
+                .template(emotionPrompt)
+                .variables(Map.of("review1", review1,
                         "review2", review2,
                         "review3", review3,
                         "review4", review4,
                         "review5", review5,
-                        "review6", review6));
+                        "review6", review6))
+                .build();
 
         System.out.println(chatModel.call(promptTemplate.create()).getResult().getOutput().getText());
     }
@@ -112,13 +116,15 @@ public class InferenceV2Tests extends BaseTestClass {
     @DisplayName("Testing for Frustration")
     @Test
     void testingForFrustration() {
-        PromptTemplate promptTemplate = new PromptTemplate(frustrationTestPrompt,
-                Map.of("review1", review1,
+        PromptTemplate promptTemplate = PromptTemplate.builder()
+                .template(frustrationTestPrompt)
+                .variables(Map.of("review1", review1,
                         "review2", review2,
                         "review3", review3,
                         "review4", review4,
                         "review5", review5,
-                        "review6", review6));
+                        "review6", review6))
+                .build();
 
         System.out.println(chatModel.call(promptTemplate.create()).getResult().getOutput().getText());
     }
@@ -146,8 +152,10 @@ public class InferenceV2Tests extends BaseTestClass {
     @DisplayName("Inferring Tech News Topics")
     @Test
     void inferTopics() {
-        PromptTemplate promptTemplate = new PromptTemplate(topicPrompt,
-                Map.of("techNews", techNews));
+        PromptTemplate promptTemplate = PromptTemplate.builder()
+                .template(topicPrompt)
+                .variables(Map.of("techNews", techNews))
+                .build();
 
         System.out.println(chatModel.call(promptTemplate.create()).getResult().getOutput().getText());
     }
@@ -49,8 +49,10 @@ public class MakingTheModelThinkV2Tests extends BaseTestClass {
 
     @Test
     void testSteps() {
-        PromptTemplate promptTemplate = new PromptTemplate(prompt,
-                Map.of("text", story));
+        PromptTemplate promptTemplate = PromptTemplate.builder()
+                .template(prompt)
+                .variables(Map.of("text", story))
+                .build();
 
         System.out.println(chatModel.call(promptTemplate.create()).getResult().getOutput().getText());
     }
@@ -52,8 +52,10 @@ public class SummarizingPromptsV2Tests extends BaseTestClass {
 
     @Test
     void testCreateDescriptionFromReview() {
-        PromptTemplate promptTemplate = new PromptTemplate(reviewPrompt,
-                Map.of("review", review1));
+        PromptTemplate promptTemplate = PromptTemplate.builder()
+                .template(reviewPrompt)
+                .variables(Map.of("review", review1))
+                .build();
 
         System.out.println(chatModel.call(promptTemplate.create()).getResult().getOutput().getText());
     }
@@ -91,8 +93,10 @@ public class SummarizingPromptsV2Tests extends BaseTestClass {
 
     @Test
     void testCreateDescriptionFrom3Reviews() {
-        PromptTemplate promptTemplate = new PromptTemplate(reviewPrompt3,
-                Map.of("review", review1, "review2", review2, "review3", review3));
+        PromptTemplate promptTemplate = PromptTemplate.builder()
+                .template(reviewPrompt3)
+                .variables(Map.of("review", review1, "review2", review2, "review3", review3))
+                .build();
 
         System.out.println(chatModel.call(promptTemplate.create()).getResult().getOutput().getText());
     }
@@ -62,8 +62,10 @@ public class ZeroAndFewShotV2Tests extends BaseTestClass {
     @Test
     void zeroShotPromptTest() {
         for (int i = 0; i < 3; i++) {
-            PromptTemplate promptTemplate = new PromptTemplate(prompt,
-                    Map.of("review", UUID.randomUUID() + "\n" + review));
+            PromptTemplate promptTemplate = PromptTemplate.builder()
+                    .template(prompt)
+                    .variables(Map.of("review", UUID.randomUUID() + "\n" + review))
+                    .build();
 
             ChatResponse response = chatModel.call(promptTemplate.create());
 
@@ -80,8 +82,10 @@ public class ZeroAndFewShotV2Tests extends BaseTestClass {
                 .build();
 
         for (int i = 0; i < 3; i++) {
-            PromptTemplate promptTemplate = new PromptTemplate(prompt,
-                    Map.of("review", UUID.randomUUID() + "\n" + review));
+            PromptTemplate promptTemplate = PromptTemplate.builder()
+                    .template(prompt)
+                    .variables(Map.of("review", UUID.randomUUID() + "\n" + review))
+                    .build();
 
             Prompt prompt = new Prompt(promptTemplate.createMessage(), openAiChatOptions);
 
@@ -132,9 +136,8 @@ public class ZeroAndFewShotV2Tests extends BaseTestClass {
 
     @Test
     void testApiPromptFewShotTest() {
-        PromptTemplate promptTemplate = new PromptTemplate(apiPrompt);
-
-        System.out.println(chatModel.call(promptTemplate.create()).getResult().getOutput().getText());
+        // sent as is: the {id} path variables are part of the examples, not template variables
+        System.out.println(chatModel.call(new Prompt(apiPrompt)).getResult().getOutput().getText());
     }
 
     @Test
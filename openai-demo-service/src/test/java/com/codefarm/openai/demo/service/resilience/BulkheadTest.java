@@ -0,0 +1,109 @@
+package com.codefarm.openai.demo.service.resilience;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @Test
+    void callsBeyondTheQueueAreRejectedImmediately() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> running = executor.submit(() -> bulkhead.call(() -> await(release)));
+            awaitActive(bulkhead, 1);
+            Future<String> queued = executor.submit(() -> bulkhead.call(() -> "queued"));
+            awaitWaiting(bulkhead, 1);
+
+            BulkheadFullException e = assertThrows(BulkheadFullException.class, () -> bulkhead.call(() -> "rejected"));
+
+            assertEquals(BulkheadFullException.Reason.QUEUE_FULL, e.getReason());
+            release.countDown();
+            assertEquals("done", running.get());
+            assertEquals("queued", queued.get());
+        }
+        assertEquals(0, bulkhead.active());
+    }
+
+    @Test
+    void waitingLongerThanMaxWaitTimesOut() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 10, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> bulkhead.call(() -> await(release)));
+            awaitActive(bulkhead, 1);
+
+            BulkheadFullException e = assertThrows(BulkheadFullException.class, () -> bulkhead.call(() -> "late"));
+
+            assertEquals(BulkheadFullException.Reason.TIMEOUT, e.getReason());
+            assertEquals(0, bulkhead.waiting());
+            release.countDown();
+        }
+    }
+
+    @Test
+    void failedCallReleasesItsPermit() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0, Duration.ZERO);
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.call(() -> {
+            throw new IllegalStateException("model failed");
+        }));
+
+        assertEquals("ok", bulkhead.call(() -> "ok"));
+    }
+
+    @Test
+    void streamHoldsPermitUntilCancelled() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0, Duration.ZERO);
+        Flux<Long> stream = bulkhead.stream(() -> Flux.interval(Duration.ofMillis(1)));
+
+        assertEquals(0, bulkhead.active());
+        assertEquals(3, stream.take(3).count().block());
+
+        assertEquals(0, bulkhead.active());
+    }
+
+    @Test
+    void streamSubscriptionIsRejectedWhenFull() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0, Duration.ZERO);
+        Flux<Long> first = bulkhead.stream(Flux::never);
+        var subscription = first.subscribe();
+
+        assertThrows(BulkheadFullException.class, () -> bulkhead.stream(() -> Flux.just(1L)).blockLast());
+
+        subscription.dispose();
+        assertEquals(1L, bulkhead.stream(() -> Flux.just(1L)).blockLast());
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    private static void awaitActive(Bulkhead bulkhead, int active) throws InterruptedException {
+        for (int i = 0; i < 500 && bulkhead.active() < active; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(active, bulkhead.active());
+    }
+
+    private static void awaitWaiting(Bulkhead bulkhead, int waiting) throws InterruptedException {
+        for (int i = 0; i < 500 && bulkhead.waiting() < waiting; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(waiting, bulkhead.waiting());
+    }
+}
@@ -0,0 +1,108 @@
+package com.codefarm.openai.demo.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    void concurrentIdenticalCallsShareOneUpstreamCall() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+        AtomicInteger upstream = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("prompt", () -> {
+                    upstream.incrementAndGet();
+                    await(release);
+                    return "answer";
+                })));
+            }
+            awaitCoalesced(singleFlight, CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("answer", result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, upstream.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void failureReachesEveryWaitingCaller() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("prompt", () -> {
+                    await(release);
+                    throw new IllegalStateException("model failed");
+                })));
+            }
+            awaitCoalesced(singleFlight, CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                assertEquals("model failed", e.getCause().getMessage());
+            }
+        }
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void completedCallsAreNotRemembered() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test");
+        AtomicInteger upstream = new AtomicInteger();
+
+        assertEquals(1, singleFlight.execute("prompt", upstream::incrementAndGet));
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("prompt", () -> {
+            throw new IllegalStateException("model failed");
+        }));
+        assertEquals(2, singleFlight.execute("prompt", upstream::incrementAndGet));
+        assertEquals(0, singleFlight.coalesced());
+    }
+
+    @Test
+    void differentKeysDoNotWaitForEachOther() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test");
+
+        String outer = singleFlight.execute("a", () -> singleFlight.execute("b", () -> "b") + "a");
+
+        assertEquals("ba", outer);
+    }
+
+    private static void awaitCoalesced(SingleFlight<?, ?> singleFlight, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.coalesced() < expected) {
+            assertTrue(System.nanoTime() < deadline, "callers did not join the in-flight call");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.codefarm.openai.demo.service.retrieval;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Bm25IndexTest {
+
+    private final Bm25Index index = new Bm25Index(1.2f, 0.75f, "title");
+
+    @Test
+    void ranksDocumentsSharingRareTermsFirst() {
+        movies().forEach(index::add);
+
+        List<Document> results = index.search("wormhole astronauts", 3);
+
+        assertEquals("1", results.get(0).getId());
+        assertTrue(results.get(0).getScore() > 0);
+        assertEquals(1, results.size(), "documents matching no query term are not returned");
+    }
+
+    @Test
+    void shorterDocumentsWinOnEqualTermFrequency() {
+        index.add(new Document("long", "space " + "filler words to stretch the length ".repeat(10), Map.of()));
+        index.add(new Document("short", "space adventure", Map.of()));
+
+        assertEquals(List.of("short", "long"), index.search("space", 2).stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void stopWordsAloneMatchNothing() {
+        movies().forEach(index::add);
+
+        assertTrue(index.search("what is the movie about", 5).isEmpty());
+    }
+
+    @Test
+    void findsTitlesIgnoringCaseAccentsAndPunctuation() {
+        movies().forEach(index::add);
+        index.add(new Document("4", "Amélie a shy waitress in Paris", Map.of("title", "Amélie")));
+
+        assertEquals("2", index.findByTitle("the godfather").get(0).getId());
+        assertEquals("4", index.findByTitle("  AMELIE! ").get(0).getId());
+        assertTrue(index.findByTitle("godfather").isEmpty());
+    }
+
+    @Test
+    void addingAnExistingIdReplacesTheDocument() {
+        movies().forEach(index::add);
+        index.add(new Document("1", "A heist inside dreams", Map.of("title", "Inception")));
+
+        assertEquals(3, index.size());
+        assertTrue(index.search("wormhole", 3).isEmpty());
+        assertTrue(index.findByTitle("Interstellar").isEmpty());
+        assertEquals("1", index.search("heist dreams", 3).get(0).getId());
+    }
+
+    @Test
+    void replacingADocumentLeavesScoresAsIfItWasAddedOnce() {
+        movies().forEach(index::add);
+        float once = index.search("wormhole astronauts", 1).get(0).getScore().floatValue();
+        for (int i = 0; i < 5; i++) {
+            index.add(movies().get(0));
+        }
+
+        List<Document> results = index.search("wormhole astronauts", 3);
+
+        assertEquals(1, results.size());
+        assertEquals(once, results.get(0).getScore().floatValue(), 1e-6f);
+        assertEquals(1, index.findByTitle("Interstellar").size());
+    }
+
+    @Test
+    void tokenizerLowercasesAndDropsStopWords() {
+        assertEquals(List.of("star", "wars", "1977"), Bm25Index.tokenize("The Star-Wars movie (1977)"));
+    }
+
+    static List<Document> movies() {
+        return List.of(
+                new Document("1", "Interstellar astronauts travel through a wormhole near a space station",
+                        Map.of("title", "Interstellar")),
+                new Document("2", "The Godfather crime family saga in New York", Map.of("title", "The Godfather")),
+                new Document("3", "Finding Nemo a clownfish searches the ocean for his son",
+                        Map.of("title", "Finding Nemo")));
+    }
+}
@@ -0,0 +1,92 @@
+package com.codefarm.openai.demo.service.retrieval;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextPackerTest {
+
+    private final TokenCountEstimator tokens = new JTokkitTokenCountEstimator();
+    private final ContextPacker packer = new ContextPacker(tokens, 0.7, 0.8);
+
+    private final Document interstellar = document("1",
+            "Interstellar astronauts travel through a wormhole near Saturn to find a new home for humanity");
+    private final Document interstellarCopy = document("1-copy",
+            "Interstellar: astronauts travel through a wormhole near Saturn to find a new home for humanity.");
+    private final Document gravity = document("2", "Gravity two astronauts are stranded in orbit after debris "
+            + "destroys their shuttle");
+    private final Document nemo = document("3", "Finding Nemo a clownfish crosses the ocean to find his son");
+
+    @Test
+    void dropsNearDuplicates() {
+        List<Document> packed = packer.pack(List.of(interstellar, interstellarCopy, gravity), 1000);
+
+        assertEquals(List.of("1", "2"), ids(packed));
+    }
+
+    @Test
+    void staysWithinTheBudgetAndSkipsChunksThatDoNotFit() {
+        Document large = document("large", "astronauts ".repeat(200));
+        int budget = count(interstellar) + count(nemo);
+
+        List<Document> packed = packer.pack(List.of(interstellar, large, nemo), budget);
+
+        assertEquals(List.of("1", "3"), ids(packed));
+        assertTrue(packed.stream().mapToInt(this::count).sum() <= budget);
+    }
+
+    @Test
+    void keepsRelevanceOrder() {
+        List<Document> packed = packer.pack(List.of(nemo, gravity, interstellar), 1000);
+
+        assertEquals(List.of("3", "2", "1"), ids(packed));
+    }
+
+    @Test
+    void prefersDiverseChunksWhenTheBudgetIsTight() {
+        Document similar = document("similar",
+                "Interstellar astronauts travel through a wormhole near Saturn seeking a home");
+        int budget = count(interstellar) + Math.max(count(similar), count(nemo));
+
+        assertEquals(List.of("1", "similar"), ids(new ContextPacker(tokens, 0.9, 0.95)
+                .pack(List.of(interstellar, similar, nemo), budget)));
+        assertEquals(List.of("1", "3"), ids(new ContextPacker(tokens, 0.3, 0.95)
+                .pack(List.of(interstellar, similar, nemo), budget)));
+    }
+
+    @Test
+    void truncatesTheTopChunkWhenNothingFits() {
+        Document large = document("large", "astronauts drift in orbit ".repeat(100));
+
+        List<Document> packed = packer.pack(List.of(large), 50);
+
+        assertEquals(List.of("large"), ids(packed));
+        assertTrue(count(packed.get(0)) <= 50);
+        assertTrue(count(packed.get(0)) > 25);
+    }
+
+    @Test
+    void jaccardOfTermSets() {
+        assertEquals(0.5, ContextPacker.jaccard(Set.of("a", "b"), Set.of("b")));
+        assertEquals(0.0, ContextPacker.jaccard(Set.of("a"), Set.of("b")));
+    }
+
+    private int count(Document document) {
+        return tokens.estimate(document.getText());
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    private static Document document(String id, String text) {
+        return new Document(id, text, Map.of());
+    }
+}
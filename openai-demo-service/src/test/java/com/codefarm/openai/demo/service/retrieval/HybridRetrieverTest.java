@@ -0,0 +1,114 @@
+package com.codefarm.openai.demo.service.retrieval;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HybridRetrieverTest {
+
+    private final CountingEmbeddingModel embeddingModel = new CountingEmbeddingModel();
+    private final SimpleVectorStore vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+    private final Bm25Index lexicalIndex = new Bm25Index(1.2f, 0.75f, "title");
+
+    HybridRetrieverTest() {
+        vectorStore.add(Bm25IndexTest.movies());
+        Bm25IndexTest.movies().forEach(lexicalIndex::add);
+        embeddingModel.calls.set(0);
+    }
+
+    @Test
+    void exactTitleSkipsTheEmbeddingCall() {
+        HybridRetriever retriever = new HybridRetriever(vectorStore, lexicalIndex, true, true, 10, 60);
+
+        assertEquals("2", retriever.retrieve("The Godfather", null, 5).get(0).getId());
+        assertEquals("3", retriever.retrieve("Tell me about \"Finding Nemo\"", null, 5).get(0).getId());
+        assertEquals(0, embeddingModel.calls.get());
+    }
+
+    @Test
+    void titleFastPathCanBeDisabled() {
+        HybridRetriever retriever = new HybridRetriever(vectorStore, lexicalIndex, true, false, 10, 60);
+
+        assertEquals("2", retriever.retrieve("The Godfather", null, 5).get(0).getId());
+        assertEquals(1, embeddingModel.calls.get());
+    }
+
+    @Test
+    void otherQueriesFuseBothRankings() {
+        HybridRetriever retriever = new HybridRetriever(vectorStore, lexicalIndex, true, true, 10, 60);
+
+        List<Document> results = retriever.retrieve("crime saga in new york", null, 2);
+
+        assertEquals(2, results.size());
+        assertEquals("2", results.get(0).getId());
+        assertEquals(2.0 / 61, results.get(0).getScore(), 1e-9, "first in both rankings");
+        assertEquals(1, embeddingModel.calls.get());
+    }
+
+    @Test
+    void filteredQueriesUseTheVectorStoreOnly() {
+        HybridRetriever retriever = new HybridRetriever(vectorStore, lexicalIndex, true, true, 10, 60);
+
+        List<Document> results = retriever.retrieve("The Godfather", "title == 'Finding Nemo'", 5);
+
+        assertEquals(List.of("3"), results.stream().map(Document::getId).toList());
+        assertEquals(1, embeddingModel.calls.get());
+    }
+
+    @Test
+    void reciprocalRankFusionRewardsAgreement() {
+        HybridRetriever retriever = new HybridRetriever(vectorStore, lexicalIndex, true, true, 10, 60);
+        Document a = new Document("a", "a", Map.of());
+        Document b = new Document("b", "b", Map.of());
+        Document c = new Document("c", "c", Map.of());
+        Document d = new Document("d", "d", Map.of());
+
+        List<Document> fused = retriever.fuse(List.of(List.of(a, b, c), List.of(b, d)), 3);
+
+        assertEquals(List.of("b", "a", "d"), fused.stream().map(Document::getId).toList());
+    }
+
+    private static class CountingEmbeddingModel implements EmbeddingModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            return new EmbeddingResponse(request.getInstructions().stream()
+                    .map(text -> new Embedding(embed(text), 0))
+                    .toList());
+        }
+
+        @Override
+        public float[] embed(String text) {
+            calls.incrementAndGet();
+            float[] vector = new float[32];
+            for (String word : text.toLowerCase().split("\\W+")) {
+                if (!word.isEmpty()) {
+                    vector[Math.floorMod(word.hashCode(), vector.length)] += 1f;
+                }
+            }
+            return vector;
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return 32;
+        }
+    }
+}
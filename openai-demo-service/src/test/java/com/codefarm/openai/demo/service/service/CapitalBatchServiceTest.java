@@ -0,0 +1,167 @@
+package com.codefarm.openai.demo.service.service;
+
+import com.codefarm.openai.demo.service.cache.ResultCache;
+import com.codefarm.openai.demo.service.config.CapitalBatchProperties;
+import com.codefarm.openai.demo.service.metrics.LlmMetrics;
+import com.codefarm.openai.demo.service.model.CapitalRequest;
+import com.codefarm.openai.demo.service.model.CapitalResponseV2;
+import com.codefarm.openai.demo.service.prompt.PromptRegistryTest;
+import com.codefarm.openai.demo.service.resilience.Bulkhead;
+import com.codefarm.openai.demo.service.resilience.Bulkheads;
+import com.codefarm.openai.demo.service.resilience.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapitalBatchServiceTest {
+
+    private final ArrayChatModel chatModel = new ArrayChatModel();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResultCache<CapitalResponseV2> cache =
+            new ResultCache<>("capital-json-binding", CapitalResponseV2.class, 1000, Duration.ofMinutes(1), null,
+                    new ObjectMapper());
+    private CapitalBatchService service;
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void batchIsDeduplicatedAndPackedIntoPrompts() {
+        service = service(10, Duration.ofMillis(20));
+        List<CapitalRequest> requests = new ArrayList<>();
+        IntStream.range(0, 45).forEach(i -> requests.add(new CapitalRequest("Country" + i)));
+        requests.add(new CapitalRequest(" country7 "));
+
+        Map<String, CapitalResponseV2> capitals = service.getCapitals(requests);
+
+        assertEquals(45, capitals.size());
+        assertEquals("capital of Country7", capitals.get("Country7").capital());
+        assertEquals(5, chatModel.calls.get(), "45 distinct countries in prompts of 10");
+        assertEquals(5, modelTimer("capital-batch").count());
+    }
+
+    @Test
+    void cachedCountriesAreNotSentAgain() {
+        service = service(10, Duration.ofMillis(20));
+        service.getCapitals(List.of(new CapitalRequest("France"), new CapitalRequest("Japan")));
+
+        Map<String, CapitalResponseV2> capitals =
+                service.getCapitals(List.of(new CapitalRequest("france"), new CapitalRequest("Peru")));
+
+        assertEquals("capital of France", capitals.get("france").capital());
+        assertEquals(2, chatModel.calls.get());
+        assertEquals(List.of("Peru"), chatModel.lastCountries);
+    }
+
+    @Test
+    void replyWithTheWrongNumberOfEntriesIsRetriedPerCountry() {
+        service = service(10, Duration.ofMillis(20));
+        chatModel.dropLastEntryOfBatches = true;
+
+        Map<String, CapitalResponseV2> capitals = service.getCapitals(
+                List.of(new CapitalRequest("France"), new CapitalRequest("Japan"), new CapitalRequest("Peru")));
+
+        assertEquals("capital of Japan", capitals.get("Japan").capital());
+        assertEquals("capital of Peru", capitals.get("Peru").capital());
+        assertEquals(4, chatModel.calls.get());
+    }
+
+    @Test
+    void concurrentSingleRequestsAreMicroBatched() throws Exception {
+        service = service(25, Duration.ofMillis(200));
+        List<String> countries = List.of("France", "Japan", "Peru", "Chile", "Kenya");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<CapitalResponseV2>> results = new ArrayList<>();
+            for (String country : countries) {
+                results.add(executor.submit(() -> service.getCapital(new CapitalRequest(country))));
+            }
+            for (int i = 0; i < countries.size(); i++) {
+                assertEquals("capital of " + countries.get(i), results.get(i).get().capital());
+            }
+        }
+        assertEquals(1, chatModel.calls.get());
+        assertEquals(1, modelTimer("capital-json-binding").count(), "tagged with the endpoint that was called");
+        assertNull(meterRegistry.find("llm.stage").tag("endpoint", "capital-batch").timer());
+    }
+
+    @Test
+    void missingCountryOrOversizedBatchIsRejected() {
+        service = service(10, Duration.ofMillis(20));
+
+        assertThrows(InvalidRequestException.class,
+                () -> service.getCapitals(List.of(new CapitalRequest("France"), new CapitalRequest(" "))));
+        assertThrows(InvalidRequestException.class, () -> service.getCapital(new CapitalRequest(null)));
+        List<CapitalRequest> tooMany = IntStream.range(0, 501).mapToObj(i -> new CapitalRequest("Country" + i)).toList();
+        assertThrows(InvalidRequestException.class, () -> service.getCapitals(tooMany));
+        assertEquals(0, chatModel.calls.get());
+    }
+
+    private Timer modelTimer(String endpoint) {
+        return meterRegistry.get("llm.stage").tag("endpoint", endpoint).tag("stage", "model").timer();
+    }
+
+    private CapitalBatchService service(int promptSize, Duration window) {
+        CapitalBatchProperties properties = new CapitalBatchProperties();
+        properties.setPromptSize(promptSize);
+        properties.getMicro().setWindow(window);
+        return new CapitalBatchService(chatModel, null, cache,
+                new Bulkheads(name -> new Bulkhead(name, 8, 100, Duration.ofSeconds(5))), new SingleFlight<>("chat"),
+                properties, PromptRegistryTest.registry(), new LlmMetrics(meterRegistry));
+    }
+
+    /**
+     * Answers packed prompts with one entry per numbered country line.
+     */
+    private static class ArrayChatModel implements ChatModel {
+
+        private static final Pattern COUNTRY = Pattern.compile("(?m)^\\d+\\. (.+)$");
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean dropLastEntryOfBatches;
+        private volatile List<String> lastCountries;
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            List<String> countries = new ArrayList<>();
+            Matcher matcher = COUNTRY.matcher(prompt.getContents());
+            while (matcher.find()) {
+                countries.add(matcher.group(1).trim());
+            }
+            lastCountries = countries;
+            if (dropLastEntryOfBatches && countries.size() > 1) {
+                countries = countries.subList(0, countries.size() - 1);
+            }
+            String json = countries.stream()
+                    .map(country -> "{\"capital\":\"capital of " + country + "\",\"population\":\"1\","
+                            + "\"nationalAnimal\":\"cat\",\"perCapitaIncome\":\"1\",\"populationDensity\":\"1\"}")
+                    .reduce((a, b) -> a + "," + b)
+                    .orElse("");
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("[" + json + "]"))));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.codefarm.openai.demo.service.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapitalPromptTemplateTest {
+
+    @Test
+    void capitalPromptRendersWithTheCountryOnly() {
+        PromptTemplate template = PromptTemplate.builder()
+                .resource(new ClassPathResource("templates/get-capital-prompt.st"))
+                .build();
+
+        assertEquals("What is the capital of France.", template.render(Map.of("country", "France")).strip());
+    }
+}
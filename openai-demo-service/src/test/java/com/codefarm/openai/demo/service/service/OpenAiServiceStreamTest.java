@@ -0,0 +1,171 @@
+package com.codefarm.openai.demo.service.service;
+
+import com.codefarm.openai.demo.service.cache.QueryEmbeddingCache;
+import com.codefarm.openai.demo.service.cache.ResultCache;
+import com.codefarm.openai.demo.service.cache.SemanticCache;
+import com.codefarm.openai.demo.service.metrics.LlmMetrics;
+import com.codefarm.openai.demo.service.model.CapitalRequest;
+import com.codefarm.openai.demo.service.model.CapitalResponse;
+import com.codefarm.openai.demo.service.model.CapitalResponseV2;
+import com.codefarm.openai.demo.service.prompt.JsonField;
+import com.codefarm.openai.demo.service.prompt.PromptRegistryTest;
+import com.codefarm.openai.demo.service.resilience.Bulkhead;
+import com.codefarm.openai.demo.service.resilience.Bulkheads;
+import com.codefarm.openai.demo.service.resilience.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAiServiceStreamTest {
+
+    private final TokenChatModel chatModel = new TokenChatModel();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OpenAiService service = new OpenAiService(chatModel,
+            new SemanticCache<>("ask", new QueryEmbeddingCache(10, Duration.ofMinutes(1)), new ConstantEmbeddingModel(),
+                    0.99, 10, Duration.ofMinutes(1)),
+            resultCache(CapitalResponse.class), resultCache(CapitalResponse.class), resultCache(CapitalResponse.class),
+            resultCache(CapitalResponseV2.class),
+            new Bulkheads(name -> new Bulkhead(name, 4, 4, Duration.ofSeconds(1))), new SingleFlight<>("chat"),
+            PromptRegistryTest.registry(), new ObjectMapper(), new LlmMetrics(registry));
+
+    @Test
+    void streamsTokensAsTheyArrive() {
+        List<String> tokens = service.streamAnswer("What is the capital of France?").collectList().block();
+
+        assertEquals(List.of("The", " capital", " is", " Paris."), tokens);
+    }
+
+    @Test
+    void streamStagesAreTimed() {
+        service.streamAnswer("What is the capital of France?").blockLast();
+
+        assertEquals(1, registry.get("llm.stage").tags("endpoint", "ask-stream", "stage", "first-token").timer().count());
+        assertEquals(1, registry.get("llm.stage").tags("stage", "model", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void completedStreamIsCached() {
+        service.streamAnswer("What is the capital of France?").blockLast();
+
+        List<String> tokens = service.streamAnswer("What is the capital of France?").collectList().block();
+
+        assertEquals(List.of("The capital is Paris."), tokens);
+        assertEquals(1, chatModel.streams.get());
+    }
+
+    @Test
+    void cancellingTheStreamCancelsTheModel() {
+        List<String> first = service.streamAnswer("What is the capital of France?").take(1).collectList().block();
+
+        assertEquals(List.of("The"), first);
+        assertTrue(chatModel.cancelled.get());
+        assertEquals(List.of("The", " capital", " is", " Paris."),
+                service.streamAnswer("What is the capital of France?").collectList().block(),
+                "a cancelled stream must not be cached");
+    }
+
+    @Test
+    void capitalFieldsAreStreamedAndTheAnswerIsCached() {
+        List<JsonField> fields = service.streamCapitalWithJsonBinding(new CapitalRequest("France"))
+                .collectList().block();
+
+        assertEquals(List.of("capital", "population", "nationalAnimal", "perCapitaIncome", "populationDensity"),
+                fields.stream().map(JsonField::name).toList());
+        assertEquals("Paris", fields.get(0).value().asText());
+
+        List<JsonField> cached = service.streamCapitalWithJsonBinding(new CapitalRequest("france"))
+                .collectList().block();
+
+        assertEquals("Gallic rooster", cached.stream()
+                .filter(field -> field.name().equals("nationalAnimal"))
+                .findFirst().orElseThrow().value().asText());
+        assertEquals(1, chatModel.streams.get());
+    }
+
+    @Test
+    void truncatedCapitalAnswerIsNotCached() {
+        List<JsonField> fields = service.streamCapitalWithJsonBinding(new CapitalRequest("Truncatia"))
+                .onErrorResume(e -> Flux.empty())
+                .collectList().block();
+
+        assertEquals(List.of("capital", "population"), fields.stream().map(JsonField::name).toList());
+
+        service.streamCapitalWithJsonBinding(new CapitalRequest("Truncatia"))
+                .onErrorResume(e -> Flux.empty())
+                .blockLast();
+
+        assertEquals(2, chatModel.streams.get(), "a partial answer must not be cached");
+    }
+
+    private static <V> ResultCache<V> resultCache(Class<V> type) {
+        return new ResultCache<>("test", type, 10, Duration.ofMinutes(1), null, new ObjectMapper());
+    }
+
+    private static class TokenChatModel implements ChatModel {
+
+        private final AtomicInteger streams = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return response("The capital is Paris.");
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            streams.incrementAndGet();
+            if (prompt.getContents().contains("Truncatia")) {
+                // the reply stops after two fields, as when the token limit is reached
+                return Flux.just("{\"capital\": \"Trunc\", \"population\": \"1\", ")
+                        .map(TokenChatModel::response);
+            }
+            if (prompt.getContents().contains("JSON Schema")) {
+                return Flux.just("{\"capital\": \"Par", "is\", \"population\": \"68 million\", ",
+                                "\"nationalAnimal\": \"Gallic rooster\", \"perCapitaIncome\": \"44,000 USD\", ",
+                                "\"populationDensity\": \"119 per km2\"}")
+                        .map(TokenChatModel::response);
+            }
+            return Flux.just("The", " capital", " is", " Paris.")
+                    .delayElements(Duration.ofMillis(5))
+                    .map(TokenChatModel::response)
+                    .doOnCancel(() -> cancelled.set(true));
+        }
+
+        private static ChatResponse response(String text) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        }
+    }
+
+    private static class ConstantEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            return new EmbeddingResponse(request.getInstructions().stream()
+                    .map(text -> new Embedding(new float[]{1f, 0f}, 0))
+                    .toList());
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return new float[]{1f, 0f};
+        }
+    }
+}
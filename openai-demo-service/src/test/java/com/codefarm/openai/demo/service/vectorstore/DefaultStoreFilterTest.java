@@ -0,0 +1,68 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the filter documented on {@link com.codefarm.openai.demo.service.model.Question} against
+ * the movies loaded by the default configuration (the {@code simple} store), with the offline
+ * models standing in for OpenAI. The context holds every embedded movie, so it is closed afterwards
+ * instead of staying cached for the rest of the run.
+ */
+@SpringBootTest
+@ActiveProfiles("offline")
+@DirtiesContext
+class DefaultStoreFilterTest {
+
+    private static final String DOCUMENTED_FILTER =
+            "genres == 'Science Fiction' && original_language == 'en' && release_year == 2019";
+
+    @TempDir
+    static Path data;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("vector.store.data.moviesVector", () -> data.resolve("moviesvector.json").toString());
+        registry.add("vector.store.data.moviesSnapshot", () -> data.resolve("moviesvector.snap").toString());
+        registry.add("vector.store.data.moviesManifest", () -> data.resolve("manifest.json").toString());
+        registry.add("cache.capital.directory", () -> data.resolve("cache").toString());
+        registry.add("offline.embedding.latency.distribution", () -> "fixed");
+        registry.add("offline.embedding.latency.median", () -> "0ms");
+    }
+
+    @Autowired
+    private VectorStore vectorStore;
+
+    @Test
+    void documentedFilterMatchesListValuedGenres() {
+        assertInstanceOf(ListAwareSimpleVectorStore.class, vectorStore);
+
+        List<Document> results = vectorStore.similaritySearch(SearchRequest.builder()
+                .query("space travel")
+                .topK(20)
+                .filterExpression(DOCUMENTED_FILTER)
+                .build());
+
+        // movies.csv has six English science fiction films from 2019
+        assertEquals(6, results.size());
+        for (Document movie : results) {
+            assertTrue(((List<?>) movie.getMetadata().get("genres")).contains("Science Fiction"));
+            assertEquals("en", movie.getMetadata().get("original_language"));
+            assertEquals(2019, movie.getMetadata().get("release_year"));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partitioned exact scan: results must equal the single-threaded scan. Latency percentiles of both
+ * under concurrent callers are measured by {@code ExactScanBenchmark}.
+ */
+class ExactVectorIndexTest {
+
+    private static final int CORPUS_SIZE = 100_000;
+    private static final int DIMENSIONS = 384;
+    private static final int TOP_K = 5;
+
+    private static VectorBlock vectors;
+    private static ExecutorService executor;
+    private static Random random;
+
+    @BeforeAll
+    static void buildCorpus() {
+        random = new Random(13);
+        vectors = new VectorBlock();
+        for (int n = 0; n < CORPUS_SIZE; n++) {
+            vectors.append(randomVector());
+        }
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @AfterAll
+    static void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void topKKeepsTheBestScoresInDescendingOrder() {
+        float[] scores = new float[1_000];
+        TopK best = new TopK(10);
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextFloat();
+            best.offer(i, scores[i]);
+        }
+
+        List<ScoredNode> hits = best.drain();
+
+        float[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        assertEquals(10, hits.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(sorted[sorted.length - 1 - i], hits.get(i).score());
+            assertEquals(scores[hits.get(i).node()], hits.get(i).score());
+        }
+        assertEquals(0, best.size());
+    }
+
+    @Test
+    void partitionedScanMatchesSingleThreadedScan() {
+        ExactVectorIndex single = build(new ExactVectorIndex(vectors));
+        ExactVectorIndex partitioned = build(new ExactVectorIndex(vectors, executor, 8, 1_000));
+
+        for (int q = 0; q < 20; q++) {
+            float[] query = VectorBlock.normalize(randomVector());
+            assertEquals(single.search(query, TOP_K, n -> true), partitioned.search(query, TOP_K, n -> true));
+            assertEquals(single.search(query, TOP_K, n -> n % 3 == 0), partitioned.search(query, TOP_K, n -> n % 3 == 0));
+        }
+    }
+
+    @Test
+    void removedNodesAreNotReturned() {
+        ExactVectorIndex partitioned = build(new ExactVectorIndex(vectors, executor, 8, 1_000));
+        float[] query = VectorBlock.normalize(randomVector());
+        int best = partitioned.search(query, 1, n -> true).get(0).node();
+
+        partitioned.remove(best);
+
+        assertTrue(partitioned.search(query, TOP_K, n -> true).stream().noneMatch(hit -> hit.node() == best));
+    }
+
+    @Test
+    void fewerLiveRowsThanTopK() {
+        ExactVectorIndex partitioned = new ExactVectorIndex(vectors, executor, 8, 1);
+        partitioned.add(3);
+        partitioned.add(40_000);
+
+        List<ScoredNode> hits = partitioned.search(VectorBlock.normalize(randomVector()), TOP_K, n -> true);
+
+        assertEquals(2, hits.size());
+        assertTrue(hits.get(0).score() >= hits.get(1).score());
+    }
+
+    private static ExactVectorIndex build(ExactVectorIndex index) {
+        for (int n = 0; n < vectors.size(); n++) {
+            index.add(n);
+        }
+        return index;
+    }
+
+    private static float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
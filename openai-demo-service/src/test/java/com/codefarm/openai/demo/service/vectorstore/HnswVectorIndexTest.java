@@ -0,0 +1,111 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the HNSW graph against the exact scan on a small seeded clustered corpus; the
+ * recall-vs-latency comparison across efSearch values is {@code AnnSearchBenchmark}.
+ */
+class HnswVectorIndexTest {
+
+    private static final int CORPUS_SIZE = 2_000;
+    private static final int DIMENSIONS = 64;
+    private static final int QUERIES = 50;
+    private static final int TOP_K = 10;
+
+    private static VectorBlock vectors;
+    private static ExactVectorIndex exact;
+    private static float[][] queries;
+    private static HnswVectorIndex hnsw;
+
+    @BeforeAll
+    static void buildCorpus() {
+        Random random = new Random(7);
+        float[][] centroids = new float[64][DIMENSIONS];
+        for (float[] centroid : centroids) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                centroid[i] = (float) random.nextGaussian();
+            }
+        }
+        vectors = new VectorBlock();
+        exact = new ExactVectorIndex(vectors);
+        for (int n = 0; n < CORPUS_SIZE; n++) {
+            exact.add(vectors.append(sample(random, centroids)));
+        }
+        queries = new float[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = VectorBlock.normalize(sample(random, centroids));
+        }
+        hnsw = build(16, 200, 64);
+    }
+
+    @Test
+    void recallAgainstExactScan() {
+        assertTrue(recall(hnsw) >= 0.9, "recall@" + TOP_K + " below 0.9");
+    }
+
+    @Test
+    void removedNodesAreNotReturned() {
+        // removing mutates the graph, so this test builds its own
+        HnswVectorIndex graph = build(16, 200, 64);
+        int best = graph.search(queries[0], 1, n -> true).get(0).node();
+
+        graph.remove(best);
+
+        List<ScoredNode> hits = graph.search(queries[0], TOP_K, n -> true);
+        assertEquals(TOP_K, hits.size());
+        assertTrue(hits.stream().noneMatch(hit -> hit.node() == best));
+    }
+
+    @Test
+    void acceptPredicateRestrictsResults() {
+        List<ScoredNode> hits = hnsw.search(queries[0], TOP_K, n -> n % 2 == 0);
+
+        assertEquals(TOP_K, hits.size());
+        assertTrue(hits.stream().allMatch(hit -> hit.node() % 2 == 0));
+    }
+
+    private static Set<Integer> nodes(List<ScoredNode> hits) {
+        Set<Integer> nodes = new HashSet<>();
+        hits.forEach(hit -> nodes.add(hit.node()));
+        return nodes;
+    }
+
+    private static HnswVectorIndex build(int m, int efConstruction, int efSearch) {
+        HnswVectorIndex hnsw = new HnswVectorIndex(vectors, m, efConstruction, efSearch, 42L);
+        for (int n = 0; n < vectors.size(); n++) {
+            hnsw.add(n);
+        }
+        return hnsw;
+    }
+
+    private static double recall(VectorIndex index) {
+        int found = 0;
+        for (float[] query : queries) {
+            Set<Integer> expected = nodes(exact.search(query, TOP_K, n -> true));
+            for (ScoredNode hit : index.search(query, TOP_K, n -> true)) {
+                if (expected.contains(hit.node())) {
+                    found++;
+                }
+            }
+        }
+        return found / (double) (QUERIES * TOP_K);
+    }
+
+    private static float[] sample(Random random, float[][] centroids) {
+        float[] centroid = centroids[random.nextInt(centroids.length)];
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = centroid[i] + (float) random.nextGaussian() * 1.2f;
+        }
+        return vector;
+    }
+}
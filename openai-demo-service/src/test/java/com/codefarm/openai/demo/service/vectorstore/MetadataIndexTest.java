@@ -0,0 +1,175 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataIndexTest {
+
+    private static final List<String> FIELDS = List.of("genres", "original_language", "release_year", "vote_average",
+            "budget");
+    private static final String[] GENRES = {"Drama", "Comedy", "Science Fiction", "Horror", "Romance", "Thriller"};
+    private static final String[] LANGUAGES = {"en", "ko", "fr", "ja", "es"};
+    private static final String[] WORDS = {"space", "love", "war", "family", "robot", "city", "ghost", "detective",
+            "ocean", "school", "music", "road"};
+
+    private final HashingEmbeddingModel embeddingModel = new HashingEmbeddingModel();
+    private final List<Document> movies = movies(2_000);
+
+    @Test
+    void indexedFilterMatchesBruteForce() {
+        IndexedVectorStore indexed = store(IndexedVectorStore.builder(embeddingModel).filterableFields(FIELDS));
+
+        assertFiltered(indexed, "genres == 'Science Fiction' && original_language == 'ko' && release_year == 2019",
+                movie -> genres(movie).contains("Science Fiction") && movie.get("original_language").equals("ko")
+                        && movie.get("release_year").equals(2019));
+        assertFiltered(indexed, "release_year >= 2000 && release_year < 2005 && vote_average > 7.5",
+                movie -> (int) movie.get("release_year") >= 2000 && (int) movie.get("release_year") < 2005
+                        && (double) movie.get("vote_average") > 7.5);
+        assertFiltered(indexed, "genres in ['Horror', 'Thriller'] && original_language != 'en'",
+                movie -> (genres(movie).contains("Horror") || genres(movie).contains("Thriller"))
+                        && !movie.get("original_language").equals("en"));
+        assertFiltered(indexed, "(original_language == 'fr' || original_language == 'ja') && not (budget <= 50000000)",
+                movie -> (movie.get("original_language").equals("fr") || movie.get("original_language").equals("ja"))
+                        && (long) movie.get("budget") > 50_000_000L);
+        assertFiltered(indexed, "original_language nin ['en', 'ko', 'fr', 'ja', 'es']", movie -> false);
+    }
+
+    @Test
+    void scalarFiltersAgreeWithTheSpelEvaluation() {
+        IndexedVectorStore indexed = store(IndexedVectorStore.builder(embeddingModel).filterableFields(FIELDS));
+        IndexedVectorStore plain = store(IndexedVectorStore.builder(embeddingModel));
+
+        for (String filter : List.of("original_language == 'ko' && release_year >= 2010",
+                "vote_average >= 6.5 && vote_average <= 7 || original_language in ['es', 'ja']",
+                "budget > 100000000 && original_language != 'en'")) {
+            SearchRequest request = request("robot city love", filter, 20);
+            assertEquals(ids(plain.similaritySearch(request)), ids(indexed.similaritySearch(request)), filter);
+        }
+    }
+
+    @Test
+    void listFiltersMatchTheSameDocumentsOnEveryStore() {
+        IndexedVectorStore indexed = store(IndexedVectorStore.builder(embeddingModel).filterableFields(FIELDS));
+        IndexedVectorStore plain = store(IndexedVectorStore.builder(embeddingModel));
+        ListAwareSimpleVectorStore simple = ListAwareSimpleVectorStore.create(embeddingModel);
+        simple.add(movies);
+
+        for (String filter : List.of("genres == 'Science Fiction' && original_language == 'ko'",
+                "genres in ['Horror', 'Thriller'] && release_year >= 2010",
+                "genres != 'Drama' && genres nin ['Comedy', 'Romance'] && original_language == 'fr'")) {
+            SearchRequest request = request("robot city love", filter, movies.size());
+            List<String> expected = ids(indexed.similaritySearch(request)).stream().sorted().toList();
+            assertFalse(expected.isEmpty(), filter);
+            assertEquals(expected, ids(plain.similaritySearch(request)).stream().sorted().toList(), filter);
+            assertEquals(expected, ids(simple.similaritySearch(request)).stream().sorted().toList(), filter);
+        }
+    }
+
+    @Test
+    void conjunctsOnUnindexedFieldsAreEvaluatedPerCandidate() {
+        MetadataIndex index = new MetadataIndex(FIELDS);
+        BitSet live = new BitSet();
+        for (int node = 0; node < movies.size(); node++) {
+            index.add(node, movies.get(node).getMetadata());
+            live.set(node);
+        }
+
+        MetadataIndex.Selection selection = index.select(
+                new FilterExpressionTextParser().parse("original_language == 'ko' && title == 'Movie 7'"), live);
+
+        long korean = movies.stream().filter(movie -> movie.getMetadata().get("original_language").equals("ko")).count();
+        assertEquals(korean, selection.candidates().cardinality());
+        assertNotNull(selection.residual());
+
+        IndexedVectorStore indexed = store(IndexedVectorStore.builder(embeddingModel).filterableFields(FIELDS));
+        List<Document> results = indexed.similaritySearch(request("space", "original_language == 'ko' && title == 'Movie 7'", 10));
+        boolean seventhIsKorean = movies.get(7).getMetadata().get("original_language").equals("ko");
+        assertEquals(seventhIsKorean ? List.of("7") : List.of(), ids(results));
+    }
+
+    @Test
+    void selectiveFilterOnHnswReturnsTheExactFilteredTopK() {
+        IndexedVectorStore hnsw = store(IndexedVectorStore.builder(embeddingModel)
+                .indexFactory(HnswVectorIndex.factory(8, 64, 16))
+                .filterableFields(FIELDS));
+        IndexedVectorStore exact = store(IndexedVectorStore.builder(embeddingModel).filterableFields(FIELDS));
+
+        SearchRequest request = request("ghost detective ocean", "original_language == 'ja' && genres == 'Horror'", 5);
+
+        assertEquals(ids(exact.similaritySearch(request)), ids(hnsw.similaritySearch(request)));
+    }
+
+    @Test
+    void deletedDocumentsAreNotReturned() {
+        IndexedVectorStore indexed = store(IndexedVectorStore.builder(embeddingModel).filterableFields(FIELDS));
+        String filter = "original_language == 'ko'";
+        List<String> before = ids(indexed.similaritySearch(request("space", filter, 3)));
+
+        indexed.delete(List.of(before.get(0)));
+
+        List<String> after = ids(indexed.similaritySearch(request("space", filter, 3)));
+        assertFalse(after.contains(before.get(0)));
+        assertEquals(before.subList(1, 3), after.subList(0, 2));
+    }
+
+    private void assertFiltered(IndexedVectorStore store, String filter, Predicate<Map<String, Object>> expected) {
+        List<String> matching = movies.stream()
+                .filter(movie -> expected.test(movie.getMetadata()))
+                .map(Document::getId)
+                .toList();
+        List<Document> results = store.similaritySearch(request("space robot love", filter, movies.size()));
+
+        assertEquals(matching.stream().sorted().toList(), ids(results).stream().sorted().toList(), filter);
+    }
+
+    private IndexedVectorStore store(IndexedVectorStore.IndexedVectorStoreBuilder builder) {
+        IndexedVectorStore store = builder.build();
+        store.add(movies);
+        return store;
+    }
+
+    private static SearchRequest request(String query, String filter, int topK) {
+        return SearchRequest.builder().query(query).topK(topK).filterExpression(filter).build();
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> genres(Map<String, Object> movie) {
+        return (List<String>) movie.get("genres");
+    }
+
+    private static List<Document> movies(int count) {
+        Random random = new Random(7);
+        List<Document> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int w = 0; w < 6; w++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("title", "Movie " + i);
+            metadata.put("genres", List.of(GENRES[random.nextInt(GENRES.length)], GENRES[random.nextInt(GENRES.length)]));
+            metadata.put("original_language", LANGUAGES[random.nextInt(LANGUAGES.length)]);
+            metadata.put("release_year", 1980 + random.nextInt(45));
+            metadata.put("vote_average", Math.round(random.nextDouble() * 100) / 10.0);
+            metadata.put("budget", (long) random.nextInt(200) * 1_000_000L);
+            movies.add(new Document(String.valueOf(i), text.toString().trim(), metadata));
+        }
+        return movies;
+    }
+}
@@ -0,0 +1,134 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that scanning int8 and product-quantized codes with the full-precision re-rank keeps a
+ * minimum recall against the exact scan on a synthetic clustered corpus. Latency and the recall of
+ * other settings are in {@code AnnSearchBenchmark}.
+ */
+class QuantizedVectorIndexTest {
+
+    private static final int CORPUS_SIZE = 20_000;
+    private static final int DIMENSIONS = 128;
+    private static final int QUERIES = 200;
+    private static final int TOP_K = 10;
+    private static final int TRAINING_SIZE = 5_000;
+
+    private static VectorBlock vectors;
+    private static ExactVectorIndex exact;
+    private static float[][] queries;
+
+    @BeforeAll
+    static void buildCorpus() {
+        Random random = new Random(11);
+        float[][] centroids = new float[64][DIMENSIONS];
+        for (float[] centroid : centroids) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                centroid[i] = (float) random.nextGaussian();
+            }
+        }
+        vectors = new VectorBlock();
+        exact = new ExactVectorIndex(vectors);
+        for (int n = 0; n < CORPUS_SIZE; n++) {
+            exact.add(vectors.append(sample(random, centroids)));
+        }
+        queries = new float[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = VectorBlock.normalize(sample(random, centroids));
+        }
+    }
+
+    @Test
+    void scalarQuantizationWithRerankKeepsRecall() {
+        QuantizedVectorIndex index = build(ScalarQuantizer::new, 4);
+
+        assertEquals(DIMENSIONS, index.codeSize());
+        assertTrue(recall(index) >= 0.95, "int8 recall@" + TOP_K + " below 0.95");
+    }
+
+    @Test
+    void productQuantizationWithRerankKeepsRecall() {
+        QuantizedVectorIndex index = build(() -> new ProductQuantizer(32, 10, 1), 10);
+
+        assertEquals(32, index.codeSize());
+        assertTrue(recall(index) >= 0.9, "pq recall@" + TOP_K + " below 0.9");
+    }
+
+    @Test
+    void rerankReturnsExactScores() {
+        QuantizedVectorIndex index = build(ScalarQuantizer::new, 4);
+
+        for (ScoredNode hit : index.search(queries[0], TOP_K, n -> true)) {
+            assertEquals(vectors.dot(hit.node(), queries[0]), hit.score(), 1e-6);
+        }
+    }
+
+    @Test
+    void smallIndexFallsBackToExactScan() {
+        QuantizedVectorIndex index = new QuantizedVectorIndex(vectors, new ScalarQuantizer(), CORPUS_SIZE + 1, 4);
+        for (int n = 0; n < 100; n++) {
+            index.add(n);
+        }
+
+        assertEquals(0, index.codeSize());
+        ExactVectorIndex expected = new ExactVectorIndex(vectors);
+        for (int n = 0; n < 100; n++) {
+            expected.add(n);
+        }
+        assertEquals(expected.search(queries[0], TOP_K, n -> true), index.search(queries[0], TOP_K, n -> true));
+    }
+
+    @Test
+    void removedAndFilteredNodesAreNotReturned() {
+        QuantizedVectorIndex index = build(ScalarQuantizer::new, 4);
+        int best = index.search(queries[0], 1, n -> true).get(0).node();
+
+        index.remove(best);
+
+        List<ScoredNode> hits = index.search(queries[0], TOP_K, n -> n % 2 == 0);
+        assertEquals(TOP_K, hits.size());
+        assertTrue(hits.stream().noneMatch(hit -> hit.node() == best));
+        assertTrue(hits.stream().allMatch(hit -> hit.node() % 2 == 0));
+    }
+
+    private static QuantizedVectorIndex build(Supplier<VectorQuantizer> quantizer, int rerankFactor) {
+        QuantizedVectorIndex index = new QuantizedVectorIndex(vectors, quantizer.get(), TRAINING_SIZE, rerankFactor);
+        for (int n = 0; n < vectors.size(); n++) {
+            index.add(n);
+        }
+        return index;
+    }
+
+    private static double recall(VectorIndex index) {
+        int found = 0;
+        for (float[] query : queries) {
+            Set<Integer> expected = new HashSet<>();
+            exact.search(query, TOP_K, n -> true).forEach(hit -> expected.add(hit.node()));
+            for (ScoredNode hit : index.search(query, TOP_K, n -> true)) {
+                if (expected.contains(hit.node())) {
+                    found++;
+                }
+            }
+        }
+        return found / (double) (QUERIES * TOP_K);
+    }
+
+    private static float[] sample(Random random, float[][] centroids) {
+        float[] centroid = centroids[random.nextInt(centroids.length)];
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = centroid[i] + (float) random.nextGaussian() * 1.2f;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,55 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the preferred kernel against the scalar loop; the scan speed-up per embedding size is
+ * measured by {@code SimilarityKernelBenchmark}.
+ */
+class SimilarityKernelTest {
+
+    @Test
+    void testsRunWithTheSimdKernel() {
+        assertTrue(SimilarityKernels.preferred().name().startsWith("simd"),
+                "expected the SIMD kernel, got " + SimilarityKernels.preferred().name());
+    }
+
+    @Test
+    void matchesScalarForAllLengthsAndOffsets() {
+        Random random = new Random(3);
+        SimilarityKernel simd = SimilarityKernels.preferred();
+        SimilarityKernel scalar = SimilarityKernels.scalar();
+        for (int length = 0; length <= 200; length++) {
+            float[] a = randomVector(random, length + 7);
+            float[] b = randomVector(random, length + 5);
+            int aOffset = random.nextInt(8);
+            int bOffset = random.nextInt(6);
+
+            float expected = scalar.dot(a, aOffset, b, bOffset, length);
+
+            assertEquals(expected, simd.dot(a, aOffset, b, bOffset, length), 1e-3f * Math.max(1, length),
+                    "length " + length);
+        }
+    }
+
+    @Test
+    void vectorBlockDotIsCosine() {
+        VectorBlock block = new VectorBlock();
+        int row = block.append(new float[]{3, 4, 0});
+
+        assertEquals(0.6f, block.dot(row, new float[]{1, 0, 0}), 1e-6f);
+        assertEquals(0.8f, block.dot(row, VectorBlock.normalize(new float[]{0, 2, 0})), 1e-6f);
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
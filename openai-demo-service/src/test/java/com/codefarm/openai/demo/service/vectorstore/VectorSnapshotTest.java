@@ -0,0 +1,145 @@
+package com.codefarm.openai.demo.service.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final HashingEmbeddingModel embeddingModel = new HashingEmbeddingModel();
+
+    @Test
+    void snapshotRoundTripKeepsDocumentsAndRanking() {
+        IndexedVectorStore store = IndexedVectorStore.builder(embeddingModel).build();
+        store.add(movies());
+        List<Document> expected = store.similaritySearch(query("space station astronauts"));
+
+        Path snapshot = tempDir.resolve("movies.snap");
+        store.saveSnapshot(snapshot);
+        IndexedVectorStore restored = IndexedVectorStore.builder(embeddingModel).build();
+        restored.loadSnapshot(snapshot);
+
+        List<Document> actual = restored.similaritySearch(query("space station astronauts"));
+        assertEquals(3, restored.size());
+        assertEquals(expected.stream().map(Document::getId).toList(), actual.stream().map(Document::getId).toList());
+        assertEquals("Interstellar", actual.get(0).getMetadata().get("title"));
+        assertEquals(expected.get(0).getScore(), actual.get(0).getScore(), 1e-6);
+    }
+
+    @Test
+    void convertsJsonVectorFile() throws Exception {
+        IndexedVectorStore store = IndexedVectorStore.builder(embeddingModel).build();
+        store.add(movies());
+        Path json = tempDir.resolve("movies.json");
+        store.save(json.toFile());
+
+        Path snapshot = tempDir.resolve("movies.snap");
+        VectorSnapshot.convert(json.toFile(), snapshot);
+
+        try (VectorSnapshot opened = VectorSnapshot.open(snapshot)) {
+            assertEquals(3, opened.count());
+            assertEquals(HashingEmbeddingModel.DIMENSIONS, opened.vectors().dimensions());
+        }
+    }
+
+    @Test
+    void addAndDeleteAfterLoadingSnapshot() {
+        IndexedVectorStore store = IndexedVectorStore.builder(embeddingModel).build();
+        store.add(movies());
+        Path snapshot = tempDir.resolve("movies.snap");
+        store.saveSnapshot(snapshot);
+        IndexedVectorStore restored = IndexedVectorStore.builder(embeddingModel).build();
+        restored.loadSnapshot(snapshot);
+
+        restored.delete(List.of("1"));
+        restored.add(List.of(new Document("4", "Gravity astronauts adrift after a space station accident",
+                Map.of("title", "Gravity"))));
+
+        List<Document> results = restored.similaritySearch(query("space station astronauts"));
+        assertEquals(3, restored.size());
+        assertEquals("Gravity", results.get(0).getMetadata().get("title"));
+        assertTrue(results.stream().noneMatch(document -> document.getId().equals("1")));
+    }
+
+    @Test
+    void snapshotRowsAreIndexedOnTheFirstFilteredSearch() {
+        IndexedVectorStore store = IndexedVectorStore.builder(embeddingModel).build();
+        store.add(movies());
+        Path snapshot = tempDir.resolve("movies.snap");
+        store.saveSnapshot(snapshot);
+        IndexedVectorStore restored = IndexedVectorStore.builder(embeddingModel)
+                .indexFactory(HnswVectorIndex.factory(8, 32, 32))
+                .filterableFields(List.of("title"))
+                .build();
+        restored.loadSnapshot(snapshot);
+
+        restored.delete(List.of("2"));
+        restored.add(List.of(new Document("4", "Gravity astronauts adrift after a space station accident",
+                Map.of("title", "Gravity"))));
+        List<Document> results = restored.similaritySearch(SearchRequest.builder()
+                .query("space station astronauts")
+                .topK(3)
+                .filterExpression("title in ['Interstellar', 'The Godfather', 'Gravity']")
+                .build());
+
+        assertEquals(List.of("1", "4"), results.stream().map(Document::getId).sorted().toList());
+        assertEquals(3, restored.similaritySearch(query("ocean crime space")).size());
+    }
+
+    @Test
+    void removedRowsAreReclaimedOnceTheyOutnumberLiveOnes() {
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            documents.add(new Document(Integer.toString(i), "movie " + i + " about space station number " + i % 37,
+                    Map.of("title", "Movie " + i)));
+        }
+        IndexedVectorStore store = IndexedVectorStore.builder(embeddingModel).build();
+        store.add(documents);
+        Path snapshot = tempDir.resolve("movies.snap");
+        store.saveSnapshot(snapshot);
+        IndexedVectorStore restored = IndexedVectorStore.builder(embeddingModel).build();
+        restored.loadSnapshot(snapshot);
+
+        restored.delete(documents.subList(0, 900).stream().map(Document::getId).toList());
+        assertEquals(2_000, restored.rows());
+        restored.delete(documents.subList(900, 1_500).stream().map(Document::getId).toList());
+
+        assertEquals(500, restored.size());
+        assertEquals(500, restored.rows());
+        IndexedVectorStore expected = IndexedVectorStore.builder(embeddingModel).build();
+        expected.add(documents.subList(1_500, 2_000));
+        SearchRequest request = SearchRequest.builder().query("space station number 5").topK(10).build();
+        // many texts tie on the hashing embedding, so compare scores rather than ids
+        List<Document> before = expected.similaritySearch(request);
+        List<Document> after = restored.similaritySearch(request);
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals(before.get(i).getScore(), after.get(i).getScore(), 1e-6);
+            assertEquals("Movie " + after.get(i).getId(), after.get(i).getMetadata().get("title"));
+        }
+    }
+
+    private static SearchRequest query(String text) {
+        return SearchRequest.builder().query(text).topK(3).build();
+    }
+
+    private static List<Document> movies() {
+        return List.of(
+                new Document("1", "Interstellar astronauts travel through a wormhole near a space station",
+                        Map.of("title", "Interstellar")),
+                new Document("2", "The Godfather crime family saga in New York", Map.of("title", "The Godfather")),
+                new Document("3", "Finding Nemo a clownfish searches the ocean for his son",
+                        Map.of("title", "Finding Nemo")));
+    }
+}